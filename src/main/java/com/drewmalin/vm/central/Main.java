@@ -88,9 +88,9 @@ public class Main {
              * Deploy "verticles" -- long-running processes that either participate in primary events ("services") or
              * are available for background/blocking/long-running tasks ("workers").
              */
-            deployVmCentralVerticle(config.vmCentral(), vertx);
+            deployVmCentralVerticle(config.vmCentral(), config.cloudVmIaas(), vertx);
 
-            deployVmCloudWorkerVerticle(config.cloudVmWorker(), vertx);
+            deployVmCloudWorkerVerticle(config.cloudVmWorker(), config.cloudVmIaas(), vertx);
 
             /*
              * Listen for changes to the configuration, firing an event on changes
@@ -156,33 +156,66 @@ public class Main {
         });
     }
 
-    private static void deployVmCentralVerticle(final Config.VmCentral config, final Vertx vertx) {
+    private static void deployVmCentralVerticle(final Config.VmCentral config,
+                                                final Config.CloudVmIaas iaasConfig,
+                                                final Vertx vertx) {
 
         final var name = VmCentral.class.getName();
 
         LOGGER.info("Deploying service: '%s'".formatted(name));
 
+        /*
+         * One instance per event loop (by default, one per core): each instance serves HTTP on its own event loop
+         */
+        final var instances = config.vertxInstanceCount() != 0
+            ? config.vertxInstanceCount()
+            : Runtime.getRuntime().availableProcessors();
+
+        LOGGER.info("Service '%s' will deploy %d instance(s)".formatted(name, instances));
+
+        /*
+         * The service reaches the cloud too (e.g. to reconcile VM statuses), so is also given the IaaS config
+         */
+        final var serviceConfig = JsonObject.mapFrom(config)
+            .put("vm.iaas", JsonObject.mapFrom(iaasConfig));
+
         final var options = new DeploymentOptions()
-            .setConfig(JsonObject.mapFrom(config))
-            .setThreadingModel(ThreadingModel.EVENT_LOOP);
+            .setConfig(serviceConfig)
+            .setThreadingModel(ThreadingModel.EVENT_LOOP)
+            .setInstances(instances);
 
         deploy(name, options, vertx);
     }
 
-    private static void deployVmCloudWorkerVerticle(final Config.CloudVmWorker config, final Vertx vertx) {
+    private static void deployVmCloudWorkerVerticle(final Config.CloudVmWorker config,
+                                                    final Config.CloudVmIaas iaasConfig,
+                                                    final Vertx vertx) {
 
         final var name = VmCloudWorker.class.getName();
 
         LOGGER.info("Deploying worker: '%s'".formatted(name));
 
+        final var threadingModel = toWorkerThreadingModel(config.vertxThreadingModel());
+
+        LOGGER.info("Worker '%s' will use threading model: %s".formatted(name, threadingModel));
+
+        /*
+         * The worker provisions VMs through the IaaS providers, so is also given their config
+         */
+        final var workerConfig = JsonObject.mapFrom(config)
+            .put("vm.iaas", JsonObject.mapFrom(iaasConfig));
+
         var options = new DeploymentOptions()
-            .setConfig(JsonObject.mapFrom(config))
-            .setThreadingModel(ThreadingModel.WORKER);
+            .setConfig(workerConfig)
+            .setThreadingModel(threadingModel);
 
-        if (StringUtils.isNotBlank(config.vertxWorkerPoolName())) {
+        /*
+         * Virtual threads are not pooled, so worker pool settings only apply to the WORKER threading model
+         */
+        if (threadingModel == ThreadingModel.WORKER && StringUtils.isNotBlank(config.vertxWorkerPoolName())) {
             options = options.setWorkerPoolName(config.vertxWorkerPoolName());
         }
-        if (config.vertxWorkerPoolSize() != 0) {
+        if (threadingModel == ThreadingModel.WORKER && config.vertxWorkerPoolSize() != 0) {
             options = options.setWorkerPoolSize(config.vertxWorkerPoolSize());
         }
         if (config.vertxInstanceCount() != 0) {
@@ -192,6 +225,25 @@ public class Main {
         deploy(name, options, vertx);
     }
 
+    /*
+     * Workers may run on either (pooled) worker threads, or on virtual threads. Defaults to worker threads.
+     *
+     * Note: the IaaS providers never block, so neither model caps the number of VMs being provisioned at once. The
+     * choice only matters to code which does block (e.g. a provider built on a synchronous SDK), which virtual threads
+     * allow to do so without tying up a pooled thread.
+     */
+    private static ThreadingModel toWorkerThreadingModel(final String name) {
+        if (StringUtils.isBlank(name)) {
+            return ThreadingModel.WORKER;
+        }
+
+        return switch (name.toLowerCase()) {
+            case "worker" -> ThreadingModel.WORKER;
+            case "virtual_thread" -> ThreadingModel.VIRTUAL_THREAD;
+            default -> throw new IllegalArgumentException("Unknown worker threading model: %s".formatted(name));
+        };
+    }
+
     private static void deploy(final String className, final DeploymentOptions options, final Vertx vertx) {
 
         final var start = System.currentTimeMillis();
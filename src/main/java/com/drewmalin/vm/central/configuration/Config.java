@@ -3,6 +3,10 @@ package com.drewmalin.vm.central.configuration;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.apache.commons.lang3.NotImplementedException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * Primary configuration object for the system. Additional fields may be added to capture the general context
@@ -44,34 +48,174 @@ public record Config(
     /*
      * "vm.aws": {
      *   "aws": { ... }
+     *   "simulated": { ... }
      * }
+     *
+     * Note: unless explicitly disabled, every provider is stood in for by a single simulated cloud
      */
     public record CloudVmIaas(
         @JsonProperty(value = "aws")
-        Aws aws
+        Aws aws,
+        @JsonProperty(value = "simulated")
+        Simulated simulated
     ) {
 
+        /*
+         * "limits": {
+         *   "disabled": <boolean>
+         *   "queue.max": <int>
+         *   "default": { <limit> }
+         *   "actions": {
+         *     "<service>:<action>": { <limit> }
+         *   }
+         * }
+         *
+         * <limit>: {
+         *   "rate.per.second": <double>
+         *   "burst": <int>
+         *   "concurrency": <int>
+         * }
+         *
+         * Note: limits apply per provider, region and action (e.g. "ec2:DescribeInstances"). Each field of a limit
+         * falls back to that of the action's built-in limit, then to "default", then to the built-in default.
+         * "queue.max" bounds the calls waiting per region and action, beyond which calls are rejected (default 1000).
+         */
+        public record Limits(
+            @JsonProperty("disabled")
+            boolean disabled,
+            @JsonProperty("queue.max")
+            int queueMax,
+            @JsonProperty("default")
+            Limit defaults,
+            @JsonProperty("actions")
+            Map<String, Limit> actions
+        ) {
+
+            public record Limit(
+                @JsonProperty("rate.per.second")
+                double ratePerSecond,
+                @JsonProperty("burst")
+                int burst,
+                @JsonProperty("concurrency")
+                int concurrency
+            ) {
+
+            }
+        }
+
+        /*
+         * "simulated": {
+         *   "disabled": <boolean>
+         *   "seed": <long>
+         *   "regions": [<string>]
+         *   "run": { <action> }
+         *   "describe": { <action> }
+         *   "boot": { <latency> }
+         *   "visibility": { <latency> }
+         *   "limits": { <limits> }
+         * }
+         *
+         * <action>: {
+         *   "latency": { <latency> }
+         *   "failure.rate": <double>
+         *   "rate.limit.per.second": <double>
+         *   "rate.limit.burst": <int>
+         * }
+         *
+         * <latency>: {
+         *   "distribution": "fixed" | "uniform" | "exponential" | "lognormal"
+         *   "millis": <int>
+         *   "max.millis": <int>
+         *   "sigma": <double>
+         * }
+         *
+         * Note: "boot" is the time an instance takes to go from pending to running, "visibility" the time a new
+         * instance takes to appear to "describe" (i.e. eventual consistency). "millis" is the median of the
+         * distribution, and "sigma" the shape of "lognormal" only. A rate limit of 0 is no limit. "limits" are those
+         * of the callers of the simulated cloud (see Limits), as opposed to those it enforces, and apply only if set.
+         */
+        public record Simulated(
+            @JsonProperty("disabled")
+            boolean disabled,
+            @JsonProperty("seed")
+            long seed,
+            @JsonProperty("regions")
+            List<String> regions,
+            @JsonProperty("run")
+            Action run,
+            @JsonProperty("describe")
+            Action describe,
+            @JsonProperty("boot")
+            Latency boot,
+            @JsonProperty("visibility")
+            Latency visibility,
+            @JsonProperty("limits")
+            Limits limits
+        ) {
+
+            public record Action(
+                @JsonProperty("latency")
+                Latency latency,
+                @JsonProperty("failure.rate")
+                double failureRate,
+                @JsonProperty("rate.limit.per.second")
+                double rateLimitPerSecond,
+                @JsonProperty("rate.limit.burst")
+                int rateLimitBurst
+            ) {
+
+            }
+
+            public record Latency(
+                @JsonProperty("distribution")
+                String distribution,
+                @JsonProperty("millis")
+                int millis,
+                @JsonProperty("max.millis")
+                int maxMillis,
+                @JsonProperty("sigma")
+                double sigma
+            ) {
+
+            }
+        }
+
         /*
          * "aws": {
          *   "endpoint": <string>
+         *   "maxConcurrency": <int>
          *   "profileCredentials": {
          *     "profile": <string>
          *   },
          *   "basicCredentials": {
          *     "accessKeyId": <string>
                "secretAccessKey": <string>
+         *   },
+         *   "limits": { <limits> }
+         *   "provisioning": {
+         *     "region": <string>
+         *     "imageId": <string>
+         *     "instanceType": <string>
          *   }
          * }
          *
-         * Note: "profileCredentials" and "basicCredentials" are mutually exclusive
+         * Note: "profileCredentials" and "basicCredentials" are mutually exclusive. "maxConcurrency" bounds the
+         * requests in flight across all asynchronous clients (default 50). "limits" (see Limits) apply unless disabled.
+         * "provisioning" is required to provision VMs on AWS (i.e. whenever the simulation is disabled).
          */
         public record Aws(
             @JsonProperty("endpoint")
             String endpoint,
+            @JsonProperty("maxConcurrency")
+            int maxConcurrency,
             @JsonProperty("profileCredentials")
             ProfileCredentials profileCredentials,
             @JsonProperty("basicCredentials")
-            BasicCredentials basicCredentials
+            BasicCredentials basicCredentials,
+            @JsonProperty("limits")
+            Limits limits,
+            @JsonProperty("provisioning")
+            Provisioning provisioning
         ) {
 
             public record ProfileCredentials(
@@ -89,6 +233,17 @@ public record Config(
             ) {
 
             }
+
+            public record Provisioning(
+                @JsonProperty("region")
+                String region,
+                @JsonProperty("imageId")
+                String imageId,
+                @JsonProperty("instanceType")
+                String instanceType
+            ) {
+
+            }
         }
     }
 
@@ -97,8 +252,30 @@ public record Config(
         String publicKeyFilename,
         @JsonProperty("auth.key.filename.private")
         String privateKeyFilename,
+        @JsonProperty("auth.key.algorithm")
+        String authKeyAlgorithm,
+        @JsonProperty("auth.hashing.pool.size")
+        int authHashingPoolSize,
+        @JsonProperty("auth.hashing.queue.max")
+        int authHashingQueueMax,
+        @JsonProperty("auth.user.cache.size")
+        int authUserCacheSize,
+        @JsonProperty("auth.user.cache.ttl.millis")
+        int authUserCacheTtlMillis,
+        @JsonProperty("auth.token.access.ttl.seconds")
+        int authTokenAccessTtlSeconds,
+        @JsonProperty("auth.token.refresh.ttl.seconds")
+        int authTokenRefreshTtlSeconds,
+        @JsonProperty("auth.token.cache.size")
+        int authTokenCacheSize,
         @JsonProperty("http.port")
         int httpPort,
+        @JsonProperty("http.page.size.default")
+        int httpPageSizeDefault,
+        @JsonProperty("http.page.size.max")
+        int httpPageSizeMax,
+        @JsonProperty("vertx.instance.count")
+        int vertxInstanceCount,
         @JsonProperty("datasource.engine")
         String datasourceEngine,
         @JsonProperty("datasource.host")
@@ -113,19 +290,115 @@ public record Config(
         ConfigValue datasourcePasswordConfig,
         @JsonProperty("datasource.max.pool.size")
         int datasourceMaxPoolSize,
+        @JsonProperty("datasource.slow.query.threshold.millis")
+        int datasourceSlowQueryThresholdMillis,
+        @JsonProperty("datasource.pool.wait.queue.max")
+        int datasourcePoolWaitQueueMax,
+        @JsonProperty("datasource.pool.adaptive")
+        DatasourcePoolAdaptive datasourcePoolAdaptive,
         @JsonProperty("job.vm.update_status")
-        JobVmUpdateStatus jobVmUpdateStatus
+        JobVmUpdateStatus jobVmUpdateStatus,
+        @JsonProperty("job.vm.provision")
+        JobVmProvision jobVmProvision,
+        @JsonProperty("job.vm.status_events")
+        JobVmStatusEvents jobVmStatusEvents,
+        @JsonProperty("vm.iaas")
+        CloudVmIaas cloudVmIaas
     ) {
 
+        public record DatasourcePoolAdaptive(
+            @JsonProperty("enabled")
+            boolean enabled,
+            @JsonProperty("min.size")
+            int minSize,
+            @JsonProperty("acquire.target.millis")
+            int acquireTargetMillis,
+            @JsonProperty("period.millis")
+            int periodMillis
+        ) {
+
+        }
+
+        /*
+         * "job.vm.update_status": {
+         *   "disabled": <boolean>
+         *   "period.millis": <int>
+         *   "fleet.period.millis": <int>
+         *   "page.size": <int>
+         *   "fetcher": <string>
+         *   "region.concurrency": <int>
+         * }
+         *
+         * Note: pending (i.e. INITIALIZING) VMs are reconciled every "period.millis", and the whole provisioned fleet
+         * (catching VMs stopped or terminated behind our back) every "fleet.period.millis" (0 for every 15 minutes).
+         */
         public record JobVmUpdateStatus(
             @JsonProperty("disabled")
             boolean disabled,
             @JsonProperty("period.millis")
-            int periodMillis
+            int periodMillis,
+            @JsonProperty("fleet.period.millis")
+            int fleetPeriodMillis,
+            @JsonProperty("page.size")
+            int pageSize,
+            @JsonProperty("fetcher")
+            String fetcher,
+            @JsonProperty("region.concurrency")
+            int regionConcurrency
         ) {
 
         }
 
+        public record JobVmProvision(
+            @JsonProperty("disabled")
+            boolean disabled,
+            @JsonProperty("period.millis")
+            int periodMillis,
+            @JsonProperty("batch.size")
+            int batchSize,
+            @JsonProperty("lease.millis")
+            int leaseMillis,
+            @JsonProperty("max.attempts")
+            int maxAttempts
+        ) {
+
+        }
+
+        /*
+         * "job.vm.status_events": {
+         *   "disabled": <boolean>
+         *   "queue.url": <string>
+         *   "region": <string>
+         *   "pollers": <int>
+         *   "wait.seconds": <int>
+         *   "safety.net.period.millis": <int>
+         * }
+         *
+         * Note: status events are only ingested given a "queue.url" (an SQS queue fed EC2 state-change events by an
+         * EventBridge rule). While they are, "job.vm.update_status" runs every "safety.net.period.millis" instead of
+         * every "period.millis", as a safety net for lost events, and reconciles the whole provisioned fleet (UP VMs
+         * included) at least as often.
+         */
+        public record JobVmStatusEvents(
+            @JsonProperty("disabled")
+            boolean disabled,
+            @JsonProperty("queue.url")
+            String queueUrl,
+            @JsonProperty("region")
+            String region,
+            @JsonProperty("pollers")
+            int pollers,
+            @JsonProperty("wait.seconds")
+            int waitSeconds,
+            @JsonProperty("safety.net.period.millis")
+            int safetyNetPeriodMillis
+        ) {
+
+            public boolean enabled() {
+                return !disabled() && StringUtils.isNotBlank(queueUrl());
+            }
+        }
+
         public String datasourceHost() {
             return datasourceHostConfig().getValue();
         }
@@ -156,7 +429,11 @@ public record Config(
         @JsonProperty("vertx.worker.pool.size")
         int vertxWorkerPoolSize,
         @JsonProperty("vertx.instance.count")
-        int vertxInstanceCount
+        int vertxInstanceCount,
+        @JsonProperty("vertx.threading.model")
+        String vertxThreadingModel,
+        @JsonProperty("vm.iaas")
+        CloudVmIaas cloudVmIaas
     ) {
 
     }
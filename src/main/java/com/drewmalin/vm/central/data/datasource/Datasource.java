@@ -3,6 +3,7 @@ package com.drewmalin.vm.central.data.datasource;
 import com.drewmalin.vm.central.utils.DurationUtils;
 import io.vertx.core.Vertx;
 import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.PoolOptions;
 import org.flywaydb.core.Flyway;
 import org.flywaydb.core.api.FlywayException;
 import org.flywaydb.core.api.configuration.FluentConfiguration;
@@ -20,6 +21,8 @@ public abstract class Datasource {
     final String password;
     final Engine engine;
     final int maxPoolSize;
+    final int maxWaitQueueSize;
+    final int eventLoopSize;
 
     Datasource(final DatasourceBuilder builder) {
         this.host = builder.host;
@@ -29,10 +32,23 @@ public abstract class Datasource {
         this.password = builder.password;
         this.engine = builder.engine;
         this.maxPoolSize = builder.maxPoolSize;
+        this.maxWaitQueueSize = builder.maxWaitQueueSize;
+        this.eventLoopSize = builder.eventLoopSize;
     }
 
     public abstract Pool newPool(Vertx vertx);
 
+    PoolOptions newPoolOptions() {
+        final var maxWaitQueueSize = this.maxWaitQueueSize > 0
+            ? this.maxWaitQueueSize
+            : PoolOptions.DEFAULT_MAX_WAIT_QUEUE_SIZE;
+
+        return new PoolOptions()
+            .setMaxSize(this.maxPoolSize)
+            .setMaxWaitQueueSize(maxWaitQueueSize)
+            .setEventLoopSize(this.eventLoopSize);
+    }
+
     public abstract String getUrl();
 
     public void performMigrations() {
@@ -68,6 +84,8 @@ public abstract class Datasource {
         private String password;
         private Engine engine;
         public int maxPoolSize;
+        private int maxWaitQueueSize;
+        private int eventLoopSize;
 
         private DatasourceBuilder() {
         }
@@ -112,6 +130,24 @@ public abstract class Datasource {
             return this;
         }
 
+        /**
+         * The most requests for a connection that may wait for one (beyond which they fail immediately), or 0 for no
+         * bound. Requests made through a {@link PoolLimiter} are bounded by it first; this is a backstop for the rest.
+         */
+        public DatasourceBuilder maxWaitQueueSize(final int maxWaitQueueSize) {
+            this.maxWaitQueueSize = maxWaitQueueSize;
+            return this;
+        }
+
+        /**
+         * The number of event loops across which the connections of the pool are spread. Defaults to only the event
+         * loop of the context creating the pool, which is a bottleneck for a pool shared by several verticle instances.
+         */
+        public DatasourceBuilder eventLoopSize(final int eventLoopSize) {
+            this.eventLoopSize = eventLoopSize;
+            return this;
+        }
+
         public Datasource build() {
             return switch (this.engine) {
                 case POSTGRES -> new PostgresDatasource(this);
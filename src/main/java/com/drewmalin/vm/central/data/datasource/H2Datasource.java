@@ -4,7 +4,6 @@ import io.vertx.core.Vertx;
 import io.vertx.jdbcclient.JDBCConnectOptions;
 import io.vertx.jdbcclient.JDBCPool;
 import io.vertx.sqlclient.Pool;
-import io.vertx.sqlclient.PoolOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,18 +20,16 @@ public class H2Datasource
     public Pool newPool(final Vertx vertx) {
         final var url = "%s:%s".formatted(this.host, this.database);
 
-        LOGGER.info("Connecting to H2 pool: jdbcUrl=%s, username=%s, maxSize=%d"
-            .formatted(url, this.username, this.maxPoolSize));
+        LOGGER.info("Connecting to H2 pool: jdbcUrl=%s, username=%s, maxSize=%d, maxWaitQueueSize=%d, eventLoopSize=%d"
+            .formatted(url, this.username, this.maxPoolSize, this.maxWaitQueueSize,
+                this.eventLoopSize));
 
         final var connectOptions = new JDBCConnectOptions()
             .setJdbcUrl(url)
             .setUser(this.username)
             .setPassword(this.password);
 
-        final var poolOptions = new PoolOptions()
-            .setMaxSize(this.maxPoolSize);
-
-        return JDBCPool.pool(vertx, connectOptions, poolOptions);
+        return JDBCPool.pool(vertx, connectOptions, newPoolOptions());
     }
 
     @Override
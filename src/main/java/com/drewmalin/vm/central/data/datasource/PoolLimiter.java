@@ -0,0 +1,353 @@
+package com.drewmalin.vm.central.data.datasource;
+
+import com.drewmalin.vm.central.configuration.Config;
+import com.drewmalin.vm.central.utils.MetricsUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.ext.web.handler.HttpException;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.PoolOptions;
+import io.vertx.sqlclient.SqlConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounds the number of operations (queries, transactions, streams) in flight against a {@link Pool}: at most the
+ * "effective size" of the pool may hold a connection at once, a bounded number more may wait for one, and any beyond
+ * that are rejected immediately with a 503 rather than queueing without limit behind a slow database.
+ * <p>
+ * The effective size is normally the maximum size of the pool. In adaptive mode it instead moves between a minimum and
+ * that maximum, once per period, based on what was observed over the period:
+ * <ul>
+ *     <li>if the database itself slowed (response time well above its best recent level), the size shrinks, since more
+ *     concurrent queries would only contend with one another</li>
+ *     <li>otherwise, if operations waited too long for a connection, the size grows by one</li>
+ *     <li>otherwise, if fewer connections were ever in use than allowed, the size shrinks by one</li>
+ * </ul>
+ * Meters: vmcentral.sql.pool.{in_use,waiting,size,idle,limit} (gauges), vmcentral.sql.pool.acquire (time from asking
+ * for a connection, including any wait here, to holding one) and vmcentral.sql.pool.rejected.
+ * <p>
+ * A limiter is registered against its pool as the pool is created, see
+ * {@link #register(Vertx, Pool, Config.VmCentral)}, and is applied through {@link #withConnection(Pool, Function)} and
+ * {@link #withTransaction(Pool, Function)}. Pools without a limiter (e.g. in tests) are used directly.
+ */
+public final class PoolLimiter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PoolLimiter.class);
+
+    private static final Map<Pool, PoolLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    private static final int DEFAULT_WAIT_QUEUE_MAX_PER_CONNECTION = 16;
+    private static final Duration DEFAULT_ACQUIRE_TARGET = Duration.ofMillis(5);
+    private static final Duration DEFAULT_PERIOD = Duration.ofSeconds(1);
+
+    /*
+     * The database is deemed to have slowed once its mean response time exceeds its best recent mean by this factor.
+     * The best recent mean drifts upwards slowly so that a lasting change in the workload is eventually accepted.
+     */
+    private static final double DB_SLOWDOWN_FACTOR = 2.0;
+    private static final double DB_BASELINE_DRIFT = 1.01;
+
+    private final Vertx vertx;
+    private final Pool pool;
+    private final int minSize;
+    private final int maxSize;
+    private final int waitQueueMax;
+    private final long acquireTargetNanos;
+    private final long timerId;
+
+    private final Timer acquireTimer;
+    private final Counter rejectedCounter;
+    private final List<Meter> meters = new ArrayList<>();
+
+    /*
+     * Guarded by this
+     */
+    private final Deque<Runnable> waiting = new ArrayDeque<>();
+    private int limit;
+    private int inFlight;
+    private int periodPeakInFlight;
+    private long periodCount;
+    private long periodAcquireNanos;
+    private long periodDbCount;
+    private long periodDbNanos;
+    private double baselineDbNanos;
+
+    private PoolLimiter(final Vertx vertx,
+                        final Pool pool,
+                        final int minSize,
+                        final int maxSize,
+                        final int waitQueueMax,
+                        final Duration acquireTarget,
+                        final Duration period) {
+        this.vertx = vertx;
+        this.pool = pool;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.waitQueueMax = waitQueueMax;
+        this.acquireTargetNanos = acquireTarget.toNanos();
+        this.limit = maxSize;
+
+        final var registry = MetricsUtils.registry();
+        this.acquireTimer = Timer.builder("vmcentral.sql.pool.acquire")
+            .description("Time from asking for a pooled connection (including any wait for a permit) to holding one")
+            .register(registry);
+        this.rejectedCounter = Counter.builder("vmcentral.sql.pool.rejected")
+            .description("Operations rejected because too many were already waiting for a pooled connection")
+            .register(registry);
+
+        this.meters.add(this.acquireTimer);
+        this.meters.add(this.rejectedCounter);
+        this.meters.add(Gauge.builder("vmcentral.sql.pool.in_use", this, limiter -> limiter.snapshot()[0])
+            .description("Operations currently holding a pooled connection")
+            .register(registry));
+        this.meters.add(Gauge.builder("vmcentral.sql.pool.waiting", this, limiter -> limiter.snapshot()[1])
+            .description("Operations currently waiting for a pooled connection")
+            .register(registry));
+        this.meters.add(Gauge.builder("vmcentral.sql.pool.limit", this, limiter -> limiter.snapshot()[2])
+            .description("The effective size of the pool, i.e. the most operations allowed a connection at once")
+            .register(registry));
+        this.meters.add(Gauge.builder("vmcentral.sql.pool.size", pool, Pool::size)
+            .description("Connections currently open (in use or idle)")
+            .register(registry));
+        this.meters.add(Gauge.builder("vmcentral.sql.pool.idle", this, PoolLimiter::idle)
+            .description("Connections currently open but not in use")
+            .register(registry));
+
+        this.timerId = minSize < maxSize
+            ? vertx.setPeriodic(period.toMillis(), ignored -> adapt())
+            : -1;
+    }
+
+    /**
+     * Registers a new {@link PoolLimiter} (sized by the given config) against the given pool.
+     */
+    public static PoolLimiter register(final Vertx vertx, final Pool pool, final Config.VmCentral config) {
+        final var maxSize = config.datasourceMaxPoolSize() != 0
+            ? config.datasourceMaxPoolSize()
+            : PoolOptions.DEFAULT_MAX_SIZE;
+
+        final var waitQueueMax = config.datasourcePoolWaitQueueMax() != 0
+            ? config.datasourcePoolWaitQueueMax()
+            : maxSize * DEFAULT_WAIT_QUEUE_MAX_PER_CONNECTION;
+
+        final var adaptive = config.datasourcePoolAdaptive() != null
+            ? config.datasourcePoolAdaptive()
+            : new Config.VmCentral.DatasourcePoolAdaptive(false, 0, 0, 0);
+
+        final var minSize = !adaptive.enabled()
+            ? maxSize
+            : adaptive.minSize() != 0
+                ? Math.min(adaptive.minSize(), maxSize)
+                : Math.max(1, maxSize / 4);
+
+        final var acquireTarget = adaptive.acquireTargetMillis() != 0
+            ? Duration.ofMillis(adaptive.acquireTargetMillis())
+            : DEFAULT_ACQUIRE_TARGET;
+
+        final var period = adaptive.periodMillis() != 0
+            ? Duration.ofMillis(adaptive.periodMillis())
+            : DEFAULT_PERIOD;
+
+        final var limiter = new PoolLimiter(vertx, pool, minSize, maxSize, waitQueueMax, acquireTarget, period);
+        LIMITERS.put(pool, limiter);
+
+        LOGGER.info("Created pool limiter: size=%d..%d, waitQueueMax=%d, acquireTarget=%s"
+            .formatted(minSize, maxSize, waitQueueMax, acquireTarget));
+
+        return limiter;
+    }
+
+    /**
+     * Unregisters (and stops) the limiter of the given pool, if any. Called as the pool is closed.
+     */
+    public static void unregister(final Pool pool) {
+        final var limiter = LIMITERS.remove(pool);
+        if (limiter == null) {
+            return;
+        }
+
+        if (limiter.timerId >= 0) {
+            limiter.vertx.cancelTimer(limiter.timerId);
+        }
+        limiter.meters.forEach(MetricsUtils.registry()::remove);
+    }
+
+    /**
+     * Runs the given function with a connection of the given pool (see {@link Pool#withConnection(Function)}), once
+     * the limiter of the pool allows.
+     */
+    public static <T> Future<T> withConnection(final Pool pool, final Function<SqlConnection, Future<T>> function) {
+        final var limiter = LIMITERS.get(pool);
+        return limiter != null
+            ? limiter.run(false, function)
+            : pool.withConnection(function);
+    }
+
+    /**
+     * Runs the given function within a transaction on a connection of the given pool (see
+     * {@link Pool#withTransaction(Function)}), once the limiter of the pool allows.
+     */
+    public static <T> Future<T> withTransaction(final Pool pool, final Function<SqlConnection, Future<T>> function) {
+        final var limiter = LIMITERS.get(pool);
+        return limiter != null
+            ? limiter.run(true, function)
+            : pool.withTransaction(function);
+    }
+
+    private <T> Future<T> run(final boolean transaction, final Function<SqlConnection, Future<T>> function) {
+        final var requestedNanos = System.nanoTime();
+
+        return acquirePermit().compose(ignored -> {
+            final Function<SqlConnection, Future<T>> observed = connection -> {
+                final var acquiredNanos = System.nanoTime();
+                final var acquireNanos = acquiredNanos - requestedNanos;
+                this.acquireTimer.record(acquireNanos, TimeUnit.NANOSECONDS);
+
+                /*
+                 * A transaction may hold its connection for as long as its caller likes (e.g. whilst streaming a
+                 * response), so only single statements tell how quickly the database itself responds
+                 */
+                return function.apply(connection)
+                    .onComplete(ar -> observe(acquireNanos, transaction ? -1 : System.nanoTime() - acquiredNanos));
+            };
+
+            final var result = transaction
+                ? this.pool.withTransaction(observed)
+                : this.pool.withConnection(observed);
+
+            return result.onComplete(ar -> releasePermit());
+        });
+    }
+
+    private Future<Void> acquirePermit() {
+        synchronized (this) {
+            if (this.inFlight < this.limit) {
+                this.inFlight++;
+                this.periodPeakInFlight = Math.max(this.periodPeakInFlight, this.inFlight);
+                return Future.succeededFuture();
+            }
+
+            if (this.waiting.size() >= this.waitQueueMax) {
+                this.rejectedCounter.increment();
+                return Future.failedFuture(new HttpException(503, "Too many concurrent database requests"));
+            }
+
+            /*
+             * The permit may be handed over from another event loop, so resume on the caller's own context
+             */
+            final Promise<Void> promise = Promise.promise();
+            final var context = this.vertx.getOrCreateContext();
+            this.waiting.add(() -> context.runOnContext(ignored -> promise.complete()));
+
+            return promise.future();
+        }
+    }
+
+    private void releasePermit() {
+        final Runnable next;
+        synchronized (this) {
+            next = this.inFlight <= this.limit
+                ? this.waiting.poll()
+                : null;
+
+            if (next == null) {
+                // Otherwise the permit passes straight to the next waiter
+                this.inFlight--;
+            }
+        }
+
+        if (next != null) {
+            next.run();
+        }
+    }
+
+    private synchronized void observe(final long acquireNanos, final long dbNanos) {
+        this.periodCount++;
+        this.periodAcquireNanos += acquireNanos;
+
+        if (dbNanos >= 0) {
+            this.periodDbCount++;
+            this.periodDbNanos += dbNanos;
+        }
+    }
+
+    /*
+     * Called once per period (adaptive mode only), see the class Javadoc
+     */
+    private void adapt() {
+        final var started = new ArrayList<Runnable>();
+
+        synchronized (this) {
+            final var previous = this.limit;
+
+            if (this.periodCount > 0) {
+                final var meanAcquireNanos = this.periodAcquireNanos / this.periodCount;
+                final var meanDbNanos = this.periodDbCount > 0
+                    ? (double) this.periodDbNanos / this.periodDbCount
+                    : this.baselineDbNanos;
+
+                this.baselineDbNanos = this.baselineDbNanos == 0
+                    ? meanDbNanos
+                    : Math.min(meanDbNanos, this.baselineDbNanos * DB_BASELINE_DRIFT);
+
+                if (meanDbNanos > this.baselineDbNanos * DB_SLOWDOWN_FACTOR) {
+                    this.limit = Math.max(this.minSize, this.limit - Math.max(1, this.limit / 10));
+                }
+                else if (meanAcquireNanos > this.acquireTargetNanos) {
+                    this.limit = Math.min(this.maxSize, this.limit + 1);
+                }
+                else if (this.periodPeakInFlight < this.limit) {
+                    this.limit = Math.max(this.minSize, this.limit - 1);
+                }
+            }
+            else if (this.periodPeakInFlight < this.limit) {
+                this.limit = Math.max(this.minSize, this.limit - 1);
+            }
+
+            // Any room made by growing goes to those already waiting
+            while (this.inFlight < this.limit && !this.waiting.isEmpty()) {
+                this.inFlight++;
+                started.add(this.waiting.poll());
+            }
+
+            this.periodCount = 0;
+            this.periodAcquireNanos = 0;
+            this.periodDbCount = 0;
+            this.periodDbNanos = 0;
+            this.periodPeakInFlight = this.inFlight;
+
+            if (previous != this.limit && LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Pool limit changed from %d to %d".formatted(previous, this.limit));
+            }
+        }
+
+        started.forEach(Runnable::run);
+    }
+
+    private int idle() {
+        return Math.max(0, this.pool.size() - snapshot()[0]);
+    }
+
+    /*
+     * In use, waiting and the limit, read together
+     */
+    private synchronized int[] snapshot() {
+        return new int[] {this.inFlight, this.waiting.size(), this.limit};
+    }
+}
@@ -4,7 +4,6 @@ import io.vertx.core.Vertx;
 import io.vertx.pgclient.PgConnectOptions;
 import io.vertx.pgclient.PgPool;
 import io.vertx.sqlclient.Pool;
-import io.vertx.sqlclient.PoolOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,20 +18,20 @@ public class PostgresDatasource
 
     @Override
     public Pool newPool(final Vertx vertx) {
-        LOGGER.info("Connecting to PostgreSQL pool: host=%s, port=%d, username=%s, maxSize=%d"
-            .formatted(this.host, this.port, this.username, this.maxPoolSize));
+        LOGGER.info(("Connecting to PostgreSQL pool: host=%s, port=%d, username=%s, maxSize=%d, maxWaitQueueSize=%d, "
+            + "eventLoopSize=%d")
+            .formatted(this.host, this.port, this.username, this.maxPoolSize, this.maxWaitQueueSize,
+                this.eventLoopSize));
 
         final var connectOptions = new PgConnectOptions()
             .setPort(this.port)
             .setHost(this.host)
             .setDatabase(this.database)
             .setUser(this.username)
-            .setPassword(this.password);
+            .setPassword(this.password)
+            .setCachePreparedStatements(true); // statements are parsed once (see SqlStatement), so prepare them once
 
-        final var poolOptions = new PoolOptions()
-            .setMaxSize(this.maxPoolSize);
-
-        return PgPool.pool(vertx, connectOptions, poolOptions);
+        return PgPool.pool(vertx, connectOptions, newPoolOptions());
     }
 
     @Override
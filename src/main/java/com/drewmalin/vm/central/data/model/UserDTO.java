@@ -25,7 +25,9 @@ public record UserDTO(
     @JsonProperty("last_name")
     String lastName,
     @JsonProperty("role_id")
-    String roleId
+    String roleId,
+    @JsonProperty("token_epoch")
+    int tokenEpoch
 )
     implements Identifiable {
 
@@ -38,7 +40,8 @@ public record UserDTO(
             builder.salt,
             builder.firstName,
             builder.lastName,
-            builder.roleId
+            builder.roleId,
+            builder.tokenEpoch
         );
     }
 
@@ -70,7 +73,8 @@ public record UserDTO(
             .salt(user.salt())
             .firstName(user.firstName())
             .lastName(user.lastName())
-            .roleId(user.roleId());
+            .roleId(user.roleId())
+            .tokenEpoch(user.tokenEpoch());
     }
 
     /**
@@ -86,6 +90,7 @@ public record UserDTO(
         private String firstName;
         private String lastName;
         private String roleId;
+        private int tokenEpoch;
 
         private Builder() {
 
@@ -131,6 +136,11 @@ public record UserDTO(
             return this;
         }
 
+        public Builder tokenEpoch(final int tokenEpoch) {
+            this.tokenEpoch = tokenEpoch;
+            return this;
+        }
+
         public UserDTO build() {
             Validate.notBlank(this.id);
             Validate.notBlank(this.username);
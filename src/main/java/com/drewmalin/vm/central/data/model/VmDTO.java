@@ -21,7 +21,11 @@ public record VmDTO(
     @JsonIgnore
     Status vmStatus,
     @JsonIgnore
-    UserDTO owner
+    UserDTO owner,
+    @JsonProperty("provider_instance_id")
+    String providerInstanceId,
+    @JsonProperty("region")
+    String region
 )
     implements Identifiable {
 
@@ -33,7 +37,9 @@ public record VmDTO(
             builder.provider,
             builder.status.name,
             builder.status,
-            builder.owner
+            builder.owner,
+            builder.providerInstanceId,
+            builder.region
         );
     }
 
@@ -52,7 +58,9 @@ public record VmDTO(
             .id(vm.id())
             .provider(vm.vmProvider())
             .status(vm.vmStatus())
-            .owner(vm.owner());
+            .owner(vm.owner())
+            .providerInstanceId(vm.providerInstanceId())
+            .region(vm.region());
     }
 
     /**
@@ -116,6 +124,8 @@ public record VmDTO(
         private Provider provider;
         private Status status;
         private UserDTO owner;
+        private String providerInstanceId;
+        private String region;
 
         private Builder() {
 
@@ -158,6 +168,22 @@ public record VmDTO(
             return this;
         }
 
+        /**
+         * The ID given to the VM by its provider (e.g. an EC2 instance ID), once it has been provisioned.
+         */
+        public Builder providerInstanceId(final String providerInstanceId) {
+            this.providerInstanceId = providerInstanceId;
+            return this;
+        }
+
+        /**
+         * The provider's region (e.g. "us-west-2") hosting the VM, once it has been provisioned.
+         */
+        public Builder region(final String region) {
+            this.region = region;
+            return this;
+        }
+
         public VmDTO build() {
             Validate.notBlank(this.id);
             Validate.notNull(this.provider);
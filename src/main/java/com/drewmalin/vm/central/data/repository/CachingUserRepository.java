@@ -0,0 +1,88 @@
+package com.drewmalin.vm.central.data.repository;
+
+import com.drewmalin.vm.central.data.model.UserDTO;
+import io.vertx.core.Future;
+import io.vertx.core.streams.ReadStream;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A read-through {@link UserCache} in front of another {@link UserRepository}. Only lookups by ID are cached (these
+ * resolve the identity behind every authenticated request); everything else goes straight to the underlying repository.
+ * Writes through this repository invalidate the affected user.
+ * <p>
+ * Lookups by username are deliberately not cached: they are used to verify credentials, which must always be checked
+ * against the latest stored password.
+ */
+public class CachingUserRepository
+    implements UserRepository {
+
+    private final UserRepository delegate;
+    private final UserCache cache;
+
+    public CachingUserRepository(final UserRepository delegate, final UserCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Future<UserDTO> get(final String id) {
+        final var cached = this.cache.get(id);
+        if (cached != null) {
+            return Future.succeededFuture(cached);
+        }
+
+        return this.delegate.get(id)
+            .onSuccess(this.cache::put);
+    }
+
+    @Override
+    public Future<UserDTO> put(final UserDTO user) {
+        return this.delegate.put(user)
+            .onComplete(ar -> this.cache.invalidate(user.id()));
+    }
+
+    @Override
+    public Future<Void> delete(final String id) {
+        return this.delegate.delete(id)
+            .onComplete(ar -> this.cache.invalidate(id));
+    }
+
+    @Override
+    public Future<UserDTO> revokeTokens(final String id) {
+        return this.delegate.revokeTokens(id)
+            .onComplete(ar -> this.cache.invalidate(id));
+    }
+
+    @Override
+    public Future<UserDTO> getByUsername(final String username) {
+        return this.delegate.getByUsername(username);
+    }
+
+    @Override
+    public Future<List<UserDTO>> getAll() {
+        return this.delegate.getAll();
+    }
+
+    @Override
+    public Future<Page<UserDTO>> getAll(final PageRequest page) {
+        return this.delegate.getAll(page);
+    }
+
+    @Override
+    public Future<Void> stream(final Function<ReadStream<UserDTO>, Future<Void>> consumer) {
+        return this.delegate.stream(consumer);
+    }
+
+    @Override
+    public Future<UserDTO> add(final UserDTO user, final boolean ensureUnique) {
+        return this.delegate.add(user, ensureUnique);
+    }
+
+    @Override
+    public Future<List<UserDTO>> putAll(final List<UserDTO> users) {
+        return this.delegate.putAll(users)
+            .onComplete(ar -> users.forEach(user -> this.cache.invalidate(user.id())));
+    }
+}
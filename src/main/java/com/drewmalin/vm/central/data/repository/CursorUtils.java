@@ -0,0 +1,42 @@
+package com.drewmalin.vm.central.data.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public class CursorUtils {
+
+    private static final String PREFIX = "pk:";
+    private static final Base64.Encoder ENCODER;
+    private static final Base64.Decoder DECODER;
+
+    static {
+        ENCODER = Base64.getUrlEncoder().withoutPadding();
+        DECODER = Base64.getUrlDecoder();
+    }
+
+    private CursorUtils() {
+
+    }
+
+    public static String encode(final int key) {
+        return ENCODER.encodeToString((PREFIX + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode(int)}. Cursors are client-provided and therefore
+     * untrusted: any cursor that cannot be decoded results in an {@link IllegalArgumentException}.
+     */
+    public static int decode(final String cursor) {
+        try {
+            final var decoded = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor: %s".formatted(cursor));
+            }
+            return Integer.parseInt(decoded.substring(PREFIX.length()));
+        }
+        catch (final IllegalArgumentException e) {
+            // Note: NumberFormatException is an IllegalArgumentException
+            throw new IllegalArgumentException("Invalid cursor: %s".formatted(cursor), e);
+        }
+    }
+}
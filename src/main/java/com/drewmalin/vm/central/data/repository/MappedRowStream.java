@@ -0,0 +1,67 @@
+package com.drewmalin.vm.central.data.repository;
+
+import io.vertx.core.Handler;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowStream;
+import io.vertx.sqlclient.templates.RowMapper;
+
+/**
+ * A {@link ReadStream} of {@link T}s backed by a database cursor. Each {@link Row} is mapped as it arrives, and flow
+ * control (pause, resume, fetch) is passed straight through to the cursor so that rows are only read from the database
+ * as quickly as the consumer can handle them.
+ *
+ * @param <T> the type of object each row is mapped to
+ */
+class MappedRowStream<T>
+    implements ReadStream<T> {
+
+    private final RowStream<Row> rows;
+    private final RowMapper<T> mapper;
+
+    MappedRowStream(final RowStream<Row> rows, final RowMapper<T> mapper) {
+        this.rows = rows;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public ReadStream<T> exceptionHandler(final Handler<Throwable> handler) {
+        this.rows.exceptionHandler(handler);
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> handler(final Handler<T> handler) {
+        if (handler == null) {
+            this.rows.handler(null);
+        }
+        else {
+            this.rows.handler(row -> handler.handle(this.mapper.map(row)));
+        }
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> pause() {
+        this.rows.pause();
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> resume() {
+        this.rows.resume();
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> fetch(final long amount) {
+        this.rows.fetch(amount);
+        return this;
+    }
+
+    @Override
+    public ReadStream<T> endHandler(final Handler<Void> endHandler) {
+        this.rows.endHandler(endHandler);
+        return this;
+    }
+}
@@ -0,0 +1,42 @@
+package com.drewmalin.vm.central.data.repository;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * A single page of {@link Identifiable}s, along with the opaque cursor used to request the page that follows it.
+ *
+ * @param items      the {@link List<T>} of identifiables in this page
+ * @param nextCursor the {@link String} cursor of the next page, or null if this is the final page
+ * @param <T>        the type of {@link Identifiable} contained in this page
+ */
+public record Page<T extends Identifiable>(List<T> items, String nextCursor) {
+
+    public boolean hasNext() {
+        return this.nextCursor != null;
+    }
+
+    /**
+     * Builds a page from the rows returned by a keyset query. Such queries should request one more row than the page
+     * limit: the presence of that extra row is how we know that a following page exists (it is not included in the
+     * resultant page).
+     *
+     * @param rows    the {@link List<T>} of rows returned by a query limited to 'limit + 1' rows
+     * @param request the {@link PageRequest} which produced the rows
+     * @param keyFn   a function returning the (ordered) primary key of a row
+     *
+     * @return a new {@link Page<T>}
+     */
+    public static <T extends Identifiable> Page<T> of(final List<T> rows,
+                                                      final PageRequest request,
+                                                      final ToIntFunction<T> keyFn) {
+        if (rows.size() <= request.limit()) {
+            return new Page<>(rows, null);
+        }
+
+        final var items = rows.subList(0, request.limit());
+        final var lastKey = keyFn.applyAsInt(items.get(items.size() - 1));
+
+        return new Page<>(items, CursorUtils.encode(lastKey));
+    }
+}
@@ -0,0 +1,46 @@
+package com.drewmalin.vm.central.data.repository;
+
+/**
+ * A request for a single page of {@link Identifiable}s. Pages are keyset-based: each page begins immediately after
+ * the primary key encoded in the previous page's cursor, so every page is a single, bounded, indexed query no matter
+ * how deep into the result set it is.
+ *
+ * @param afterKey the int primary key after which the page begins (exclusive)
+ * @param limit    the int maximum number of identifiables in the page
+ */
+public record PageRequest(int afterKey, int limit) {
+
+    private static final int FIRST_KEY = 0;
+
+    public PageRequest {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Page limit must be positive, found: %d".formatted(limit));
+        }
+    }
+
+    /**
+     * Requests the first page.
+     *
+     * @param limit the int maximum number of identifiables in the page
+     *
+     * @return a new {@link PageRequest}
+     */
+    public static PageRequest first(final int limit) {
+        return new PageRequest(FIRST_KEY, limit);
+    }
+
+    /**
+     * Requests the page identified by the provided cursor. A null or empty cursor requests the first page.
+     *
+     * @param cursor the opaque {@link String} cursor, as returned by {@link Page#nextCursor()}
+     * @param limit  the int maximum number of identifiables in the page
+     *
+     * @return a new {@link PageRequest}
+     */
+    public static PageRequest of(final String cursor, final int limit) {
+        if (cursor == null || cursor.isEmpty()) {
+            return first(limit);
+        }
+        return new PageRequest(CursorUtils.decode(cursor), limit);
+    }
+}
@@ -0,0 +1,77 @@
+package com.drewmalin.vm.central.data.repository;
+
+import com.drewmalin.vm.central.data.model.VmDTO;
+import io.vertx.core.Future;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * A durable queue of VMs awaiting provisioning. Jobs are claimed under a lease: a claimed job is invisible to all
+ * other claimants until its lease expires, at which point it becomes claimable again. A worker which crashes (or whose
+ * node restarts) therefore never loses a job, it only delays it by at most one lease.
+ */
+public interface ProvisioningQueue {
+
+    /**
+     * Enqueues the VM for provisioning, immediately claimable.
+     *
+     * @param vm the {@link VmDTO} to provision
+     *
+     * @return a {@link Future<Void>} which completes once the VM is enqueued
+     */
+    Future<Void> enqueue(VmDTO vm);
+
+    /**
+     * Claims up to 'limit' claimable jobs, leasing each for the given duration. Jobs currently claimed by others are
+     * skipped rather than waited upon, so any number of claimants may claim concurrently without claiming the same job.
+     *
+     * @param limit the maximum number of jobs to claim
+     * @param lease the {@link Duration} for which the claimed jobs are leased
+     *
+     * @return a {@link Future<List<Claim>>} containing the claimed jobs, which may be empty
+     */
+    Future<List<Claim>> claim(int limit, Duration lease);
+
+    /**
+     * Removes a claimed job from the queue, as long as its lease is still held.
+     *
+     * @param claim the {@link Claim} to complete
+     *
+     * @return a {@link Future<Boolean>} containing true if the job was completed, or false if its lease was lost
+     */
+    Future<Boolean> complete(Claim claim);
+
+    /**
+     * Releases a claimed job back to the queue, claimable again once the given delay has passed.
+     *
+     * @param claim the {@link Claim} to retry
+     * @param delay the {@link Duration} to wait before the job may be claimed again
+     * @param error a description of the failure which caused the retry
+     *
+     * @return a {@link Future<Boolean>} containing true if the job was released, or false if its lease was lost
+     */
+    Future<Boolean> retry(Claim claim, Duration delay, String error);
+
+    /**
+     * Gives up on a claimed job. The job is kept (along with the error) but is never claimed again.
+     *
+     * @param claim the {@link Claim} to abandon
+     * @param error a description of the failure which caused the job to be abandoned
+     *
+     * @return a {@link Future<Boolean>} containing true if the job was abandoned, or false if its lease was lost
+     */
+    Future<Boolean> abandon(Claim claim, String error);
+
+    /**
+     * A job claimed from the queue.
+     *
+     * @param pk         the primary key of the job
+     * @param leaseToken identifies the lease under which the job was claimed
+     * @param attempts   the number of times the job has been claimed, including this one
+     * @param vm         the {@link VmDTO} to provision
+     */
+    record Claim(int pk, String leaseToken, int attempts, VmDTO vm) {
+
+    }
+}
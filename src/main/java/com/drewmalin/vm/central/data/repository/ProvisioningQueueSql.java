@@ -0,0 +1,162 @@
+package com.drewmalin.vm.central.data.repository;
+
+import com.drewmalin.vm.central.data.model.VmDTO;
+import io.vertx.core.Future;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.SqlClient;
+import io.vertx.sqlclient.SqlConnection;
+import org.apache.commons.lang3.NotImplementedException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProvisioningQueueSql
+    implements ProvisioningQueue {
+
+    private static final SqlStatement INSERT = SqlStatement.parse("provisioning_job.insert", """
+        INSERT INTO provisioning_jobs (
+            virtual_machine_fk
+        )
+        VALUES (
+            #{virtual_machine_pk}
+        )
+        """);
+
+    /*
+     * Leases up to 'limit' claimable jobs and returns them along with their VMs (and owners), in a single round trip.
+     * Rows locked by a concurrent claim are skipped rather than waited upon, which is what allows any number of nodes
+     * to claim in parallel without ever claiming the same job twice. Leasing pushes visible_at out, so a job whose
+     * claimant never completes it becomes claimable again once its lease runs out. All times are the database's, so
+     * the clocks of the claimants do not matter. SKIP LOCKED and data-modifying CTEs are specific to PostgreSQL.
+     */
+    private static final SqlStatement CLAIM = SqlStatement.parse("provisioning_job.claim", """
+        WITH claimed AS (
+            UPDATE provisioning_jobs AS job
+            SET
+                attempts = job.attempts + 1,
+                visible_at = now() + #{lease_millis}::bigint * interval '1 millisecond',
+                lease_token = #{lease_token}
+            FROM (
+                SELECT provisioning_job_pk
+                FROM provisioning_jobs
+                WHERE abandoned_at IS NULL AND visible_at <= now()
+                ORDER BY visible_at
+                LIMIT #{limit}
+                FOR UPDATE SKIP LOCKED
+            ) AS claimable
+            WHERE
+                job.provisioning_job_pk = claimable.provisioning_job_pk
+            RETURNING
+                job.provisioning_job_pk,
+                job.virtual_machine_fk,
+                job.attempts
+        )
+        SELECT
+            claimed.provisioning_job_pk,
+            claimed.attempts,
+            vm.virtual_machine_pk,
+            vm.virtual_machine_id,
+            vm.provider,
+            vm.status,
+            vm.provider_instance_id,
+            vm.region,
+            u.user_pk,
+            u.user_id,
+            u.username,
+            u.hashed_password,
+            u.salt,
+            u.first_name,
+            u.last_name,
+            u.role_id
+        FROM claimed
+        JOIN virtual_machines AS vm ON vm.virtual_machine_pk = claimed.virtual_machine_fk
+        JOIN users AS u ON u.user_pk = vm.user_fk
+        """);
+
+    private static final SqlStatement DELETE = SqlStatement.parse("provisioning_job.delete", """
+        DELETE FROM provisioning_jobs
+        WHERE
+            provisioning_job_pk = #{pk} AND lease_token = #{lease_token}
+        """);
+
+    private static final SqlStatement RETRY = SqlStatement.parse("provisioning_job.retry", """
+        UPDATE provisioning_jobs
+        SET
+            visible_at = now() + #{delay_millis}::bigint * interval '1 millisecond',
+            lease_token = NULL,
+            last_error = #{last_error}
+        WHERE
+            provisioning_job_pk = #{pk} AND lease_token = #{lease_token}
+        """);
+
+    private static final SqlStatement ABANDON = SqlStatement.parse("provisioning_job.abandon", """
+        UPDATE provisioning_jobs
+        SET
+            abandoned_at = now(),
+            lease_token = NULL,
+            last_error = #{last_error}
+        WHERE
+            provisioning_job_pk = #{pk} AND lease_token = #{lease_token}
+        """);
+
+    private final SqlClient sqlClient;
+    private final SqlStatement.Dialect dialect;
+
+    /**
+     * @param sqlClient either a {@link Pool}, or a {@link SqlConnection} in order to take part in a transaction owned
+     *                  by the caller
+     */
+    public ProvisioningQueueSql(final SqlClient sqlClient) {
+        this.sqlClient = sqlClient;
+        this.dialect = SqlStatement.Dialect.of(sqlClient);
+    }
+
+    @Override
+    public Future<Void> enqueue(final VmDTO vm) {
+        return INSERT.execute(this.sqlClient, this.dialect, vm.pk())
+            .mapEmpty();
+    }
+
+    @Override
+    public Future<List<Claim>> claim(final int limit, final Duration lease) {
+        if (this.dialect != SqlStatement.Dialect.POSTGRES) {
+            return Future.failedFuture(new NotImplementedException("Claiming provisioning jobs requires PostgreSQL"));
+        }
+
+        final var leaseToken = IdUtils.nextId();
+
+        return CLAIM.execute(this.sqlClient, this.dialect, lease.toMillis(), leaseToken, limit)
+            .map(rowSet -> {
+                final List<Claim> claims = new ArrayList<>(rowSet.size());
+                for (final Row row : rowSet) {
+                    claims.add(new Claim(
+                        row.getInteger("provisioning_job_pk"),
+                        leaseToken,
+                        row.getInteger("attempts"),
+                        VmRepositorySql.VM_WITH_OWNER_MAPPER.map(row)
+                    ));
+                }
+                return claims;
+            });
+    }
+
+    @Override
+    public Future<Boolean> complete(final Claim claim) {
+        return DELETE.execute(this.sqlClient, this.dialect, claim.pk(), claim.leaseToken())
+            .map(rowSet -> rowSet.rowCount() == 1);
+    }
+
+    @Override
+    public Future<Boolean> retry(final Claim claim, final Duration delay, final String error) {
+        return RETRY.execute(this.sqlClient, this.dialect, delay.toMillis(), error, claim.pk(), claim.leaseToken())
+            .map(rowSet -> rowSet.rowCount() == 1);
+    }
+
+    @Override
+    public Future<Boolean> abandon(final Claim claim, final String error) {
+        return ABANDON.execute(this.sqlClient, this.dialect, error, claim.pk(), claim.leaseToken())
+            .map(rowSet -> rowSet.rowCount() == 1);
+    }
+}
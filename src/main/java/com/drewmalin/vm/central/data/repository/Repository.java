@@ -1,8 +1,10 @@
 package com.drewmalin.vm.central.data.repository;
 
 import io.vertx.core.Future;
+import io.vertx.core.streams.ReadStream;
 
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * A repository of {@link Identifiable}s.
@@ -18,6 +20,27 @@ public interface Repository<T extends Identifiable> {
      */
     Future<List<T>> getAll();
 
+    /**
+     * Gets a single page of identifiables in this repository, ordered by their primary keys.
+     *
+     * @param page the {@link PageRequest} identifying the page to return
+     *
+     * @return a {@link Future<Page<T>>} containing the page of identifiables
+     */
+    Future<Page<T>> getAll(PageRequest page);
+
+    /**
+     * Streams all identifiables in this repository, ordered by their primary keys. Identifiables are read from the
+     * repository lazily, as the consumer asks for them, so the memory used by this operation does not grow with the
+     * size of the repository. The stream is only valid until the future returned by the consumer completes.
+     *
+     * @param consumer a function which consumes the {@link ReadStream<T>} of identifiables, returning a
+     *                 {@link Future<Void>} which completes once the consumer is finished with the stream
+     *
+     * @return a {@link Future<Void>} which completes once the consumer is finished with the stream
+     */
+    Future<Void> stream(Function<ReadStream<T>, Future<Void>> consumer);
+
     /**
      * Adds the identifiable to this repository. If the identifiable already exists in this repository, this operation
      * no-ops. If the identifiable already exists in the repository and 'ensureUnique' is set to true, an exception
@@ -0,0 +1,228 @@
+package com.drewmalin.vm.central.data.repository;
+
+import com.drewmalin.vm.central.data.datasource.PoolLimiter;
+import io.vertx.core.Future;
+import io.vertx.pgclient.PgConnection;
+import io.vertx.pgclient.PgPool;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.SqlClient;
+import io.vertx.sqlclient.Tuple;
+import org.apache.commons.lang3.Validate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * A named SQL statement, written using the same #{parameter} syntax as {@link io.vertx.sqlclient.templates.SqlTemplate}
+ * but parsed exactly once (statements are intended to be held as constants). Values are bound positionally, in the
+ * order in which each distinct parameter first appears in the statement, so executing a statement costs no more than a
+ * plain prepared query: no re-parsing of the template and no intermediate map of parameters.
+ * <p>
+ * Because the parsed SQL text of a statement never changes, the (server-side) prepared statement cache of the
+ * connection can be relied upon to only prepare it once per connection.
+ */
+public final class SqlStatement {
+
+    private static final Pattern PARAMETER = Pattern.compile("#\\{(\\w+)}");
+
+    private final String name;
+    private final List<String> parameters;
+    private final String postgresSql;
+    private final String jdbcSql;
+
+    /*
+     * JDBC placeholders ('?') are purely positional, so a parameter used more than once in the statement must also be
+     * bound more than once. This maps each placeholder to the index of the value bound to it.
+     */
+    private final int[] jdbcValueIndexes;
+
+    private volatile SqlStatementMetrics metrics;
+
+    private SqlStatement(final String name,
+                         final List<String> parameters,
+                         final String postgresSql,
+                         final String jdbcSql,
+                         final int[] jdbcValueIndexes) {
+        this.name = name;
+        this.parameters = parameters;
+        this.postgresSql = postgresSql;
+        this.jdbcSql = jdbcSql;
+        this.jdbcValueIndexes = jdbcValueIndexes;
+    }
+
+    /**
+     * Parses the given #{parameter} template into a new {@link SqlStatement}.
+     */
+    public static SqlStatement parse(final String name, final String template) {
+        Validate.notBlank(name);
+        Validate.notBlank(template);
+
+        final var parameters = new ArrayList<String>();
+        final var jdbcValueIndexes = new ArrayList<Integer>();
+        final var postgresSql = new StringBuilder(template.length());
+        final var jdbcSql = new StringBuilder(template.length());
+
+        final var matcher = PARAMETER.matcher(template);
+        var previousEnd = 0;
+
+        while (matcher.find()) {
+            final var parameter = matcher.group(1);
+
+            var index = parameters.indexOf(parameter);
+            if (index < 0) {
+                parameters.add(parameter);
+                index = parameters.size() - 1;
+            }
+            jdbcValueIndexes.add(index);
+
+            postgresSql.append(template, previousEnd, matcher.start()).append('$').append(index + 1);
+            jdbcSql.append(template, previousEnd, matcher.start()).append('?');
+
+            previousEnd = matcher.end();
+        }
+
+        postgresSql.append(template, previousEnd, template.length());
+        jdbcSql.append(template, previousEnd, template.length());
+
+        return new SqlStatement(
+            name,
+            List.copyOf(parameters),
+            postgresSql.toString(),
+            jdbcSql.toString(),
+            jdbcValueIndexes.stream().mapToInt(Integer::intValue).toArray()
+        );
+    }
+
+    public String name() {
+        return this.name;
+    }
+
+    /**
+     * The distinct parameter names of this statement, in the order in which their values must be bound.
+     */
+    public List<String> parameters() {
+        return this.parameters;
+    }
+
+    public String sql(final Dialect dialect) {
+        return switch (dialect) {
+            case POSTGRES -> this.postgresSql;
+            case JDBC -> this.jdbcSql;
+        };
+    }
+
+    /**
+     * Binds the given values, one per distinct parameter and in the order of {@link #parameters()}, into a
+     * {@link Tuple} suitable for the given {@link Dialect}.
+     */
+    public Tuple bind(final Dialect dialect, final Object... values) {
+        if (values.length != this.parameters.size()) {
+            throw new IllegalArgumentException("Statement %s expects %d values %s, but was given %d"
+                .formatted(this.name, this.parameters.size(), this.parameters, values.length));
+        }
+
+        if (dialect == Dialect.POSTGRES) {
+            return Tuple.wrap(values);
+        }
+
+        final var tuple = Tuple.tuple();
+        for (final var valueIndex : this.jdbcValueIndexes) {
+            tuple.addValue(values[valueIndex]);
+        }
+        return tuple;
+    }
+
+    /**
+     * Executes this statement against the given {@link SqlClient} (a pool or a connection), see
+     * {@link SqlStatementMetrics}.
+     */
+    public Future<RowSet<Row>> execute(final SqlClient sqlClient, final Dialect dialect, final Object... values) {
+        final var tuple = bind(dialect, values);
+
+        return instrument(
+            sqlClient,
+            client -> client.preparedQuery(sql(dialect)).execute(tuple),
+            () -> SqlStatementMetrics.redact(this.parameters, values)
+        );
+    }
+
+    /**
+     * Executes this statement once per (already bound) {@link Tuple} of values, as a single batch.
+     */
+    public Future<RowSet<Row>> executeBatch(final SqlClient sqlClient, final Dialect dialect, final List<Tuple> batch) {
+        return instrument(
+            sqlClient,
+            client -> client.preparedQuery(sql(dialect)).executeBatch(batch),
+            () -> "%s (batch of %d)".formatted(this.parameters, batch.size())
+        );
+    }
+
+    /*
+     * A pool hands each query to a connection of its own, so the connection is acquired here instead (exactly as the
+     * pool itself would) to tell the time spent waiting for it apart from the time spent executing the statement
+     */
+    private Future<RowSet<Row>> instrument(final SqlClient sqlClient,
+                                           final Function<SqlClient, Future<RowSet<Row>>> query,
+                                           final Supplier<String> parameters) {
+        final var metrics = metrics();
+
+        if (sqlClient instanceof Pool pool) {
+            final var acquiringNanos = System.nanoTime();
+
+            return PoolLimiter.withConnection(pool, connection -> {
+                final var startNanos = System.nanoTime();
+                final var waitNanos = startNanos - acquiringNanos;
+                metrics.recordPoolWait(waitNanos);
+
+                return metrics.record(query.apply(connection), startNanos, waitNanos, parameters);
+            });
+        }
+
+        return metrics.record(query.apply(sqlClient), System.nanoTime(), 0, parameters);
+    }
+
+    /*
+     * Created on first execution rather than on parsing: statements are constants, so are parsed before the metrics
+     * registry of Vert.x exists. A race merely registers the same (idempotent) meters twice.
+     */
+    private SqlStatementMetrics metrics() {
+        var metrics = this.metrics;
+        if (metrics == null) {
+            metrics = new SqlStatementMetrics(this);
+            this.metrics = metrics;
+        }
+        return metrics;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+    /**
+     * The placeholder syntax of the underlying SQL client.
+     */
+    public enum Dialect {
+        /*
+         * $1, $2, ... (the reactive PostgreSQL client)
+         */
+        POSTGRES,
+        /*
+         * ?, ?, ... (the JDBC client)
+         */
+        JDBC,
+        ;
+
+        public static Dialect of(final SqlClient sqlClient) {
+            if (sqlClient instanceof PgPool || sqlClient instanceof PgConnection) {
+                return POSTGRES;
+            }
+            return JDBC;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.drewmalin.vm.central.data.repository;
+
+import com.drewmalin.vm.central.utils.MetricsUtils;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Future;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.RowSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The meters of a single {@link SqlStatement}, each tagged by the name of the statement:
+ * <ul>
+ *     <li>vmcentral.sql.statement: time taken to execute the statement (excluding any wait for a connection), further
+ *     tagged by outcome (success or error)</li>
+ *     <li>vmcentral.sql.statement.rows: rows returned (queries) or affected (updates) by the statement</li>
+ *     <li>vmcentral.sql.pool.wait: time spent waiting for a pooled connection on which to execute the statement</li>
+ * </ul>
+ * Any execution slower than the slow query threshold (see {@link #setSlowQueryThreshold(Duration)}) is also logged,
+ * along with the names of its parameters. Bound values are never logged, only their types, as they may hold personal
+ * data or credentials.
+ */
+public final class SqlStatementMetrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlStatementMetrics.class);
+
+    public static final Duration DEFAULT_SLOW_QUERY_THRESHOLD = Duration.ofMillis(250);
+
+    private static volatile long slowQueryThresholdNanos = DEFAULT_SLOW_QUERY_THRESHOLD.toNanos();
+
+    private final SqlStatement statement;
+    private final Timer successTimer;
+    private final Timer errorTimer;
+    private final Timer poolWaitTimer;
+    private final DistributionSummary rows;
+
+    SqlStatementMetrics(final SqlStatement statement) {
+        this.statement = statement;
+
+        final var registry = MetricsUtils.registry();
+        this.successTimer = statementTimer(statement, "success").register(registry);
+        this.errorTimer = statementTimer(statement, "error").register(registry);
+        this.poolWaitTimer = Timer.builder("vmcentral.sql.pool.wait")
+            .description("Time spent waiting for a pooled connection on which to execute a statement")
+            .tag("statement", statement.name())
+            .register(registry);
+        this.rows = DistributionSummary.builder("vmcentral.sql.statement.rows")
+            .description("Rows returned (queries) or affected (updates) by a statement")
+            .tag("statement", statement.name())
+            .register(registry);
+    }
+
+    /**
+     * Sets the duration beyond which an execution of any statement is logged as slow. A zero threshold restores the
+     * default ({@link #DEFAULT_SLOW_QUERY_THRESHOLD}) and a negative threshold disables the log altogether.
+     */
+    public static void setSlowQueryThreshold(final Duration threshold) {
+        if (threshold.isZero()) {
+            slowQueryThresholdNanos = DEFAULT_SLOW_QUERY_THRESHOLD.toNanos();
+        }
+        else if (threshold.isNegative()) {
+            slowQueryThresholdNanos = Long.MAX_VALUE;
+        }
+        else {
+            slowQueryThresholdNanos = threshold.toNanos();
+        }
+    }
+
+    void recordPoolWait(final long waitNanos) {
+        this.poolWaitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the given execution of the statement once it completes.
+     *
+     * @param result     the result of the execution
+     * @param startNanos when the execution began (having acquired a connection)
+     * @param waitNanos  the time spent waiting for a pooled connection, if any
+     * @param parameters describes the parameters of the execution (only called if it is logged)
+     */
+    Future<RowSet<Row>> record(final Future<RowSet<Row>> result,
+                               final long startNanos,
+                               final long waitNanos,
+                               final Supplier<String> parameters) {
+
+        return result.onComplete(ar -> {
+            final var elapsedNanos = System.nanoTime() - startNanos;
+
+            if (ar.succeeded()) {
+                this.successTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+                this.rows.record(countRows(ar.result()));
+            }
+            else {
+                this.errorTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            }
+
+            if (elapsedNanos + waitNanos >= slowQueryThresholdNanos && LOGGER.isWarnEnabled()) {
+                LOGGER.warn("Slow statement %s: %d ms (plus %d ms waiting for a connection), parameters %s".formatted(
+                    this.statement.name(),
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    TimeUnit.NANOSECONDS.toMillis(waitNanos),
+                    parameters.get()
+                ));
+            }
+        });
+    }
+
+    /**
+     * Describes the given parameters and the types (but never the values) bound to them, e.g. "[id=String]".
+     */
+    static String redact(final List<String> parameters, final Object... values) {
+        final var joiner = new StringJoiner(", ", "[", "]");
+
+        for (var i = 0; i < parameters.size(); i++) {
+            final var value = i < values.length
+                ? values[i]
+                : null;
+
+            joiner.add("%s=%s".formatted(parameters.get(i), value == null ? "null" : value.getClass().getSimpleName()));
+        }
+        return joiner.toString();
+    }
+
+    private static Timer.Builder statementTimer(final SqlStatement statement, final String outcome) {
+        return Timer.builder("vmcentral.sql.statement")
+            .description("Time taken to execute a statement, excluding any wait for a pooled connection")
+            .tag("statement", statement.name())
+            .tag("outcome", outcome);
+    }
+
+    /*
+     * A batch yields one row set per execution, chained by next()
+     */
+    private static long countRows(final RowSet<Row> rowSet) {
+        var count = 0L;
+        for (var current = rowSet; current != null; current = current.next()) {
+            count += current.size() > 0
+                ? current.size()
+                : Math.max(0, current.rowCount());
+        }
+        return count;
+    }
+}
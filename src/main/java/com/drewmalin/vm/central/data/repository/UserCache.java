@@ -0,0 +1,92 @@
+package com.drewmalin.vm.central.data.repository;
+
+import com.drewmalin.vm.central.configuration.Config;
+import com.drewmalin.vm.central.data.model.UserDTO;
+import com.drewmalin.vm.central.utils.MetricsUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Shareable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * A bounded cache of {@link UserDTO}s by ID, see {@link CachingUserRepository}. Entries are evicted once the cache is
+ * full (least recently/frequently used first) and once they reach a maximum age.
+ * <p>
+ * Invalidation is local to this process, so an update made by another node can be missed for at most the maximum age
+ * of an entry.
+ * <p>
+ * A single cache is shared by every verticle of a Vert.x instance, see {@link #shared(Vertx, Config.VmCentral)}.
+ */
+public class UserCache
+    implements Shareable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserCache.class);
+
+    private static final String SHARED_DATA_MAP_NAME = "vm-central.data";
+    private static final String SHARED_DATA_KEY = "user-cache";
+
+    private static final int DEFAULT_SIZE = 10_000;
+    private static final int DEFAULT_TTL_MILLIS = 60_000;
+
+    private final Cache<String, UserDTO> cache;
+
+    private UserCache(final int size, final Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(size)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+
+        // vmcentral.users.cache.{gets,puts,evictions,size,...}, with gets tagged by result=hit|miss
+        CaffeineCacheMetrics.monitor(MetricsUtils.registry(), this.cache, "vmcentral.users.cache");
+
+        LOGGER.info("Created user cache: size=%d, ttl=%s".formatted(size, ttl));
+    }
+
+    /**
+     * Gets the {@link UserCache} shared by all verticles of the given Vert.x instance, creating it (sized by the given
+     * config) if it does not yet exist.
+     */
+    public static UserCache shared(final Vertx vertx, final Config.VmCentral config) {
+        final var size = config.authUserCacheSize() != 0
+            ? config.authUserCacheSize()
+            : DEFAULT_SIZE;
+
+        final var ttlMillis = config.authUserCacheTtlMillis() != 0
+            ? config.authUserCacheTtlMillis()
+            : DEFAULT_TTL_MILLIS;
+
+        return shared(vertx, size, Duration.ofMillis(ttlMillis));
+    }
+
+    /**
+     * Gets the {@link UserCache} shared by all verticles of the given Vert.x instance, creating it (with default sizing)
+     * if it does not yet exist.
+     */
+    public static UserCache shared(final Vertx vertx) {
+        return shared(vertx, DEFAULT_SIZE, Duration.ofMillis(DEFAULT_TTL_MILLIS));
+    }
+
+    private static UserCache shared(final Vertx vertx, final int size, final Duration ttl) {
+        return vertx.sharedData()
+            .<String, UserCache>getLocalMap(SHARED_DATA_MAP_NAME)
+            .computeIfAbsent(SHARED_DATA_KEY, ignored -> new UserCache(size, ttl));
+    }
+
+    UserDTO get(final String id) {
+        return this.cache.getIfPresent(id);
+    }
+
+    void put(final UserDTO user) {
+        this.cache.put(user.id(), user);
+    }
+
+    void invalidate(final String id) {
+        this.cache.invalidate(id);
+    }
+}
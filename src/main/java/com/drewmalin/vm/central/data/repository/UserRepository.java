@@ -10,14 +10,24 @@ public interface UserRepository
     extends Repository<UserDTO> {
 
     /**
-     * Gets the {@link UserDTO} identified by the provided credentials. If no user exists, the resultant future will be marked as having failed.
+     * Gets the {@link UserDTO} with the provided username. If no user exists, the resultant future will be marked as
+     * having failed. Note that this does not verify any credentials, see
+     * {@link com.drewmalin.vm.central.http.auth.PasswordHasher#matches(String, byte[], byte[])}.
      *
      * @param username the {@link String} username
-     * @param password the {@link String} plaintext password
      *
      * @return a {@link Future<UserDTO>} containing the user
      */
-    Future<UserDTO> get(String username, String password);
-
+    Future<UserDTO> getByUsername(String username);
 
+    /**
+     * Revokes all outstanding refresh tokens of the user with the provided ID, by moving its token epoch on. Access
+     * tokens already issued remain valid until they expire, but cannot be refreshed. If no user exists, the resultant
+     * future will be marked as having failed.
+     *
+     * @param id the {@link String} ID of the user
+     *
+     * @return a {@link Future<UserDTO>} containing the user, as of its new token epoch
+     */
+    Future<UserDTO> revokeTokens(String id);
 }
@@ -1,117 +1,259 @@
 package com.drewmalin.vm.central.data.repository;
 
-import com.drewmalin.vm.central.http.auth.Crypto;
-import com.drewmalin.vm.central.task.UnauthorizedException;
+import com.drewmalin.vm.central.data.datasource.PoolLimiter;
 import com.drewmalin.vm.central.data.model.UserDTO;
 import io.vertx.core.Future;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
 import io.vertx.sqlclient.RowIterator;
 import io.vertx.sqlclient.templates.RowMapper;
-import io.vertx.sqlclient.templates.SqlTemplate;
 import org.apache.commons.lang3.NotImplementedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.Function;
 
 public class UserRepositorySql
     implements UserRepository {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UserRepositorySql.class);
 
+    /*
+     * The number of rows read from the database per cursor fetch when streaming
+     */
+    private static final int STREAM_FETCH_SIZE = 100;
+
+    /*
+     * Maps a row from the users table into a UserDTO
+     */
+    private static final RowMapper<UserDTO> USER_MAPPER = row -> {
+        return UserDTO.builder()
+            .pk(row.getInteger("user_pk"))
+            .id(row.getString("user_id"))
+            .username(row.getString("username"))
+            .hashedPassword(row.getBuffer("hashed_password").getBytes())
+            .salt(row.getBuffer("salt").getBytes())
+            .firstName(row.getString("first_name"))
+            .lastName(row.getString("last_name"))
+            .roleId(row.getString("role_id"))
+            .tokenEpoch(row.getInteger("token_epoch"))
+            .build();
+    };
+
+    private static final SqlStatement SELECT_ALL = SqlStatement.parse("user.select_all", """
+        SELECT
+            u.user_pk,
+            u.user_id,
+            u.username,
+            u.hashed_password,
+            u.salt,
+            u.first_name,
+            u.last_name,
+            u.role_id,
+            u.token_epoch
+        FROM users AS u
+        ORDER BY u.user_pk
+        """);
+
+    private static final SqlStatement SELECT_PAGE = SqlStatement.parse("user.select_page", """
+        SELECT
+            u.user_pk,
+            u.user_id,
+            u.username,
+            u.hashed_password,
+            u.salt,
+            u.first_name,
+            u.last_name,
+            u.role_id,
+            u.token_epoch
+        FROM users AS u
+        WHERE u.user_pk > #{after_pk}
+        ORDER BY u.user_pk
+        LIMIT #{limit}
+        """);
+
+    private static final SqlStatement SELECT_BY_ID = SqlStatement.parse("user.select_by_id", """
+        SELECT
+            u.user_pk,
+            u.user_id,
+            u.username,
+            u.hashed_password,
+            u.salt,
+            u.first_name,
+            u.last_name,
+            u.role_id,
+            u.token_epoch
+        FROM users AS u
+        WHERE u.user_id = #{id}
+        """);
+
+    private static final SqlStatement SELECT_BY_USERNAME = SqlStatement.parse("user.select_by_username", """
+        SELECT
+            u.user_pk,
+            u.user_id,
+            u.username,
+            u.hashed_password,
+            u.salt,
+            u.first_name,
+            u.last_name,
+            u.role_id,
+            u.token_epoch
+        FROM users AS u
+        WHERE u.username = #{username}
+        """);
+
+    /*
+     * The insert comes in two variants: one which fails on a duplicate username, and one which quietly does nothing
+     */
+    private static final String INSERT_TEMPLATE = """
+        INSERT INTO users (
+            user_id,
+            username,
+            hashed_password,
+            salt,
+            first_name,
+            last_name,
+            role_id
+        )
+        VALUES (
+            #{user_id},
+            #{username},
+            #{hashed_password},
+            #{salt},
+            #{first_name},
+            #{last_name},
+            #{role_id}
+        )
+        %s
+        RETURNING
+            user_pk,
+            user_id,
+            username,
+            hashed_password,
+            salt,
+            first_name,
+            last_name,
+            role_id,
+            token_epoch
+        """;
+
+    private static final SqlStatement INSERT = SqlStatement.parse("user.insert",
+        INSERT_TEMPLATE.formatted(""));
+
+    private static final SqlStatement INSERT_IF_ABSENT = SqlStatement.parse("user.insert_if_absent",
+        INSERT_TEMPLATE.formatted("ON CONFLICT (username) DO NOTHING"));
+
+    private static final SqlStatement UPDATE = SqlStatement.parse("user.update", """
+        UPDATE users
+        SET
+            first_name = #{first_name},
+            last_name = #{last_name}
+        WHERE user_pk = #{pk}
+        RETURNING
+            user_pk,
+            user_id,
+            username,
+            hashed_password,
+            salt,
+            first_name,
+            last_name,
+            role_id,
+            token_epoch
+        """);
+
+    private static final SqlStatement REVOKE_TOKENS = SqlStatement.parse("user.revoke_tokens", """
+        UPDATE users
+        SET
+            token_epoch = token_epoch + 1
+        WHERE user_id = #{id}
+        RETURNING
+            user_pk,
+            user_id,
+            username,
+            hashed_password,
+            salt,
+            first_name,
+            last_name,
+            role_id,
+            token_epoch
+        """);
+
+    private static final SqlStatement DELETE_BY_ID = SqlStatement.parse("user.delete_by_id", """
+        DELETE FROM users
+        WHERE user_id = #{id}
+        """);
+
     private final Pool sqlPool;
+    private final SqlStatement.Dialect dialect;
 
     public UserRepositorySql(final Pool sqlPool) {
         this.sqlPool = sqlPool;
+        this.dialect = SqlStatement.Dialect.of(sqlPool);
     }
 
     @Override
     public Future<List<UserDTO>> getAll() {
-        final var query = """
-            SELECT
-                u.user_pk,
-                u.user_id,
-                u.username,
-                u.hashed_password,
-                u.salt,
-                u.first_name,
-                u.last_name,
-                u.role_id
-            FROM users AS u
-            """;
-
-        return this.sqlPool.withConnection(sqlConnection -> SqlTemplate.forQuery(sqlConnection, query)
-            .mapTo(UserDTO.class)
-            .execute(Collections.emptyMap())
+        return SELECT_ALL.execute(this.sqlPool, this.dialect)
             .map(rowSet -> {
-                final List<UserDTO> users = new ArrayList<>();
-                for (final UserDTO user : rowSet) {
-                    users.add(user);
+                final List<UserDTO> users = new ArrayList<>(rowSet.size());
+                for (final Row row : rowSet) {
+                    users.add(USER_MAPPER.map(row));
                 }
                 return users;
+            });
+    }
+
+    @Override
+    public Future<Page<UserDTO>> getAll(final PageRequest page) {
+        // one extra row indicates that there is a next page
+        return SELECT_PAGE.execute(this.sqlPool, this.dialect, page.afterKey(), page.limit() + 1)
+            .map(rowSet -> {
+                final List<UserDTO> users = new ArrayList<>(rowSet.size());
+                for (final Row row : rowSet) {
+                    users.add(USER_MAPPER.map(row));
+                }
+                return Page.of(users, page, UserDTO::pk);
+            });
+    }
+
+    @Override
+    public Future<Void> stream(final Function<ReadStream<UserDTO>, Future<Void>> consumer) {
+        /*
+         * Cursors only live as long as their transaction, so the full lifetime of the stream (i.e. until the
+         * consumer's future completes) takes place within one.
+         */
+        return PoolLimiter.withTransaction(this.sqlPool, sqlConnection -> sqlConnection
+            .prepare(SELECT_ALL.sql(this.dialect))
+            .compose(preparedStatement -> {
+                final var rows = preparedStatement.createStream(STREAM_FETCH_SIZE, SELECT_ALL.bind(this.dialect));
+                return consumer.apply(new MappedRowStream<>(rows, USER_MAPPER));
             }));
     }
 
     @Override
     public Future<UserDTO> add(final UserDTO user, final boolean ensureUnique) {
-        final var subQuery = ensureUnique
-            ? ""
-            : "ON CONFLICT (username) DO NOTHING";
+        final var statement = ensureUnique
+            ? INSERT
+            : INSERT_IF_ABSENT;
 
-        final var query = """
-            INSERT INTO users (
-                user_id,
-                username,
-                hashed_password,
-                salt,
-                first_name,
-                last_name,
-                role_id
+        return statement.execute(this.sqlPool, this.dialect,
+                user.id(),
+                user.username(),
+                user.hashedPassword(),
+                user.salt(),
+                user.firstName(),
+                user.lastName(),
+                user.roleId()
             )
-            VALUES (
-                #{user_id},
-                #{username},
-                #{hashed_password},
-                #{salt},
-                #{first_name},
-                #{last_name},
-                #{role_id}
-            )
-            %s
-            RETURNING
-                user_pk,
-                user_id,
-                username,
-                hashed_password,
-                salt,
-                first_name,
-                last_name,
-                role_id
-            """.formatted(subQuery);
-
-        final Map<String, Object> parameters = new HashMap<>();
-        parameters.put("user_id", user.id());
-        parameters.put("username", user.username());
-        parameters.put("hashed_password", user.hashedPassword());
-        parameters.put("salt", user.salt());
-        parameters.put("first_name", user.firstName());
-        parameters.put("last_name", user.lastName());
-        parameters.put("role_id", user.roleId());
-
-        return this.sqlPool.withConnection(sqlConnection -> SqlTemplate.forUpdate(sqlConnection, query)
-            .mapTo(UserDTO.class)
-            .execute(parameters)
             .map(rowSet -> {
-                final RowIterator<UserDTO> iterator = rowSet.iterator();
+                final RowIterator<Row> iterator = rowSet.iterator();
 
                 if (iterator.hasNext()) {
-                    return iterator.next();
+                    return USER_MAPPER.map(iterator.next());
                 }
                 else if (ensureUnique) {
                     /*
@@ -127,41 +269,16 @@ public class UserRepositorySql
                      */
                     return user;
                 }
-            })
-        );
+            });
     }
 
     @Override
     public Future<UserDTO> put(final UserDTO user) {
-        final var query = """
-            UPDATE users
-            SET
-                first_name = #{first_name},
-                last_name = #{last_name}
-            WHERE user_pk = #{pk}
-            RETURNING
-                user_pk,
-                user_id,
-                username,
-                hashed_password,
-                salt,
-                first_name,
-                last_name,
-                role_id
-            """;
-
-        final Map<String, Object> parameters = new HashMap<>();
-        parameters.put("pk", user.pk());
-        parameters.put("first_name", user.firstName());
-        parameters.put("last_name", user.lastName());
-
-        return this.sqlPool.withConnection(sqlConnection -> SqlTemplate.forUpdate(sqlConnection, query)
-            .mapTo(UserDTO.class)
-            .execute(parameters)
+        return UPDATE.execute(this.sqlPool, this.dialect, user.firstName(), user.lastName(), user.pk())
             .map(rowSet -> {
-                final RowIterator<UserDTO> iterator = rowSet.iterator();
+                final RowIterator<Row> iterator = rowSet.iterator();
                 if (iterator.hasNext()) {
-                    return iterator.next();
+                    return USER_MAPPER.map(iterator.next());
                 }
                 else {
                     throw new SqlOperationException("failed to insert user %s".formatted(user.pk()));
@@ -169,7 +286,7 @@ public class UserRepositorySql
             })
             .onFailure(t -> {
                 LOGGER.error(t.getMessage());
-            }));
+            });
     }
 
     @Override
@@ -179,127 +296,52 @@ public class UserRepositorySql
 
     @Override
     public Future<UserDTO> get(final String id) {
-        final var query = """
-            SELECT
-                u.user_pk,
-                u.user_id,
-                u.username,
-                u.hashed_password,
-                u.salt,
-                u.first_name,
-                u.last_name,
-                u.role_id
-            FROM users AS u
-            WHERE u.user_id = #{id}
-            """;
-
-        final Map<String, Object> parameters = new HashMap<>();
-        parameters.put("id", id);
-
-        final RowMapper<UserDTO> mapper = row -> {
-            return UserDTO.builder()
-                .pk(row.getInteger("user_pk"))
-                .id(row.getString("user_id"))
-                .username(row.getString("username"))
-                .hashedPassword(row.getBuffer("hashed_password").getBytes())
-                .salt(row.getBuffer("salt").getBytes())
-                .firstName(row.getString("first_name"))
-                .lastName(row.getString("last_name"))
-                .roleId(row.getString("role_id"))
-                .build();
-        };
-
-        return this.sqlPool.withConnection(sqlConnection -> SqlTemplate.forQuery(sqlConnection, query)
-            .mapTo(mapper)
-            .execute(parameters)
+        return SELECT_BY_ID.execute(this.sqlPool, this.dialect, id)
             .map(rowSet -> {
-                final RowIterator<UserDTO> iterator = rowSet.iterator();
+                final RowIterator<Row> iterator = rowSet.iterator();
                 if (iterator.hasNext()) {
-                    return iterator.next();
+                    return USER_MAPPER.map(iterator.next());
                 }
                 else {
                     throw new NoSuchElementException();
                 }
-            }));
+            });
     }
 
     @Override
     public Future<Void> delete(final String id) {
-        final var query = """
-            DELETE FROM users
-            WHERE user_id = #{id}
-            """;
-
-        final Map<String, Object> parameters = new HashMap<>();
-        parameters.put("id", id);
-
-        return this.sqlPool.withConnection(sqlConnection -> SqlTemplate.forUpdate(sqlConnection, query)
-            .execute(parameters)
+        return DELETE_BY_ID.execute(this.sqlPool, this.dialect, id)
             .map(result -> (Void) null)
             .onFailure(t -> {
                 LOGGER.error(t.getMessage());
-            }));
+            });
     }
 
     @Override
-    public Future<UserDTO> get(final String username,
-                               final String password) {
-        final var query = """
-            SELECT
-                u.user_pk,
-                u.user_id,
-                u.username,
-                u.hashed_password,
-                u.salt,
-                u.first_name,
-                u.last_name,
-                u.role_id
-            FROM users AS u
-            WHERE u.username = #{username}
-            """;
-
-        final Map<String, Object> parameters = new HashMap<>();
-        parameters.put("username", username);
-
-        final RowMapper<UserDTO> mapper = row -> {
-            return UserDTO.builder()
-                .pk(row.getInteger("user_pk"))
-                .id(row.getString("user_id"))
-                .username(row.getString("username"))
-                .hashedPassword(row.getBuffer("hashed_password").getBytes())
-                .salt(row.getBuffer("salt").getBytes())
-                .firstName(row.getString("first_name"))
-                .lastName(row.getString("last_name"))
-                .roleId(row.getString("role_id"))
-                .build();
-        };
-
-        return this.sqlPool.withConnection(sqlConnection -> SqlTemplate.forQuery(sqlConnection, query)
-            .mapTo(mapper)
-            .execute(parameters)
+    public Future<UserDTO> getByUsername(final String username) {
+        return SELECT_BY_USERNAME.execute(this.sqlPool, this.dialect, username)
             .map(rowSet -> {
-                final RowIterator<UserDTO> iterator = rowSet.iterator();
+                final RowIterator<Row> iterator = rowSet.iterator();
                 if (iterator.hasNext()) {
-                    return iterator.next();
+                    return USER_MAPPER.map(iterator.next());
                 }
                 else {
                     throw new NoSuchElementException("No record for username: %s".formatted(username));
                 }
-            })
-            .map(user -> {
-                /*
-                 * This user has the right username, but we now need to verify that the provided password hashes to the
-                 * stored value. Use the stored salt and the provided password to generate the hash.
-                 */
-                final var salt = user.salt();
-                final var encodedPassword = Crypto.builder(password).salt(salt).build();
+            });
+    }
 
-                if (!Arrays.equals(user.hashedPassword(), encodedPassword.hash())) {
-                    throw new UnauthorizedException("Invalid username/password combination");
+    @Override
+    public Future<UserDTO> revokeTokens(final String id) {
+        return REVOKE_TOKENS.execute(this.sqlPool, this.dialect, id)
+            .map(rowSet -> {
+                final RowIterator<Row> iterator = rowSet.iterator();
+                if (iterator.hasNext()) {
+                    return USER_MAPPER.map(iterator.next());
                 }
-
-                return user;
-            }));
-
+                else {
+                    throw new NoSuchElementException("No record for id: %s".formatted(id));
+                }
+            });
     }
 }
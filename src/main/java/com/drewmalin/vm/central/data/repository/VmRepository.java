@@ -1,8 +1,77 @@
 package com.drewmalin.vm.central.data.repository;
 
 import com.drewmalin.vm.central.data.model.VmDTO;
+import io.vertx.core.Future;
+import io.vertx.core.streams.ReadStream;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
 
 public interface VmRepository
     extends Repository<VmDTO> {
 
+    /**
+     * Gets a single page of the {@link VmDTO}s owned by the user identified by the provided ID. Filtering happens within
+     * the repository itself, so the cost of this operation scales with the number of VMs owned by the user rather than
+     * with the total number of VMs in the repository.
+     *
+     * @param ownerId the {@link String} ID of the owning user
+     * @param page    the {@link PageRequest} identifying the page to return
+     *
+     * @return a {@link Future<Page<VmDTO>>} containing the page of VMs owned by the user
+     */
+    Future<Page<VmDTO>> getAllByOwner(String ownerId, PageRequest page);
+
+    /**
+     * Gets a single page of the {@link VmDTO}s which are pending, i.e. whose status is
+     * {@link VmDTO.Status#INITIALIZING} (DOWN being as settled a status as UP). The cost of this operation scales with
+     * the number of pending VMs rather than with the total number of VMs in the repository.
+     *
+     * @param page the {@link PageRequest} identifying the page to return
+     *
+     * @return a {@link Future<Page<VmDTO>>} containing the page of pending VMs
+     */
+    Future<Page<VmDTO>> getPending(PageRequest page);
+
+    /**
+     * Gets a single page of the {@link VmDTO}s which have been provisioned, i.e. which have a provider instance
+     * (whatever their status). The cost of this operation scales with the number of provisioned VMs rather than with
+     * the total number of VMs in the repository.
+     *
+     * @param page the {@link PageRequest} identifying the page to return
+     *
+     * @return a {@link Future<Page<VmDTO>>} containing the page of provisioned VMs
+     */
+    Future<Page<VmDTO>> getProvisioned(PageRequest page);
+
+    /**
+     * Streams all {@link VmDTO}s owned by the user identified by the provided ID. See {@link #stream(Function)}.
+     *
+     * @param ownerId  the {@link String} ID of the owning user
+     * @param consumer a function which consumes the {@link ReadStream<VmDTO>} of VMs, returning a {@link Future<Void>}
+     *                 which completes once the consumer is finished with the stream
+     *
+     * @return a {@link Future<Void>} which completes once the consumer is finished with the stream
+     */
+    Future<Void> streamByOwner(String ownerId, Function<ReadStream<VmDTO>, Future<Void>> consumer);
+
+    /**
+     * Sets the status of each VM identified by the instance ID its provider gave it (and the region hosting it), in a
+     * single write. VMs already in the given status are left untouched, as are instances unknown to the repository.
+     * So are VMs whose status last changed at or after the time of the given status, so that a status delivered out of
+     * order never overwrites a newer one.
+     *
+     * @param statuses the {@link List<InstanceStatus>} to apply, at most one per instance
+     *
+     * @return a {@link Future<Integer>} containing the number of VMs whose status changed
+     */
+    Future<Integer> putStatusesByInstance(List<InstanceStatus> statuses);
+
+    /**
+     * The status of the VM hosted as the given provider instance, in the given region, as of the given time.
+     */
+    record InstanceStatus(String region, String providerInstanceId, VmDTO.Status status, Instant time) {
+
+    }
 }
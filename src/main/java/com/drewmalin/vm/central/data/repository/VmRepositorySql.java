@@ -1,303 +1,666 @@
 package com.drewmalin.vm.central.data.repository;
 
+import com.drewmalin.vm.central.data.datasource.PoolLimiter;
 import com.drewmalin.vm.central.data.model.UserDTO;
 import com.drewmalin.vm.central.data.model.VmDTO;
 import io.vertx.core.Future;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.Row;
 import io.vertx.sqlclient.RowIterator;
+import io.vertx.sqlclient.RowSet;
+import io.vertx.sqlclient.SqlClient;
+import io.vertx.sqlclient.SqlConnection;
+import io.vertx.sqlclient.Tuple;
 import io.vertx.sqlclient.templates.RowMapper;
-import io.vertx.sqlclient.templates.SqlTemplate;
 import org.apache.commons.lang3.NotImplementedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.Function;
 
 public class VmRepositorySql
     implements VmRepository {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(VmRepositorySql.class);
 
-    private final Pool sqlPool;
-
-    public VmRepositorySql(final Pool sqlPool) {
-        this.sqlPool = sqlPool;
+    /*
+     * Maps a row produced by joining virtual_machines to users into a VmDTO (including its owner)
+     */
+    static final RowMapper<VmDTO> VM_WITH_OWNER_MAPPER = row -> {
+        final var user = UserDTO.builder()
+            .pk(row.getInteger("user_pk"))
+            .id(row.getString("user_id"))
+            .username(row.getString("username"))
+            .hashedPassword(row.getBuffer("hashed_password").getBytes())
+            .salt(row.getBuffer("salt").getBytes())
+            .firstName(row.getString("first_name"))
+            .lastName(row.getString("last_name"))
+            .roleId(row.getString("role_id"))
+            .build();
+
+        return VmDTO.builder()
+            .pk(row.getInteger("virtual_machine_pk"))
+            .id(row.getString("virtual_machine_id"))
+            .provider(row.getString("provider"))
+            .status(row.getString("status"))
+            .owner(user)
+            .providerInstanceId(row.getString("provider_instance_id"))
+            .region(row.getString("region"))
+            .build();
+    };
+
+    /*
+     * The number of rows read from the database per cursor fetch when streaming
+     */
+    private static final int STREAM_FETCH_SIZE = 100;
+
+    private static final SqlStatement SELECT_ALL = SqlStatement.parse("vm.select_all", """
+        SELECT
+            vm.virtual_machine_pk,
+            vm.virtual_machine_id,
+            vm.provider,
+            vm.status,
+            vm.provider_instance_id,
+            vm.region,
+            u.user_pk,
+            u.user_id,
+            u.username,
+            u.first_name,
+            u.last_name,
+            u.hashed_password,
+            u.salt,
+            u.role_id
+        FROM virtual_machines AS vm
+        JOIN users as u ON u.user_pk = vm.user_fk
+        ORDER BY vm.virtual_machine_pk
+        """);
+
+    private static final SqlStatement SELECT_PAGE = SqlStatement.parse("vm.select_page", """
+        SELECT
+            vm.virtual_machine_pk,
+            vm.virtual_machine_id,
+            vm.provider,
+            vm.status,
+            vm.provider_instance_id,
+            vm.region,
+            u.user_pk,
+            u.user_id,
+            u.username,
+            u.first_name,
+            u.last_name,
+            u.hashed_password,
+            u.salt,
+            u.role_id
+        FROM virtual_machines AS vm
+        JOIN users as u ON u.user_pk = vm.user_fk
+        WHERE vm.virtual_machine_pk > #{after_pk}
+        ORDER BY vm.virtual_machine_pk
+        LIMIT #{limit}
+        """);
+
+    private static final SqlStatement SELECT_ALL_BY_OWNER = SqlStatement.parse("vm.select_all_by_owner", """
+        SELECT
+            vm.virtual_machine_pk,
+            vm.virtual_machine_id,
+            vm.provider,
+            vm.status,
+            vm.provider_instance_id,
+            vm.region,
+            u.user_pk,
+            u.user_id,
+            u.username,
+            u.first_name,
+            u.last_name,
+            u.hashed_password,
+            u.salt,
+            u.role_id
+        FROM users AS u
+        JOIN virtual_machines AS vm ON vm.user_fk = u.user_pk
+        WHERE u.user_id = #{owner_id}
+        ORDER BY vm.virtual_machine_pk
+        """);
+
+    private static final SqlStatement SELECT_PAGE_BY_OWNER = SqlStatement.parse("vm.select_page_by_owner", """
+        SELECT
+            vm.virtual_machine_pk,
+            vm.virtual_machine_id,
+            vm.provider,
+            vm.status,
+            vm.provider_instance_id,
+            vm.region,
+            u.user_pk,
+            u.user_id,
+            u.username,
+            u.first_name,
+            u.last_name,
+            u.hashed_password,
+            u.salt,
+            u.role_id
+        FROM users AS u
+        JOIN virtual_machines AS vm ON vm.user_fk = u.user_pk
+        WHERE u.user_id = #{owner_id}
+          AND vm.virtual_machine_pk > #{after_pk}
+        ORDER BY vm.virtual_machine_pk
+        LIMIT #{limit}
+        """);
+
+    /*
+     * Backed by the partial index virtual_machines_pending_status_idx, whose predicate this must match
+     */
+    private static final SqlStatement SELECT_PAGE_PENDING = SqlStatement.parse("vm.select_page_pending", """
+        SELECT
+            vm.virtual_machine_pk,
+            vm.virtual_machine_id,
+            vm.provider,
+            vm.status,
+            vm.provider_instance_id,
+            vm.region,
+            u.user_pk,
+            u.user_id,
+            u.username,
+            u.first_name,
+            u.last_name,
+            u.hashed_password,
+            u.salt,
+            u.role_id
+        FROM virtual_machines AS vm
+        JOIN users as u ON u.user_pk = vm.user_fk
+        WHERE vm.status = 'INITIALIZING'
+          AND vm.virtual_machine_pk > #{after_pk}
+        ORDER BY vm.virtual_machine_pk
+        LIMIT #{limit}
+        """);
+
+    private static final SqlStatement SELECT_PAGE_PROVISIONED = SqlStatement.parse("vm.select_page_provisioned", """
+        SELECT
+            vm.virtual_machine_pk,
+            vm.virtual_machine_id,
+            vm.provider,
+            vm.status,
+            vm.provider_instance_id,
+            vm.region,
+            u.user_pk,
+            u.user_id,
+            u.username,
+            u.first_name,
+            u.last_name,
+            u.hashed_password,
+            u.salt,
+            u.role_id
+        FROM virtual_machines AS vm
+        JOIN users as u ON u.user_pk = vm.user_fk
+        WHERE vm.provider_instance_id IS NOT NULL
+          AND vm.virtual_machine_pk > #{after_pk}
+        ORDER BY vm.virtual_machine_pk
+        LIMIT #{limit}
+        """);
+
+    private static final SqlStatement SELECT_BY_ID = SqlStatement.parse("vm.select_by_id", """
+        SELECT
+            vm.virtual_machine_pk,
+            vm.virtual_machine_id,
+            vm.provider,
+            vm.status,
+            vm.provider_instance_id,
+            vm.region,
+            u.user_pk,
+            u.user_id,
+            u.username,
+            u.first_name,
+            u.last_name,
+            u.hashed_password,
+            u.salt,
+            u.role_id
+        FROM virtual_machines AS vm
+        JOIN users as u ON u.user_pk = vm.user_fk
+        WHERE vm.virtual_machine_id = #{id}
+        """);
+
+    private static final SqlStatement INSERT = SqlStatement.parse("vm.insert", """
+        INSERT INTO virtual_machines (
+            virtual_machine_id,
+            provider,
+            status,
+            user_fk,
+            provider_instance_id,
+            region
+        )
+        VALUES (
+            #{virtual_machine_id},
+            #{provider},
+            #{status},
+            #{user_pk},
+            #{provider_instance_id},
+            #{region}
+        )
+        RETURNING
+            virtual_machine_pk,
+            virtual_machine_id,
+            provider,
+            status,
+            user_fk,
+            provider_instance_id,
+            region
+        """);
+
+    private static final SqlStatement UPDATE = SqlStatement.parse("vm.update", """
+        UPDATE virtual_machines
+        SET
+            provider = #{provider},
+            status = #{status},
+            status_changed_at = CASE WHEN status <> #{status} THEN now() ELSE status_changed_at END,
+            user_fk = #{user_pk},
+            provider_instance_id = #{provider_instance_id},
+            region = #{region}
+        WHERE
+            virtual_machine_pk = #{pk}
+        RETURNING
+            virtual_machine_pk,
+            virtual_machine_id,
+            provider,
+            status,
+            user_fk,
+            provider_instance_id,
+            region
+        """);
+
+    /*
+     * Updates any number of VMs in a single statement, by joining against the parallel arrays of their new values.
+     * Unnesting arrays is specific to PostgreSQL (see putAll).
+     */
+    private static final SqlStatement UPDATE_ALL = SqlStatement.parse("vm.update_all", """
+        UPDATE virtual_machines AS vm
+        SET
+            provider = updated.provider,
+            status = updated.status,
+            status_changed_at = CASE WHEN vm.status <> updated.status THEN now() ELSE vm.status_changed_at END,
+            user_fk = updated.user_pk,
+            provider_instance_id = updated.provider_instance_id,
+            region = updated.region
+        FROM unnest(
+            #{pks}::int[],
+            #{providers}::varchar[],
+            #{statuses}::varchar[],
+            #{user_pks}::int[],
+            #{provider_instance_ids}::varchar[],
+            #{regions}::varchar[]
+        ) AS updated (pk, provider, status, user_pk, provider_instance_id, region)
+        WHERE
+            vm.virtual_machine_pk = updated.pk
+        RETURNING
+            vm.virtual_machine_pk,
+            vm.virtual_machine_id,
+            vm.provider,
+            vm.status,
+            vm.user_fk,
+            vm.provider_instance_id,
+            vm.region
+        """);
+
+    /*
+     * Sets the statuses of any number of VMs, identified by provider instance, in a single statement (see UPDATE_ALL).
+     * Rows already in their new status are not rewritten, nor are rows whose status changed after the given time (i.e.
+     * the new status is out of date).
+     */
+    private static final SqlStatement UPDATE_STATUSES = SqlStatement.parse("vm.update_statuses", """
+        UPDATE virtual_machines AS vm
+        SET
+            status = updated.status,
+            status_changed_at = updated.time
+        FROM unnest(
+            #{regions}::varchar[],
+            #{provider_instance_ids}::varchar[],
+            #{statuses}::varchar[],
+            #{times}::timestamptz[]
+        ) AS updated (region, provider_instance_id, status, time)
+        WHERE
+            vm.provider_instance_id = updated.provider_instance_id
+            AND vm.region = updated.region
+            AND vm.status <> updated.status
+            AND vm.status_changed_at < updated.time
+        """);
+
+    private static final SqlStatement UPDATE_STATUS = SqlStatement.parse("vm.update_status", """
+        UPDATE virtual_machines
+        SET
+            status = #{status},
+            status_changed_at = #{time}
+        WHERE
+            provider_instance_id = #{provider_instance_id}
+            AND region = #{region}
+            AND status <> #{status}
+            AND status_changed_at < #{time}
+        """);
+
+    /*
+     * The maximum number of VMs updated per UPDATE_ALL statement, which bounds the size of any one statement (and the
+     * time its row locks are held) when very large numbers of VMs are put at once
+     */
+    private static final int UPDATE_ALL_CHUNK_SIZE = 5_000;
+
+    private final SqlClient sqlClient;
+    private final SqlStatement.Dialect dialect;
+
+    /**
+     * @param sqlClient either a {@link Pool}, or a {@link SqlConnection} in order to take part in a transaction owned
+     *                  by the caller
+     */
+    public VmRepositorySql(final SqlClient sqlClient) {
+        this.sqlClient = sqlClient;
+        this.dialect = SqlStatement.Dialect.of(sqlClient);
     }
 
     @Override
     public Future<List<VmDTO>> getAll() {
-        final var query = """
-            SELECT
-                vm.virtual_machine_pk,
-                vm.virtual_machine_id,
-                vm.provider,
-                vm.status,
-                u.user_pk,
-                u.user_id,
-                u.username,
-                u.first_name,
-                u.last_name,
-                u.hashed_password,
-                u.salt,
-                u.role_id
-            FROM virtual_machines AS vm
-            JOIN users as u ON u.user_pk = vm.user_fk
-            """;
-
-        final RowMapper<VmDTO> mapper = row -> {
-            final var user = UserDTO.builder()
-                .pk(row.getInteger("user_pk"))
-                .id(row.getString("user_id"))
-                .username(row.getString("username"))
-                .hashedPassword(row.getBuffer("hashed_password").getBytes())
-                .salt(row.getBuffer("salt").getBytes())
-                .firstName(row.getString("first_name"))
-                .lastName(row.getString("last_name"))
-                .roleId(row.getString("role_id"))
-                .build();
-
-            return VmDTO.builder()
-                .pk(row.getInteger("virtual_machine_pk"))
-                .id(row.getString("virtual_machine_id"))
-                .provider(row.getString("provider"))
-                .status(row.getString("status"))
-                .owner(user)
-                .build();
-        };
-
-        return this.sqlPool.withConnection(sqlConnection -> SqlTemplate.forQuery(sqlConnection, query)
-            .mapTo(mapper)
-            .execute(Collections.emptyMap())
+        return SELECT_ALL.execute(this.sqlClient, this.dialect)
             .map(rowSet -> {
-                final List<VmDTO> vms = new ArrayList<>();
-                for (final VmDTO vm : rowSet) {
-                    vms.add(vm);
+                final List<VmDTO> vms = new ArrayList<>(rowSet.size());
+                for (final Row row : rowSet) {
+                    vms.add(VM_WITH_OWNER_MAPPER.map(row));
                 }
                 return vms;
-            }));
+            });
+    }
+
+    @Override
+    public Future<Page<VmDTO>> getAll(final PageRequest page) {
+        // one extra row indicates that there is a next page
+        return SELECT_PAGE.execute(this.sqlClient, this.dialect, page.afterKey(), page.limit() + 1)
+            .map(rowSet -> toPage(rowSet, page));
+    }
+
+    @Override
+    public Future<Page<VmDTO>> getAllByOwner(final String ownerId, final PageRequest page) {
+        // one extra row indicates that there is a next page
+        return SELECT_PAGE_BY_OWNER.execute(this.sqlClient, this.dialect, ownerId, page.afterKey(), page.limit() + 1)
+            .map(rowSet -> toPage(rowSet, page));
+    }
+
+    @Override
+    public Future<Page<VmDTO>> getPending(final PageRequest page) {
+        // one extra row indicates that there is a next page
+        return SELECT_PAGE_PENDING.execute(this.sqlClient, this.dialect, page.afterKey(), page.limit() + 1)
+            .map(rowSet -> toPage(rowSet, page));
+    }
+
+    @Override
+    public Future<Page<VmDTO>> getProvisioned(final PageRequest page) {
+        // one extra row indicates that there is a next page
+        return SELECT_PAGE_PROVISIONED.execute(this.sqlClient, this.dialect, page.afterKey(), page.limit() + 1)
+            .map(rowSet -> toPage(rowSet, page));
+    }
+
+    private static Page<VmDTO> toPage(final RowSet<Row> rowSet, final PageRequest page) {
+        final List<VmDTO> vms = new ArrayList<>(rowSet.size());
+        for (final Row row : rowSet) {
+            vms.add(VM_WITH_OWNER_MAPPER.map(row));
+        }
+        return Page.of(vms, page, VmDTO::pk);
+    }
+
+    @Override
+    public Future<Void> stream(final Function<ReadStream<VmDTO>, Future<Void>> consumer) {
+        return stream(SELECT_ALL, SELECT_ALL.bind(this.dialect), consumer);
+    }
+
+    @Override
+    public Future<Void> streamByOwner(final String ownerId,
+                                      final Function<ReadStream<VmDTO>, Future<Void>> consumer) {
+        return stream(SELECT_ALL_BY_OWNER, SELECT_ALL_BY_OWNER.bind(this.dialect, ownerId), consumer);
+    }
+
+    /*
+     * Cursors only live as long as their transaction, so the full lifetime of the stream (i.e. until the consumer's
+     * future completes) takes place within one.
+     */
+    private Future<Void> stream(final SqlStatement statement,
+                                final Tuple parameters,
+                                final Function<ReadStream<VmDTO>, Future<Void>> consumer) {
+
+        if (this.sqlClient instanceof final SqlConnection sqlConnection) {
+            // Already within the caller's transaction
+            return stream(sqlConnection, statement, parameters, consumer);
+        }
+
+        return PoolLimiter.withTransaction((Pool) this.sqlClient, sqlConnection ->
+            stream(sqlConnection, statement, parameters, consumer));
+    }
+
+    private Future<Void> stream(final SqlConnection sqlConnection,
+                                final SqlStatement statement,
+                                final Tuple parameters,
+                                final Function<ReadStream<VmDTO>, Future<Void>> consumer) {
+
+        return sqlConnection.prepare(statement.sql(this.dialect))
+            .compose(preparedStatement -> {
+                final var rows = preparedStatement.createStream(STREAM_FETCH_SIZE, parameters);
+                return consumer.apply(new MappedRowStream<>(rows, VM_WITH_OWNER_MAPPER));
+            });
     }
 
     @Override
     public Future<VmDTO> add(final VmDTO vm, final boolean ensureUnique) {
-        final var query = """
-            INSERT INTO virtual_machines (
-                virtual_machine_id,
-                provider,
-                status,
-                user_fk
-            )
-            VALUES (
-                #{virtual_machine_id},
-                #{provider},
-                #{status},
-                #{user_pk}
+        return INSERT.execute(this.sqlClient, this.dialect,
+                vm.id(),
+                vm.providerName(),
+                vm.statusName(),
+                vm.owner().pk(),
+                vm.providerInstanceId(),
+                vm.region()
             )
-            RETURNING
-                virtual_machine_pk,
-                virtual_machine_id,
-                provider,
-                status,
-                user_fk
-            """;
-
-        final Map<String, Object> parameters = new HashMap<>();
-        parameters.put("virtual_machine_id", vm.id());
-        parameters.put("provider", vm.providerName());
-        parameters.put("status", vm.statusName());
-        parameters.put("user_pk", vm.owner().pk());
-
-        return this.sqlPool.withConnection(sqlConnection -> SqlTemplate.forUpdate(sqlConnection, query)
-            .mapTo(VmDTO.class)
-            .execute(parameters)
             .map(rowSet -> {
-                final RowIterator<VmDTO> iterator = rowSet.iterator();
+                final RowIterator<Row> iterator = rowSet.iterator();
                 if (iterator.hasNext()) {
-                    final var responseVm = iterator.next();
-
-                    return VmDTO.builder(responseVm)
-                        .pk(responseVm.pk())
-                        .id(responseVm.id())
-                        .provider(responseVm.providerName())
-                        .status(responseVm.statusName())
-                        .owner(vm.owner())
-                        .build();
+                    return toVm(iterator.next(), vm.owner());
                 }
                 else {
                     throw new IllegalArgumentException("");
                 }
-            }));
+            });
     }
 
     @Override
     public Future<VmDTO> put(final VmDTO vm) {
-        final var query = """
-            UPDATE virtual_machines
-            SET
-                provider = #{provider},
-                status = #{status},
-                user_fk = #{user_pk}
-            WHERE
-                virtual_machine_pk = #{pk}
-            RETURNING
-                virtual_machine_pk,
-                virtual_machine_id,
-                provider,
-                status,
-                user_fk
-            """;
-
-        final Map<String, Object> parameters = new HashMap<>();
-        parameters.put("pk", vm.pk());
-        parameters.put("provider", vm.providerName());
-        parameters.put("status", vm.statusName());
-        parameters.put("user_pk", vm.owner().pk());
-
-        return this.sqlPool.withConnection(sqlConnection -> SqlTemplate.forUpdate(sqlConnection, query)
-            .mapTo(VmDTO.class)
-            .execute(parameters)
+        return UPDATE.execute(this.sqlClient, this.dialect,
+                vm.providerName(),
+                vm.statusName(),
+                vm.owner().pk(),
+                vm.providerInstanceId(),
+                vm.region(),
+                vm.pk()
+            )
             .map(rowSet -> {
-                final RowIterator<VmDTO> iterator = rowSet.iterator();
+                final RowIterator<Row> iterator = rowSet.iterator();
                 if (iterator.hasNext()) {
-                    final var responseVm = iterator.next();
-
-                    return VmDTO.builder()
-                        .pk(responseVm.pk())
-                        .id(responseVm.id())
-                        .provider(responseVm.vmProvider())
-                        .status(responseVm.vmStatus())
-                        .owner(vm.owner())
-                        .build();
+                    return toVm(iterator.next(), vm.owner());
                 }
                 else {
                     throw new IllegalArgumentException("");
                 }
-            }));
+            });
     }
 
     @Override
     public Future<List<VmDTO>> putAll(final List<VmDTO> vms) {
-        final var query = """
-            UPDATE virtual_machines
-            SET
-                provider = #{provider},
-                status = #{status},
-                user_fk = #{user_pk}
-            WHERE
-                virtual_machine_pk = #{pk}
-            RETURNING
-                virtual_machine_pk,
-                virtual_machine_id,
-                provider,
-                status,
-                user_fk
-            """;
-
         // Save the users for later instead of needlessly re-fetching them from the database
         final Map<Integer, UserDTO> vmPkToUserMap = new HashMap<>();
-
-        final List<Map<String, Object>> parameterList = new ArrayList<>();
         for (final var vm : vms) {
-
             vmPkToUserMap.put(vm.pk(), vm.owner());
+        }
 
-            final var parameters = new HashMap<String, Object>();
+        final List<VmDTO> resultVms = new ArrayList<>(vms.size());
 
-            parameters.put("pk", vm.pk());
-            parameters.put("provider", vm.providerName());
-            parameters.put("status", vm.statusName());
-            parameters.put("user_pk", vm.owner().pk());
+        if (this.dialect != SqlStatement.Dialect.POSTGRES) {
+            return putAllBatch(vms, vmPkToUserMap, resultVms);
+        }
+
+        /*
+         * Update one chunk at a time, each chunk being a single round trip, so that e.g. 10k VMs cost two statements
+         */
+        Future<List<VmDTO>> future = Future.succeededFuture(resultVms);
+        for (int from = 0; from < vms.size(); from += UPDATE_ALL_CHUNK_SIZE) {
+            final var chunk = vms.subList(from, Math.min(from + UPDATE_ALL_CHUNK_SIZE, vms.size()));
+            future = future.compose(ignored -> putAllChunk(chunk, vmPkToUserMap, resultVms));
+        }
+        return future;
+    }
 
-            parameterList.add(parameters);
+    private Future<List<VmDTO>> putAllChunk(final List<VmDTO> chunk,
+                                            final Map<Integer, UserDTO> vmPkToUserMap,
+                                            final List<VmDTO> resultVms) {
+        final var pks = new Integer[chunk.size()];
+        final var providers = new String[chunk.size()];
+        final var statuses = new String[chunk.size()];
+        final var userPks = new Integer[chunk.size()];
+        final var providerInstanceIds = new String[chunk.size()];
+        final var regions = new String[chunk.size()];
+
+        for (int i = 0; i < chunk.size(); i++) {
+            final var vm = chunk.get(i);
+
+            pks[i] = vm.pk();
+            providers[i] = vm.providerName();
+            statuses[i] = vm.statusName();
+            userPks[i] = vm.owner().pk();
+            providerInstanceIds[i] = vm.providerInstanceId();
+            regions[i] = vm.region();
         }
 
-        return this.sqlPool.withConnection(sqlConnection -> SqlTemplate.forUpdate(sqlConnection, query)
-            .mapTo(VmDTO.class)
-            .executeBatch(parameterList)
+        return UPDATE_ALL.execute(this.sqlClient, this.dialect,
+                pks, providers, statuses, userPks, providerInstanceIds, regions)
             .map(rowSet -> {
-                final List<VmDTO> resultVms = new ArrayList<>();
-
-                for (final VmDTO responseVm : rowSet) {
-                    resultVms.add(
-                        VmDTO.builder()
-                            .pk(responseVm.pk())
-                            .id(responseVm.id())
-                            .provider(responseVm.vmProvider())
-                            .status(responseVm.vmStatus())
-                            .owner(vmPkToUserMap.get(responseVm.pk()))
-                            .build()
-                    );
+                for (final Row row : rowSet) {
+                    resultVms.add(toVm(row, vmPkToUserMap.get(row.getInteger("virtual_machine_pk"))));
+                }
+                return resultVms;
+            });
+    }
+
+    /*
+     * Fallback for databases without array parameters/unnest: one UPDATE per VM, sent as a single batch
+     */
+    private Future<List<VmDTO>> putAllBatch(final List<VmDTO> vms,
+                                            final Map<Integer, UserDTO> vmPkToUserMap,
+                                            final List<VmDTO> resultVms) {
+        if (vms.isEmpty()) {
+            return Future.succeededFuture(resultVms);
+        }
+
+        final List<Tuple> batch = new ArrayList<>(vms.size());
+        for (final var vm : vms) {
+            batch.add(UPDATE.bind(this.dialect,
+                vm.providerName(),
+                vm.statusName(),
+                vm.owner().pk(),
+                vm.providerInstanceId(),
+                vm.region(),
+                vm.pk()
+            ));
+        }
+
+        return UPDATE.executeBatch(this.sqlClient, this.dialect, batch)
+            .map(rowSet -> {
+                /*
+                 * A batch produces one row set per execution, chained together
+                 */
+                for (var result = rowSet; result != null; result = result.next()) {
+                    for (final Row row : result) {
+                        resultVms.add(toVm(row, vmPkToUserMap.get(row.getInteger("virtual_machine_pk"))));
+                    }
                 }
 
                 return resultVms;
-            }));
+            });
+    }
+
+    @Override
+    public Future<Integer> putStatusesByInstance(final List<InstanceStatus> statuses) {
+        if (statuses.isEmpty()) {
+            return Future.succeededFuture(0);
+        }
+
+        if (this.dialect != SqlStatement.Dialect.POSTGRES) {
+            /*
+             * Fallback for databases without array parameters/unnest: one UPDATE per VM, sent as a single batch
+             */
+            final List<Tuple> batch = new ArrayList<>(statuses.size());
+            for (final var status : statuses) {
+                batch.add(UPDATE_STATUS.bind(this.dialect,
+                    status.status().name(),
+                    OffsetDateTime.ofInstant(status.time(), ZoneOffset.UTC),
+                    status.providerInstanceId(),
+                    status.region()
+                ));
+            }
+
+            return UPDATE_STATUS.executeBatch(this.sqlClient, this.dialect, batch)
+                .map(rowSet -> {
+                    var updated = 0;
+                    for (var result = rowSet; result != null; result = result.next()) {
+                        updated += result.rowCount();
+                    }
+                    return updated;
+                });
+        }
+
+        final var regions = new String[statuses.size()];
+        final var providerInstanceIds = new String[statuses.size()];
+        final var statusNames = new String[statuses.size()];
+        final var times = new OffsetDateTime[statuses.size()];
+
+        for (int i = 0; i < statuses.size(); i++) {
+            final var status = statuses.get(i);
+
+            regions[i] = status.region();
+            providerInstanceIds[i] = status.providerInstanceId();
+            statusNames[i] = status.status().name();
+            times[i] = OffsetDateTime.ofInstant(status.time(), ZoneOffset.UTC);
+        }
+
+        return UPDATE_STATUSES.execute(this.sqlClient, this.dialect,
+                regions, providerInstanceIds, statusNames, times)
+            .map(RowSet::rowCount);
     }
 
     @Override
     public Future<VmDTO> get(final String id) {
-        final var query = """
-            SELECT
-                vm.virtual_machine_pk,
-                vm.virtual_machine_id,
-                vm.provider,
-                vm.status,
-                u.user_pk,
-                u.user_id,
-                u.username,
-                u.first_name,
-                u.last_name,
-                u.hashed_password,
-                u.salt,
-                u.role_id
-            FROM virtual_machines AS vm
-            JOIN users as u ON u.user_pk = vm.user_fk
-            WHERE vm.virtual_machine_id = #{id}
-            """;
-
-        final Map<String, Object> parameters = new HashMap<>();
-        parameters.put("id", id);
-
-        final RowMapper<VmDTO> mapper = row -> {
-            final var user = UserDTO.builder()
-                .pk(row.getInteger("user_pk"))
-                .id(row.getString("user_id"))
-                .username(row.getString("username"))
-                .hashedPassword(row.getBuffer("hashed_password").getBytes())
-                .salt(row.getBuffer("salt").getBytes())
-                .firstName(row.getString("first_name"))
-                .lastName(row.getString("last_name"))
-                .roleId(row.getString("role_id"))
-                .build();
-
-            return VmDTO.builder()
-                .pk(row.getInteger("virtual_machine_pk"))
-                .id(row.getString("virtual_machine_id"))
-                .provider(row.getString("provider"))
-                .status(row.getString("status"))
-                .owner(user)
-                .build();
-        };
-
-        return this.sqlPool.withConnection(sqlConnection -> SqlTemplate.forQuery(sqlConnection, query)
-            .mapTo(mapper)
-            .execute(parameters)
+        return SELECT_BY_ID.execute(this.sqlClient, this.dialect, id)
             .map(rowSet -> {
-                final RowIterator<VmDTO> iterator = rowSet.iterator();
+                final RowIterator<Row> iterator = rowSet.iterator();
                 if (iterator.hasNext()) {
-                    return iterator.next();
+                    return VM_WITH_OWNER_MAPPER.map(iterator.next());
                 }
                 else {
                     throw new NoSuchElementException();
                 }
-            }));
+            });
     }
 
     @Override
     public Future<Void> delete(final String id) {
         throw new NotImplementedException();
     }
+
+    /*
+     * Maps a row of the virtual_machines table into a VmDTO, using an already known owner
+     */
+    private static VmDTO toVm(final Row row, final UserDTO owner) {
+        return VmDTO.builder()
+            .pk(row.getInteger("virtual_machine_pk"))
+            .id(row.getString("virtual_machine_id"))
+            .provider(row.getString("provider"))
+            .status(row.getString("status"))
+            .owner(owner)
+            .providerInstanceId(row.getString("provider_instance_id"))
+            .region(row.getString("region"))
+            .build();
+    }
 }
@@ -0,0 +1,173 @@
+package com.drewmalin.vm.central.event;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageCodec;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base class for compact, hand-written binary {@link MessageCodec}s. On the wire, each message is framed as:
+ *
+ * <pre>
+ *   [int length][byte version][fields...]
+ * </pre>
+ * <p>
+ * where length counts every byte after itself, and the fields are whatever {@link #write(Object, Buffer)} appends.
+ * Strings are written as UTF-8 and byte arrays as-is, both prefixed by their length (-1 for null). Messages delivered
+ * locally are never encoded at all: see {@link #transform(Object)}.
+ * <p>
+ * Failures are thrown rather than swallowed, so that a bad message fails its send (or its consumer) loudly instead of
+ * arriving as null.
+ *
+ * @param <T> the type of message
+ */
+public abstract class BinaryCodec<T>
+    implements MessageCodec<T, T> {
+
+    private static final int NULL_LENGTH = -1;
+
+    private final Class<T> cls;
+    private final byte version;
+
+    protected BinaryCodec(final Class<T> cls, final int version) {
+        this.cls = cls;
+        this.version = (byte) version;
+    }
+
+    /**
+     * Appends the fields of the message to the buffer.
+     */
+    protected abstract void write(T message, Buffer buffer);
+
+    /**
+     * Reads the fields of a message, in the order they were written by {@link #write(Object, Buffer)}.
+     */
+    protected abstract T read(Reader reader);
+
+    @Override
+    public void encodeToWire(final Buffer buffer, final T message) {
+        final var lengthPosition = buffer.length();
+
+        buffer.appendInt(0); // placeholder, see below
+        buffer.appendByte(this.version);
+        write(message, buffer);
+
+        // Now that the message has been written, its length is known
+        buffer.setInt(lengthPosition, buffer.length() - lengthPosition - Integer.BYTES);
+    }
+
+    @Override
+    public T decodeFromWire(final int pos, final Buffer buffer) {
+        final var length = buffer.getInt(pos);
+        final var reader = new Reader(buffer, pos + Integer.BYTES);
+
+        final var messageVersion = reader.readByte();
+        if (messageVersion != this.version) {
+            throw new IllegalStateException("%s cannot decode version %d (expected %d)"
+                .formatted(name(), messageVersion, this.version));
+        }
+
+        final var message = read(reader);
+
+        final var consumed = reader.position() - pos - Integer.BYTES;
+        if (consumed != length) {
+            throw new IllegalStateException("%s decoded %d bytes but the message was %d bytes"
+                .formatted(name(), consumed, length));
+        }
+
+        return message;
+    }
+
+    /**
+     * Local delivery shares the sender's instance, which is only safe for immutable messages (e.g. records). Codecs of
+     * mutable types must override this to copy.
+     */
+    @Override
+    public T transform(final T message) {
+        return message;
+    }
+
+    @Override
+    public String name() {
+        return this.cls.getSimpleName() + "Codec";
+    }
+
+    /**
+     * Always -1, which Vert.x reserves for user (i.e. non-system) codecs.
+     */
+    @Override
+    public byte systemCodecID() {
+        return -1;
+    }
+
+    public Class<T> type() {
+        return this.cls;
+    }
+
+    protected static void writeString(final Buffer buffer, final String value) {
+        writeBytes(buffer, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    protected static void writeBytes(final Buffer buffer, final byte[] value) {
+        if (value == null) {
+            buffer.appendInt(NULL_LENGTH);
+            return;
+        }
+        buffer.appendInt(value.length);
+        buffer.appendBytes(value);
+    }
+
+    /**
+     * A cursor over an encoded message.
+     */
+    protected static class Reader {
+
+        private final Buffer buffer;
+        private int position;
+
+        private Reader(final Buffer buffer, final int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        public int position() {
+            return this.position;
+        }
+
+        public byte readByte() {
+            final var value = this.buffer.getByte(this.position);
+            this.position += Byte.BYTES;
+            return value;
+        }
+
+        public boolean readBoolean() {
+            return readByte() != 0;
+        }
+
+        public int readInt() {
+            final var value = this.buffer.getInt(this.position);
+            this.position += Integer.BYTES;
+            return value;
+        }
+
+        public String readString() {
+            final var length = readInt();
+            if (length == NULL_LENGTH) {
+                return null;
+            }
+            final var value = this.buffer.getString(this.position, this.position + length, "UTF-8");
+            this.position += length;
+            return value;
+        }
+
+        public byte[] readBytes() {
+            final var length = readInt();
+            if (length == NULL_LENGTH) {
+                return null;
+            }
+            final var value = this.buffer.getBytes(this.position, this.position + length);
+            this.position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.drewmalin.vm.central.event;
+
+import io.vertx.config.ConfigChange;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Codec of {@link ConfigChange}s, carrying the previous and new configurations as JSON. See {@link BinaryCodec}.
+ */
+public class ConfigChangeCodec
+    extends BinaryCodec<ConfigChange> {
+
+    private static final int VERSION = 1;
+
+    public ConfigChangeCodec() {
+        super(ConfigChange.class, VERSION);
+    }
+
+    @Override
+    protected void write(final ConfigChange change, final Buffer buffer) {
+        writeJson(buffer, change.getPreviousConfiguration());
+        writeJson(buffer, change.getNewConfiguration());
+    }
+
+    @Override
+    protected ConfigChange read(final Reader reader) {
+        return new ConfigChange(readJson(reader), readJson(reader));
+    }
+
+    /**
+     * A ConfigChange (or rather, its JsonObjects) is mutable, so each local consumer gets its own copy.
+     */
+    @Override
+    public ConfigChange transform(final ConfigChange change) {
+        return new ConfigChange(
+            copy(change.getPreviousConfiguration()),
+            copy(change.getNewConfiguration())
+        );
+    }
+
+    private static JsonObject copy(final JsonObject json) {
+        return json == null
+            ? null
+            : json.copy();
+    }
+
+    private static void writeJson(final Buffer buffer, final JsonObject json) {
+        writeBytes(buffer, json == null ? null : json.toBuffer().getBytes());
+    }
+
+    private static JsonObject readJson(final Reader reader) {
+        final var bytes = reader.readBytes();
+        return bytes == null
+            ? null
+            : new JsonObject(Buffer.buffer(bytes));
+    }
+}
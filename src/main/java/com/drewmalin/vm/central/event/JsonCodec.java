@@ -0,0 +1,45 @@
+package com.drewmalin.vm.central.event;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.EncodeException;
+import io.vertx.core.json.jackson.DatabindCodec;
+
+import java.io.IOException;
+
+/**
+ * Codec of any Jackson-mappable (immutable) type, carried as JSON within a {@link BinaryCodec} frame. Meant for
+ * infrequent messages such as configuration records, where a hand-written codec would not pay for itself.
+ *
+ * @param <T> the type of message
+ */
+public class JsonCodec<T>
+    extends BinaryCodec<T> {
+
+    private static final int VERSION = 1;
+
+    public JsonCodec(final Class<T> cls) {
+        super(cls, VERSION);
+    }
+
+    @Override
+    protected void write(final T message, final Buffer buffer) {
+        try {
+            writeBytes(buffer, DatabindCodec.mapper().writeValueAsBytes(message));
+        }
+        catch (final JsonProcessingException e) {
+            throw new EncodeException("Failed to encode %s: %s".formatted(type().getSimpleName(), e.getMessage()), e);
+        }
+    }
+
+    @Override
+    protected T read(final Reader reader) {
+        try {
+            return DatabindCodec.mapper().readValue(reader.readBytes(), type());
+        }
+        catch (final IOException e) {
+            throw new DecodeException("Failed to decode %s: %s".formatted(type().getSimpleName(), e.getMessage()), e);
+        }
+    }
+}
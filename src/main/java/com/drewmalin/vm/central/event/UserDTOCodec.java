@@ -0,0 +1,53 @@
+package com.drewmalin.vm.central.event;
+
+import com.drewmalin.vm.central.data.model.UserDTO;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Binary codec of {@link UserDTO}s, see {@link BinaryCodec}.
+ */
+public class UserDTOCodec
+    extends BinaryCodec<UserDTO> {
+
+    private static final int VERSION = 2; // 2: users carry their token epoch
+
+    public UserDTOCodec() {
+        super(UserDTO.class, VERSION);
+    }
+
+    @Override
+    protected void write(final UserDTO user, final Buffer buffer) {
+        writeUser(user, buffer);
+    }
+
+    @Override
+    protected UserDTO read(final Reader reader) {
+        return readUser(reader);
+    }
+
+    static void writeUser(final UserDTO user, final Buffer buffer) {
+        buffer.appendInt(user.pk());
+        writeString(buffer, user.id());
+        writeString(buffer, user.username());
+        writeBytes(buffer, user.hashedPassword());
+        writeBytes(buffer, user.salt());
+        writeString(buffer, user.firstName());
+        writeString(buffer, user.lastName());
+        writeString(buffer, user.roleId());
+        buffer.appendInt(user.tokenEpoch());
+    }
+
+    static UserDTO readUser(final Reader reader) {
+        return new UserDTO(
+            reader.readInt(),
+            reader.readString(),
+            reader.readString(),
+            reader.readBytes(),
+            reader.readBytes(),
+            reader.readString(),
+            reader.readString(),
+            reader.readString(),
+            reader.readInt()
+        );
+    }
+}
@@ -0,0 +1,58 @@
+package com.drewmalin.vm.central.event;
+
+import com.drewmalin.vm.central.data.model.VmDTO;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * Binary codec of {@link VmDTO}s (including their owners), see {@link BinaryCodec}.
+ */
+public class VmDTOCodec
+    extends BinaryCodec<VmDTO> {
+
+    private static final int VERSION = 3; // 2: owners carry their token epoch, 3: provider instance ID and region
+
+    public VmDTOCodec() {
+        super(VmDTO.class, VERSION);
+    }
+
+    @Override
+    protected void write(final VmDTO vm, final Buffer buffer) {
+        buffer.appendInt(vm.pk());
+        writeString(buffer, vm.id());
+        writeString(buffer, vm.providerName());
+        writeString(buffer, vm.statusName());
+        writeString(buffer, vm.providerInstanceId());
+        writeString(buffer, vm.region());
+
+        final var hasOwner = vm.owner() != null;
+        buffer.appendByte((byte) (hasOwner ? 1 : 0));
+        if (hasOwner) {
+            UserDTOCodec.writeUser(vm.owner(), buffer);
+        }
+    }
+
+    @Override
+    protected VmDTO read(final Reader reader) {
+        final var pk = reader.readInt();
+        final var id = reader.readString();
+        final var providerName = reader.readString();
+        final var statusName = reader.readString();
+        final var providerInstanceId = reader.readString();
+        final var region = reader.readString();
+        final var owner = reader.readBoolean()
+            ? UserDTOCodec.readUser(reader)
+            : null;
+
+        return new VmDTO(
+            pk,
+            id,
+            providerName,
+            providerName == null ? null : VmDTO.Provider.fromName(providerName),
+            statusName,
+            statusName == null ? null : VmDTO.Status.fromName(statusName),
+            owner,
+            providerInstanceId,
+            region
+        );
+    }
+}
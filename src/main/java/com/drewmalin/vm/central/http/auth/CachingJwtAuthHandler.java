@@ -0,0 +1,154 @@
+package com.drewmalin.vm.central.http.auth;
+
+import com.drewmalin.vm.central.task.UnauthorizedException;
+import com.drewmalin.vm.central.utils.MetricsUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.User;
+import io.vertx.ext.auth.authentication.TokenCredentials;
+import io.vertx.ext.auth.jwt.JWTAuth;
+import io.vertx.ext.web.RoutingContext;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authenticates requests by their bearer token, in place of a JWTAuthHandler. Verifying the signature of a token is
+ * expensive and clients send the same token with every request, so once a token has been verified its (immutable)
+ * claims are cached until the token expires: the signature of a token is then verified once per token rather than once
+ * per request.
+ * <p>
+ * Only the claims (and attributes) of a verified token are cached, never the {@link User} itself: a user is mutable, so
+ * each request is given one of its own, built from copies, lest one request see the state left by another.
+ * <p>
+ * Tokens are cached by their SHA-256 hash, so the cache never holds usable credentials. A single handler (and so a
+ * single cache) is shared by every route, see {@link AuthProvider#getAuthHandler()}.
+ */
+public class CachingJwtAuthHandler
+    implements Handler<RoutingContext> {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JWTAuth jwtAuth;
+    private final Cache<String, VerifiedToken> cache;
+    private final Timer verifyTimer;
+
+    CachingJwtAuthHandler(final JWTAuth jwtAuth, final int size) {
+        this.jwtAuth = jwtAuth;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(size)
+            .expireAfter(new UntilTokenExpires())
+            .recordStats()
+            .build();
+
+        final var registry = MetricsUtils.registry();
+        this.verifyTimer = Timer.builder("vmcentral.auth.token.verify")
+            .description("Time spent verifying the signature (and claims) of a bearer token not already cached")
+            .register(registry);
+
+        // vmcentral.auth.token.cache.{gets,puts,evictions,size,...}, with gets tagged by result=hit|miss
+        CaffeineCacheMetrics.monitor(registry, this.cache, "vmcentral.auth.token.cache");
+    }
+
+    @Override
+    public void handle(final RoutingContext ctx) {
+        final var authorization = ctx.request().getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            ctx.fail(new UnauthorizedException("Missing bearer token"));
+            return;
+        }
+
+        final var token = authorization.substring(BEARER_PREFIX.length()).trim();
+        final var key = hash(token);
+
+        final var cached = this.cache.getIfPresent(key);
+        if (cached != null) {
+            ctx.setUser(cached.toUser());
+            ctx.next();
+            return;
+        }
+
+        final var sample = Timer.start();
+        this.jwtAuth.authenticate(new TokenCredentials(token))
+            .onComplete(ar -> {
+                sample.stop(this.verifyTimer);
+
+                if (ar.failed()) {
+                    ctx.fail(new UnauthorizedException("Invalid bearer token"));
+                    return;
+                }
+
+                final var user = ar.result();
+                if (user.principal().containsKey("exp")) {
+                    // Tokens without an expiry are never issued, but neither are they cached
+                    this.cache.put(key, new VerifiedToken(user.principal().copy(), user.attributes().copy()));
+                }
+
+                ctx.setUser(user);
+                ctx.next();
+            });
+    }
+
+    private static String hash(final String token) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256")
+                .digest(token.getBytes(StandardCharsets.US_ASCII));
+
+            return Base64.getEncoder().encodeToString(digest);
+        }
+        catch (final NoSuchAlgorithmException e) {
+            // Every JVM is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     * The claims and attributes of a verified token, never handed out themselves
+     */
+    private record VerifiedToken(JsonObject principal, JsonObject attributes) {
+
+        User toUser() {
+            return User.create(this.principal.copy(), this.attributes.copy());
+        }
+    }
+
+    /*
+     * Each verified token is cached only until its own "exp" claim (seconds since the epoch)
+     */
+    private static class UntilTokenExpires
+        implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(final String key, final VerifiedToken token, final long currentTime) {
+            final var expiresAtMillis = TimeUnit.SECONDS.toMillis(token.principal().getLong("exp", 0L));
+            final var remainingMillis = expiresAtMillis - System.currentTimeMillis();
+
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(final String key,
+                                      final VerifiedToken token,
+                                      final long currentTime,
+                                      final long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(final String key,
+                                    final VerifiedToken token,
+                                    final long currentTime,
+                                    final long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.drewmalin.vm.central.http.auth;
+
+import com.drewmalin.vm.central.configuration.Config;
+import com.drewmalin.vm.central.utils.MetricsUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.ext.web.handler.HttpException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.MessageDigest;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashes passwords (see {@link Crypto}) on a dedicated, size-bounded pool of worker threads. Each hash is deliberately
+ * expensive, so it must never run on an event loop, and it must not compete with (or be starved by) other blocking work
+ * on the default worker pool either.
+ * <p>
+ * The number of hashes in flight (running or queued) is bounded: once the bound is reached, new requests are rejected
+ * immediately with a 503 rather than queueing without limit behind a burst of logins.
+ * <p>
+ * A single hasher is shared by every verticle of a Vert.x instance, see {@link #shared(Vertx, Config.VmCentral)}.
+ */
+public class PasswordHasher
+    implements Shareable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PasswordHasher.class);
+
+    private static final String SHARED_DATA_MAP_NAME = "vm-central.auth";
+    private static final String SHARED_DATA_KEY = "password-hasher";
+    private static final String WORKER_POOL_NAME = "password-hasher-pool";
+
+    private static final int DEFAULT_QUEUE_MAX_PER_THREAD = 16;
+
+    private final WorkerExecutor executor;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Timer hashTimer;
+    private final Counter rejectedCounter;
+
+    private PasswordHasher(final Vertx vertx, final int poolSize, final int queueMax) {
+        this.executor = vertx.createSharedWorkerExecutor(WORKER_POOL_NAME, poolSize);
+        this.maxInFlight = poolSize + queueMax;
+
+        final var registry = MetricsUtils.registry();
+        this.hashTimer = Timer.builder("vmcentral.auth.password.hash")
+            .description("Time spent hashing a password (excluding time spent queued)")
+            .register(registry);
+        this.rejectedCounter = Counter.builder("vmcentral.auth.password.hash.rejected")
+            .description("Password hashes rejected because too many were already in flight")
+            .register(registry);
+        Gauge.builder("vmcentral.auth.password.hash.inflight", this.inFlight, AtomicInteger::get)
+            .description("Password hashes currently running or queued")
+            .register(registry);
+
+        LOGGER.info("Created password hasher: poolSize=%d, queueMax=%d".formatted(poolSize, queueMax));
+    }
+
+    /**
+     * Gets the {@link PasswordHasher} shared by all verticles of the given Vert.x instance, creating it (sized by the
+     * given config) if it does not yet exist.
+     */
+    public static PasswordHasher shared(final Vertx vertx, final Config.VmCentral config) {
+        final var poolSize = config.authHashingPoolSize() != 0
+            ? config.authHashingPoolSize()
+            : Runtime.getRuntime().availableProcessors();
+
+        final var queueMax = config.authHashingQueueMax() != 0
+            ? config.authHashingQueueMax()
+            : poolSize * DEFAULT_QUEUE_MAX_PER_THREAD;
+
+        return vertx.sharedData()
+            .<String, PasswordHasher>getLocalMap(SHARED_DATA_MAP_NAME)
+            .computeIfAbsent(SHARED_DATA_KEY, ignored -> new PasswordHasher(vertx, poolSize, queueMax));
+    }
+
+    /**
+     * Encodes the provided raw password, with a newly generated salt. See {@link Crypto#encode(String)}.
+     */
+    public Future<Crypto.EncodedPassword> encode(final String password) {
+        return submit(() -> Crypto.encode(password));
+    }
+
+    /**
+     * True if the provided raw password, hashed with the provided salt, matches the provided hash.
+     */
+    public Future<Boolean> matches(final String password, final byte[] salt, final byte[] hash) {
+        return submit(() -> {
+            final var encodedPassword = Crypto.builder(password).salt(salt).build();
+            return MessageDigest.isEqual(hash, encodedPassword.hash());
+        });
+    }
+
+    private <T> Future<T> submit(final Callable<T> hashing) {
+        if (this.inFlight.incrementAndGet() > this.maxInFlight) {
+            this.inFlight.decrementAndGet();
+            this.rejectedCounter.increment();
+
+            return Future.failedFuture(new HttpException(503, "Too many concurrent password hashing requests"));
+        }
+
+        return this.executor.executeBlocking(() -> this.hashTimer.recordCallable(hashing), false)
+            .onComplete(ignored -> this.inFlight.decrementAndGet());
+    }
+}
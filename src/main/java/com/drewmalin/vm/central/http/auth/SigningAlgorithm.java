@@ -0,0 +1,109 @@
+package com.drewmalin.vm.central.http.auth;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+
+/**
+ * The algorithms with which tokens may be signed (and verified), along with the type of key each requires. Signing
+ * with an elliptic curve (ES256, EdDSA) is far cheaper than signing with RSA, and the keys and signatures are smaller.
+ */
+public enum SigningAlgorithm {
+
+    /*
+     * RSASSA-PKCS1-v1_5 using SHA-256, with a 2048-bit RSA key
+     */
+    RS256("RS256", "RSA") {
+        @Override
+        void initialize(final KeyPairGenerator generator) {
+            generator.initialize(2048);
+        }
+    },
+
+    /*
+     * ECDSA using P-256 and SHA-256
+     */
+    ES256("ES256", "EC") {
+        @Override
+        void initialize(final KeyPairGenerator generator)
+            throws GeneralSecurityException {
+
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+        }
+    },
+
+    /*
+     * EdDSA using Ed25519
+     */
+    EDDSA("EdDSA", "Ed25519") {
+        @Override
+        void initialize(final KeyPairGenerator generator) {
+            // Ed25519 has a single, fixed, key size
+        }
+    },
+    ;
+
+    private final String jwsName;
+    private final String keyAlgorithm;
+
+    SigningAlgorithm(final String jwsName, final String keyAlgorithm) {
+        this.jwsName = jwsName;
+        this.keyAlgorithm = keyAlgorithm;
+    }
+
+    /**
+     * Gets the {@link SigningAlgorithm} with the given JWS name (e.g. "ES256"), defaulting to RS256 if none is given.
+     */
+    public static SigningAlgorithm forName(final String jwsName) {
+        if (jwsName == null || jwsName.isBlank()) {
+            return RS256;
+        }
+
+        for (final var algorithm : values()) {
+            if (algorithm.jwsName.equalsIgnoreCase(jwsName)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown signing algorithm: %s".formatted(jwsName));
+    }
+
+    /**
+     * The name of this algorithm as used by JWS (i.e. the "alg" header of a token).
+     */
+    public String jwsName() {
+        return this.jwsName;
+    }
+
+    /**
+     * Generates a new key pair suitable for this algorithm. Generating (RSA keys in particular) is slow, so this must
+     * not be called from an event loop.
+     */
+    public KeyPair newKeyPair()
+        throws GeneralSecurityException {
+
+        final var generator = KeyPairGenerator.getInstance(this.keyAlgorithm);
+        initialize(generator);
+        return generator.generateKeyPair();
+    }
+
+    /**
+     * Decodes a key pair suitable for this algorithm from its X.509 (public) and PKCS #8 (private) encodings.
+     */
+    public KeyPair decodeKeyPair(final byte[] publicKey, final byte[] privateKey)
+        throws GeneralSecurityException {
+
+        final var keyFactory = KeyFactory.getInstance(this.keyAlgorithm);
+
+        return new KeyPair(
+            keyFactory.generatePublic(new X509EncodedKeySpec(publicKey)),
+            keyFactory.generatePrivate(new PKCS8EncodedKeySpec(privateKey))
+        );
+    }
+
+    abstract void initialize(KeyPairGenerator generator)
+        throws GeneralSecurityException;
+}
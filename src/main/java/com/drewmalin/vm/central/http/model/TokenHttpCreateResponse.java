@@ -1,7 +1,9 @@
 package com.drewmalin.vm.central.http.model;
 
 public record TokenHttpCreateResponse(
-    String token
+    String token,
+    String refreshToken,
+    int expiresIn
 ) {
 
 }
@@ -4,7 +4,8 @@ import java.util.List;
 
 public record VmHttpGetAllResponse(
     int size,
-    List<VmHttpResponse> vms
+    List<VmHttpResponse> vms,
+    String next
 ) {
 
 }
@@ -8,6 +8,7 @@ import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.ext.auth.authentication.UsernamePasswordCredentials;
 import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.BodyHandler;
 import io.vertx.ext.web.validation.builder.ValidationHandlerBuilder;
 import org.slf4j.Logger;
@@ -24,6 +25,7 @@ public class AuthRouter
     private static final Logger LOGGER = LoggerFactory.getLogger(AuthRouter.class);
 
     private static final String HTTP_TOKEN_PATH = "/token";
+    private static final String HTTP_TOKEN_REFRESH_PATH = "/token/refresh";
 
     private final AuthProvider authProvider;
 
@@ -55,12 +57,35 @@ public class AuthRouter
                 final var credentials = ctx.body().asJsonObject().mapTo(UsernamePasswordCredentials.class);
 
                 this.authProvider.createToken(credentials, ctx)
-                    .onSuccess(token -> {
+                    .onSuccess(tokens -> respond(tokens, ctx));
+            });
 
-                        final var response = new TokenHttpCreateResponse(token);
+        LOGGER.info("Mounting new HTTP route: '%s'".formatted(HTTP_TOKEN_REFRESH_PATH));
 
-                        ResponseUtils.ok(response, ctx);
-                    });
+        getRouter().route(HttpMethod.POST, HTTP_TOKEN_REFRESH_PATH)
+            .handler(BodyHandler.create())
+            .handler(ValidationHandlerBuilder.create(getSchemaParser())
+                .predicate(BODY_REQUIRED)
+                .body(json(objectSchema()
+                    .requiredProperty("refreshToken", stringSchema())
+                ))
+                .build()
+            )
+            .handler(ctx -> {
+                final var refreshToken = ctx.body().asJsonObject().getString("refreshToken");
+
+                this.authProvider.refreshToken(refreshToken, ctx)
+                    .onSuccess(tokens -> respond(tokens, ctx));
             });
     }
+
+    private void respond(final AuthProvider.Tokens tokens, final RoutingContext ctx) {
+        final var response = new TokenHttpCreateResponse(
+            tokens.accessToken(),
+            tokens.refreshToken(),
+            tokens.expiresInSeconds()
+        );
+
+        ResponseUtils.ok(response, ctx);
+    }
 }
@@ -1,13 +1,23 @@
 package com.drewmalin.vm.central.http.router;
 
+import com.drewmalin.vm.central.configuration.Config;
+import com.drewmalin.vm.central.data.repository.PageRequest;
 import io.vertx.core.Vertx;
 import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
 import io.vertx.json.schema.SchemaParser;
 import io.vertx.json.schema.SchemaRouter;
 import io.vertx.json.schema.SchemaRouterOptions;
 
 public abstract class RequestRouter {
 
+    static final String QUERY_PARAM_CURSOR = "cursor";
+    static final String QUERY_PARAM_LIMIT = "limit";
+    static final String QUERY_PARAM_STREAM = "stream";
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int DEFAULT_MAX_PAGE_SIZE = 1000;
+
     private final Router router;
     private final Vertx vertx;
     private final SchemaParser schemaParser;
@@ -32,5 +42,45 @@ public abstract class RequestRouter {
         return this.schemaParser;
     }
 
+    /**
+     * Builds a {@link PageRequest} from the "cursor" and "limit" query parameters of the request. A missing limit
+     * falls back to the configured default page size, and any limit is capped at the configured maximum page size.
+     *
+     * @throws IllegalArgumentException (i.e. a 400) if the limit is not a positive integer
+     */
+    static PageRequest getPageRequest(final RoutingContext ctx, final Config.VmCentral config) {
+        final var defaultPageSize = config.httpPageSizeDefault() != 0
+            ? config.httpPageSizeDefault()
+            : DEFAULT_PAGE_SIZE;
+
+        final var maxPageSize = config.httpPageSizeMax() != 0
+            ? config.httpPageSizeMax()
+            : DEFAULT_MAX_PAGE_SIZE;
+
+        final var limitParam = ctx.queryParams().get(QUERY_PARAM_LIMIT);
+        final int limit;
+        try {
+            limit = limitParam == null
+                ? defaultPageSize
+                : Integer.parseInt(limitParam);
+        }
+        catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid '%s': %s".formatted(QUERY_PARAM_LIMIT, limitParam));
+        }
+
+        if (limit < 1) {
+            throw new IllegalArgumentException("Invalid '%s': must be at least 1".formatted(QUERY_PARAM_LIMIT));
+        }
+
+        return PageRequest.of(ctx.queryParams().get(QUERY_PARAM_CURSOR), Math.min(limit, maxPageSize));
+    }
+
+    /**
+     * True if the request asked for its response to be streamed (the "stream" query parameter).
+     */
+    static boolean isStreamRequested(final RoutingContext ctx) {
+        return Boolean.parseBoolean(ctx.queryParams().get(QUERY_PARAM_STREAM));
+    }
+
     public abstract void mount();
 }
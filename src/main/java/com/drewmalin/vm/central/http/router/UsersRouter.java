@@ -1,5 +1,6 @@
 package com.drewmalin.vm.central.http.router;
 
+import com.drewmalin.vm.central.configuration.Config;
 import com.drewmalin.vm.central.context.ServiceContext;
 import com.drewmalin.vm.central.http.auth.AuthProvider;
 import com.drewmalin.vm.central.http.model.UserHttpCreateRequest;
@@ -12,13 +13,14 @@ import com.drewmalin.vm.central.task.CreateUserTask;
 import com.drewmalin.vm.central.task.DeleteUserTask;
 import com.drewmalin.vm.central.task.GetAllUsersTask;
 import com.drewmalin.vm.central.task.GetUserTask;
+import com.drewmalin.vm.central.task.RevokeUserTokensTask;
+import com.drewmalin.vm.central.task.StreamUsersTask;
 import com.drewmalin.vm.central.task.UpdateUserTask;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.handler.BodyHandler;
-import io.vertx.ext.web.handler.JWTAuthHandler;
 import io.vertx.ext.web.validation.builder.ValidationHandlerBuilder;
 import io.vertx.sqlclient.Pool;
 import org.slf4j.Logger;
@@ -28,7 +30,10 @@ import java.util.ArrayList;
 
 import static io.vertx.ext.web.validation.RequestPredicate.BODY_REQUIRED;
 import static io.vertx.ext.web.validation.builder.Bodies.json;
+import static io.vertx.ext.web.validation.builder.Parameters.optionalParam;
 import static io.vertx.ext.web.validation.builder.Parameters.param;
+import static io.vertx.json.schema.common.dsl.Schemas.booleanSchema;
+import static io.vertx.json.schema.common.dsl.Schemas.intSchema;
 import static io.vertx.json.schema.common.dsl.Schemas.objectSchema;
 import static io.vertx.json.schema.common.dsl.Schemas.stringSchema;
 
@@ -41,16 +46,22 @@ public class UsersRouter
 
     private final AuthProvider authProvider;
     private final Pool sqlPool;
+    private final Config.VmCentral config;
 
-    private UsersRouter(final AuthProvider authProvider, final Pool sqlPool, final Router router, final Vertx vertx) {
+    private UsersRouter(final AuthProvider authProvider,
+                        final Pool sqlPool,
+                        final Config.VmCentral config,
+                        final Router router,
+                        final Vertx vertx) {
         super(router, vertx);
 
         this.authProvider = authProvider;
         this.sqlPool = sqlPool;
+        this.config = config;
     }
 
     public static UsersRouter create(final ServiceContext ctx) {
-        return new UsersRouter(ctx.auth(), ctx.sqlPool(), ctx.router(), ctx.vertx());
+        return new UsersRouter(ctx.auth(), ctx.sqlPool(), ctx.config(), ctx.router(), ctx.vertx());
     }
 
     @Override
@@ -58,20 +69,38 @@ public class UsersRouter
         LOGGER.info("Mounting new HTTP route: '%s'".formatted(HTTP_USERS_PATH));
 
         /*
-         * GET /users
+         * GET /users?cursor=<cursor>&limit=<limit>
+         * GET /users?stream=true
          */
         getRouter().route(HttpMethod.GET, HTTP_USERS_PATH)
-            .handler(JWTAuthHandler.create(this.authProvider.getJwtAuth()))
+            .handler(this.authProvider.getAuthHandler())
+            .handler(ValidationHandlerBuilder.create(getSchemaParser())
+                .queryParameter(optionalParam(QUERY_PARAM_CURSOR, stringSchema()))
+                .queryParameter(optionalParam(QUERY_PARAM_LIMIT, intSchema().withKeyword("minimum", 1)))
+                .queryParameter(optionalParam(QUERY_PARAM_STREAM, booleanSchema()))
+                .build()
+            )
             .handler(ctx -> {
-
-                new GetAllUsersTask(this.sqlPool, getVertx()).submit(ctx)
-                    .onSuccess(users -> {
-
-                        final var allUsers = new ArrayList<UserHttpResponse>();
-                        for (final var user : users) {
-                            allUsers.add(new UserHttpResponse(user.id(), user.username()));
+                if (isStreamRequested(ctx)) {
+                    final var input = new StreamUsersTask.Input(users -> ResponseUtils.okStream(
+                        "users",
+                        users,
+                        user -> new UserHttpResponse(user.id(), user.username()),
+                        ctx
+                    ));
+                    new StreamUsersTask(input, this.sqlPool, getVertx()).submit(ctx);
+                    return;
+                }
+
+                final var input = new GetAllUsersTask.Input(getPageRequest(ctx, this.config));
+                new GetAllUsersTask(input, this.sqlPool, getVertx()).submit(ctx)
+                    .onSuccess(page -> {
+
+                        final var pageUsers = new ArrayList<UserHttpResponse>();
+                        for (final var user : page.items()) {
+                            pageUsers.add(new UserHttpResponse(user.id(), user.username()));
                         }
-                        final var response = new UserHttpGetAllResponse(allUsers.size(), allUsers);
+                        final var response = new UserHttpGetAllResponse(pageUsers.size(), pageUsers, page.nextCursor());
 
                         ResponseUtils.ok(response, ctx);
                     });
@@ -82,7 +111,7 @@ public class UsersRouter
          */
         getRouter().route(HttpMethod.POST, HTTP_USERS_PATH)
             .handler(BodyHandler.create())
-            .handler(JWTAuthHandler.create(this.authProvider.getJwtAuth()))
+            .handler(this.authProvider.getAuthHandler())
             .handler(ValidationHandlerBuilder.create(getSchemaParser())
                 .predicate(BODY_REQUIRED)
                 .body(json(objectSchema()
@@ -104,7 +133,7 @@ public class UsersRouter
                     Role.USER
                 );
 
-                new CreateUserTask(input, this.sqlPool, getVertx())
+                new CreateUserTask(input, this.authProvider.getPasswordHasher(), this.sqlPool, getVertx())
                     .submit(ctx)
                     .onSuccess(user -> {
                         final var response = new UserHttpResponse(user.id(), user.username());
@@ -116,7 +145,7 @@ public class UsersRouter
          * GET /users/:userID
          */
         getRouter().route(HttpMethod.GET, HTTP_USERS_PATH + "/:userID")
-            .handler(JWTAuthHandler.create(this.authProvider.getJwtAuth()))
+            .handler(this.authProvider.getAuthHandler())
             .handler(ValidationHandlerBuilder.create(getSchemaParser())
                 .pathParameter(param("userID", stringSchema()))
                 .build()
@@ -136,7 +165,7 @@ public class UsersRouter
          * PUT /users/:userID
          */
         getRouter().route(HttpMethod.PUT, HTTP_USERS_PATH + "/:userID")
-            .handler(JWTAuthHandler.create(this.authProvider.getJwtAuth()))
+            .handler(this.authProvider.getAuthHandler())
             .handler(ValidationHandlerBuilder.create(getSchemaParser())
                 .predicate(BODY_REQUIRED)
                 .pathParameter(param("userID", stringSchema()))
@@ -166,7 +195,7 @@ public class UsersRouter
          * DELETE /users/:userID
          */
         getRouter().route(HttpMethod.DELETE, HTTP_USERS_PATH + "/:userID")
-            .handler(JWTAuthHandler.create(this.authProvider.getJwtAuth()))
+            .handler(this.authProvider.getAuthHandler())
             .handler(ValidationHandlerBuilder.create(getSchemaParser())
                 .pathParameter(param("userID", stringSchema()))
                 .build()
@@ -182,5 +211,25 @@ public class UsersRouter
                     });
             });
 
+        /*
+         * DELETE /users/:userID/tokens
+         */
+        getRouter().route(HttpMethod.DELETE, HTTP_USERS_PATH + "/:userID/tokens")
+            .handler(this.authProvider.getAuthHandler())
+            .handler(ValidationHandlerBuilder.create(getSchemaParser())
+                .pathParameter(param("userID", stringSchema()))
+                .build()
+            )
+            .handler(ctx -> {
+                final var userID = ctx.pathParam("userID");
+
+                final var input = new RevokeUserTokensTask.Input(userID);
+
+                new RevokeUserTokensTask(input, this.sqlPool, getVertx()).submit(ctx)
+                    .onSuccess(ignored -> {
+                        ResponseUtils.ok(new JsonObject(), ctx);
+                    });
+            });
+
     }
 }
@@ -1,5 +1,6 @@
 package com.drewmalin.vm.central.http.router;
 
+import com.drewmalin.vm.central.configuration.Config;
 import com.drewmalin.vm.central.context.ServiceContext;
 import com.drewmalin.vm.central.http.auth.AuthProvider;
 import com.drewmalin.vm.central.http.model.VmHttpCreateRequest;
@@ -9,11 +10,11 @@ import com.drewmalin.vm.central.http.utils.ResponseUtils;
 import com.drewmalin.vm.central.task.CreateVmTask;
 import com.drewmalin.vm.central.task.GetAllVmsTask;
 import com.drewmalin.vm.central.task.GetVmTask;
+import com.drewmalin.vm.central.task.StreamVmsTask;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.handler.BodyHandler;
-import io.vertx.ext.web.handler.JWTAuthHandler;
 import io.vertx.ext.web.validation.builder.ValidationHandlerBuilder;
 import io.vertx.sqlclient.Pool;
 import org.slf4j.Logger;
@@ -23,7 +24,10 @@ import java.util.ArrayList;
 
 import static io.vertx.ext.web.validation.RequestPredicate.BODY_REQUIRED;
 import static io.vertx.ext.web.validation.builder.Bodies.json;
+import static io.vertx.ext.web.validation.builder.Parameters.optionalParam;
 import static io.vertx.ext.web.validation.builder.Parameters.param;
+import static io.vertx.json.schema.common.dsl.Schemas.booleanSchema;
+import static io.vertx.json.schema.common.dsl.Schemas.intSchema;
 import static io.vertx.json.schema.common.dsl.Schemas.objectSchema;
 import static io.vertx.json.schema.common.dsl.Schemas.stringSchema;
 
@@ -36,19 +40,22 @@ public class VirtualMachinesRouter
 
     private final AuthProvider authProvider;
     private final Pool sqlPool;
+    private final Config.VmCentral config;
 
     private VirtualMachinesRouter(final AuthProvider authProvider,
                                   final Pool sqlPool,
+                                  final Config.VmCentral config,
                                   final Router router,
                                   final Vertx vertx) {
         super(router, vertx);
 
         this.authProvider = authProvider;
         this.sqlPool = sqlPool;
+        this.config = config;
     }
 
     public static VirtualMachinesRouter create(final ServiceContext ctx) {
-        return new VirtualMachinesRouter(ctx.auth(), ctx.sqlPool(), ctx.router(), ctx.vertx());
+        return new VirtualMachinesRouter(ctx.auth(), ctx.sqlPool(), ctx.config(), ctx.router(), ctx.vertx());
     }
 
     @Override
@@ -56,21 +63,39 @@ public class VirtualMachinesRouter
         LOGGER.info("Mounting new HTTP route: '%s'".formatted(HTTP_VMS_PATH));
 
         /*
-         * GET /vms
+         * GET /vms?cursor=<cursor>&limit=<limit>
+         * GET /vms?stream=true
          */
         getRouter().route(HttpMethod.GET, HTTP_VMS_PATH)
-            .handler(JWTAuthHandler.create(this.authProvider.getJwtAuth()))
+            .handler(this.authProvider.getAuthHandler())
+            .handler(ValidationHandlerBuilder.create(getSchemaParser())
+                .queryParameter(optionalParam(QUERY_PARAM_CURSOR, stringSchema()))
+                .queryParameter(optionalParam(QUERY_PARAM_LIMIT, intSchema().withKeyword("minimum", 1)))
+                .queryParameter(optionalParam(QUERY_PARAM_STREAM, booleanSchema()))
+                .build()
+            )
             .handler(ctx -> {
-
-                new GetAllVmsTask(this.sqlPool, getVertx()).submit(ctx)
-                    .onSuccess(vms -> {
-
-                        final var allVms = new ArrayList<VmHttpResponse>();
-                        for (final var vm : vms) {
+                if (isStreamRequested(ctx)) {
+                    final var input = new StreamVmsTask.Input(vms -> ResponseUtils.okStream(
+                        "vms",
+                        vms,
+                        vm -> new VmHttpResponse(vm.id(), vm.providerName(), vm.statusName(), vm.owner().id()),
+                        ctx
+                    ));
+                    new StreamVmsTask(input, this.sqlPool, getVertx()).submit(ctx);
+                    return;
+                }
+
+                final var input = new GetAllVmsTask.Input(getPageRequest(ctx, this.config));
+                new GetAllVmsTask(input, this.sqlPool, getVertx()).submit(ctx)
+                    .onSuccess(page -> {
+
+                        final var pageVms = new ArrayList<VmHttpResponse>();
+                        for (final var vm : page.items()) {
                             final var user = vm.owner();
-                            allVms.add(new VmHttpResponse(vm.id(), vm.providerName(), vm.statusName(), user.id()));
+                            pageVms.add(new VmHttpResponse(vm.id(), vm.providerName(), vm.statusName(), user.id()));
                         }
-                        final var response = new VmHttpGetAllResponse(allVms.size(), allVms);
+                        final var response = new VmHttpGetAllResponse(pageVms.size(), pageVms, page.nextCursor());
 
                         ResponseUtils.ok(response, ctx);
                     });
@@ -80,7 +105,7 @@ public class VirtualMachinesRouter
          * GET /vms/:vmID
          */
         getRouter().route(HttpMethod.GET, HTTP_VMS_PATH + "/:vmID")
-            .handler(JWTAuthHandler.create(this.authProvider.getJwtAuth()))
+            .handler(this.authProvider.getAuthHandler())
             .handler(ValidationHandlerBuilder.create(getSchemaParser())
                 .pathParameter(param("vmID", stringSchema()))
                 .build()
@@ -103,7 +128,7 @@ public class VirtualMachinesRouter
          */
         getRouter().route(HttpMethod.POST, HTTP_VMS_PATH)
             .handler(BodyHandler.create())
-            .handler(JWTAuthHandler.create(this.authProvider.getJwtAuth()))
+            .handler(this.authProvider.getAuthHandler())
             .handler(ValidationHandlerBuilder.create(getSchemaParser())
                 .predicate(BODY_REQUIRED)
                 .body(json(objectSchema()
@@ -0,0 +1,62 @@
+package com.drewmalin.vm.central.http.utils;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.EncodeException;
+import io.vertx.core.json.jackson.DatabindCodec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes response bodies as JSON directly into a (Netty-backed) {@link Buffer}, skipping the intermediate
+ * {@link String} that {@link io.vertx.core.json.Json#encodePrettily(Object)} produces. Output is compact unless pretty
+ * printing is explicitly requested.
+ * <p>
+ * Buffers are pre-sized using the last encoded size of the same type of object, so that a typical response is
+ * written without the buffer having to grow (and copy) along the way.
+ */
+public final class JsonEncoder {
+
+    private static final int DEFAULT_SIZE_HINT = 256;
+    private static final int MAX_SIZE_HINT = 64 * 1024;
+
+    /*
+     * ObjectWriters are immutable and thread-safe, so a single instance of each is shared. Both are derived from the
+     * Vert.x mapper so that any modules registered against it (JsonObject/JsonArray serializers, etc.) still apply.
+     */
+    private static final ObjectWriter COMPACT_WRITER = DatabindCodec.mapper().writer();
+    private static final ObjectWriter PRETTY_WRITER = COMPACT_WRITER.withDefaultPrettyPrinter();
+
+    private static final Map<Class<?>, Integer> SIZE_HINTS = new ConcurrentHashMap<>();
+
+    private JsonEncoder() {
+
+    }
+
+    public static Buffer encode(final Object value) {
+        return encode(value, false);
+    }
+
+    public static Buffer encode(final Object value, final boolean pretty) {
+        final var type = value == null ? Void.class : value.getClass();
+        final var byteBuf = Unpooled.buffer(SIZE_HINTS.getOrDefault(type, DEFAULT_SIZE_HINT));
+
+        try (final OutputStream out = new ByteBufOutputStream(byteBuf)) {
+            (pretty ? PRETTY_WRITER : COMPACT_WRITER).writeValue(out, value);
+        }
+        catch (final IOException e) {
+            throw new EncodeException("Failed to encode as JSON: %s".formatted(e.getMessage()), e);
+        }
+
+        if (!pretty) {
+            SIZE_HINTS.put(type, Math.min(byteBuf.readableBytes(), MAX_SIZE_HINT));
+        }
+
+        return Buffer.buffer(byteBuf);
+    }
+}
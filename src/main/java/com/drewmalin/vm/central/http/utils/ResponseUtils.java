@@ -1,8 +1,12 @@
 package com.drewmalin.vm.central.http.utils;
 
 import com.drewmalin.vm.central.task.UnauthorizedException;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.streams.ReadStream;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.HttpException;
 import io.vertx.ext.web.validation.BadRequestException;
@@ -11,6 +15,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 public class ResponseUtils {
 
@@ -18,21 +24,77 @@ public class ResponseUtils {
 
     private static final String HEADER_CONTENT_TYPE = "Content-Type";
     private static final String APPLICATION_JSON = "application/json";
+    private static final String QUERY_PARAM_PRETTY = "pretty";
 
     private ResponseUtils() {
 
     }
 
     public static void ok(final Object response, final RoutingContext routingContext) {
-        response(200, Json.encodePrettily(response), routingContext);
+        response(200, encode(response, routingContext), routingContext);
     }
 
     public static void created(final Object response, final RoutingContext routingContext) {
-        response(201, Json.encodePrettily(response), routingContext);
+        response(201, encode(response, routingContext), routingContext);
     }
 
     public static void accepted(final Object response, final RoutingContext routingContext) {
-        response(202, Json.encodePrettily(response), routingContext);
+        response(202, encode(response, routingContext), routingContext);
+    }
+
+    /**
+     * Streams a JSON object of the form {"field": [element, ...]} to the client using chunked transfer encoding. Each
+     * element is mapped and encoded as it arrives, so the memory held by the response does not grow with the number
+     * of elements. Whenever the client falls behind (the response's write queue is full) the stream is paused until
+     * the write queue drains.
+     *
+     * @param field          the {@link String} name of the JSON field containing the array of elements
+     * @param stream         the {@link ReadStream<T>} of elements
+     * @param mapper         a function mapping each element to its response representation
+     * @param routingContext the {@link RoutingContext} of the request
+     *
+     * @return a {@link Future<Void>} which completes once the full response has been written
+     */
+    public static <T> Future<Void> okStream(final String field,
+                                            final ReadStream<T> stream,
+                                            final Function<T, Object> mapper,
+                                            final RoutingContext routingContext) {
+        final Promise<Void> promise = Promise.promise();
+        final var first = new AtomicBoolean(true);
+
+        final var response = routingContext.response()
+            .setStatusCode(200)
+            .setChunked(true)
+            .putHeader(HEADER_CONTENT_TYPE, APPLICATION_JSON);
+
+        response.write("{%s:[".formatted(Json.encode(field)));
+
+        /*
+         * If the client goes away mid-stream, fail fast so that the stream (and whatever backs it) is released
+         */
+        response.closeHandler(ignored -> promise.tryFail(new IllegalStateException("Connection closed mid-stream")));
+        response.drainHandler(ignored -> stream.resume());
+
+        stream.exceptionHandler(promise::tryFail);
+        stream.endHandler(ignored -> response.end("]}")
+            .onSuccess(ignoredAgain -> promise.tryComplete())
+            .onFailure(promise::tryFail));
+        stream.handler(element -> {
+            final var encoded = JsonEncoder.encode(mapper.apply(element));
+
+            if (first.getAndSet(false)) {
+                response.write(encoded);
+            }
+            else {
+                response.write(Buffer.buffer(",").appendBuffer(encoded));
+            }
+
+            if (response.writeQueueFull()) {
+                stream.pause();
+            }
+        });
+
+        return promise.future();
     }
 
     public static void error(final Throwable t, final RoutingContext routingContext) {
@@ -78,13 +140,32 @@ public class ResponseUtils {
             error = error.put("message", detail);
         }
 
-        final var errorMessage = error.encodePrettily();
+        response(status, encode(error, routingContext), routingContext);
+    }
 
-        response(status, errorMessage, routingContext);
+    /**
+     * Encodes the response as compact JSON, unless the client asked for pretty printing (the "pretty" query parameter).
+     */
+    private static Buffer encode(final Object response, final RoutingContext routingContext) {
+        final var pretty = Boolean.parseBoolean(routingContext.request().getParam(QUERY_PARAM_PRETTY));
+        return JsonEncoder.encode(response, pretty);
     }
 
-    private static void response(final int status, final String response, final RoutingContext routingContext) {
-        routingContext.response()
+    private static void response(final int status, final Buffer response, final RoutingContext routingContext) {
+        final var httpResponse = routingContext.response();
+
+        if (httpResponse.headWritten()) {
+            /*
+             * A (streamed) response is already underway, so its status can no longer be changed. Abort the response
+             * instead, so that the client does not mistake a truncated body for a complete one.
+             */
+            if (!httpResponse.ended()) {
+                httpResponse.reset();
+            }
+            return;
+        }
+
+        httpResponse
             .setStatusCode(status)
             .putHeader(HEADER_CONTENT_TYPE, APPLICATION_JSON)
             .end(response);
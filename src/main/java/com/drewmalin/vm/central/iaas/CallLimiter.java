@@ -0,0 +1,360 @@
+package com.drewmalin.vm.central.iaas;
+
+import com.drewmalin.vm.central.configuration.Config;
+import com.drewmalin.vm.central.utils.MetricsUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Limits the calls made to the API of one IaaS provider, separately per region and action (e.g. DescribeInstances in
+ * us-west-2), so that a burst of one kind of call (a flood of provisioning requests, a large reconcile) is neither
+ * throttled by the provider nor able to starve the others. Each region and action is a "lane" with:
+ * <ul>
+ *     <li>a token bucket rate limit, mirroring the provider's own (see {@link TokenBucket})</li>
+ *     <li>a bulkhead: at most a fixed number of its calls in flight at once</li>
+ *     <li>a bounded queue of calls waiting for either, beyond which calls are rejected straight away (as throttled,
+ *     see {@link IaasException#isThrottled()}) rather than queueing without limit</li>
+ * </ul>
+ * The rate of a lane adapts to the provider: every call the provider throttles halves it (at most once per
+ * {@link #DECREASE_INTERVAL_NANOS}, so a burst of throttled calls counts once) and empties the bucket, and every
+ * successful call wins back a twentieth of the configured rate, until it is reached again.
+ * <p>
+ * Meters, tagged by provider, region and action: vmcentral.iaas.calls.{queued,in_flight,rate} (gauges),
+ * vmcentral.iaas.calls.wait (time from a call being submitted to being made), vmcentral.iaas.calls.throttled and
+ * vmcentral.iaas.calls.rejected.
+ * <p>
+ * Thread-safe: calls may be submitted from, and complete on, any thread. Calls are made on the thread submitting them
+ * if they may be made straight away, otherwise on the thread completing an earlier call or on a timer thread.
+ */
+public final class CallLimiter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CallLimiter.class);
+
+    private static final Config.CloudVmIaas.Limits.Limit DEFAULT_LIMIT = new Config.CloudVmIaas.Limits.Limit(
+        20, 100, 10);
+    private static final int DEFAULT_QUEUE_MAX = 1_000;
+
+    private static final double DECREASE_FACTOR = 0.5;
+    private static final double INCREASE_FRACTION = 0.05;
+    private static final double MIN_RATE_FRACTION = 0.05;
+    private static final long DECREASE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final String provider;
+    private final Config.CloudVmIaas.Limits config;
+    private final Map<String, Config.CloudVmIaas.Limits.Limit> defaults;
+    private final Predicate<Throwable> isThrottled;
+    private final LongSupplier nanoClock;
+    private final BiConsumer<Long, Runnable> scheduler;
+    private final int queueMax;
+
+    private final Map<LaneKey, Lane> lanes = new ConcurrentHashMap<>();
+
+    /**
+     * @param provider    the name of the provider, e.g. "aws"
+     * @param config      the configured limits, or null for the defaults
+     * @param defaults    the built-in limit of each action whose limit differs from the built-in default
+     * @param isThrottled true of a failure meaning the provider throttled the call (in addition to a throttled
+     *                    {@link IaasException})
+     */
+    public CallLimiter(final String provider,
+                       final Config.CloudVmIaas.Limits config,
+                       final Map<String, Config.CloudVmIaas.Limits.Limit> defaults,
+                       final Predicate<Throwable> isThrottled) {
+        this(provider, config, defaults, isThrottled, System::nanoTime, (delayNanos, task) ->
+            CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS).execute(task));
+    }
+
+    CallLimiter(final String provider,
+                final Config.CloudVmIaas.Limits config,
+                final Map<String, Config.CloudVmIaas.Limits.Limit> defaults,
+                final Predicate<Throwable> isThrottled,
+                final LongSupplier nanoClock,
+                final BiConsumer<Long, Runnable> scheduler) {
+        this.provider = provider;
+        this.config = config;
+        this.defaults = defaults;
+        this.isThrottled = isThrottled;
+        this.nanoClock = nanoClock;
+        this.scheduler = scheduler;
+        this.queueMax = config != null && config.queueMax() != 0
+            ? config.queueMax()
+            : DEFAULT_QUEUE_MAX;
+    }
+
+    /**
+     * Makes the given call once the lane of the given region and action allows.
+     *
+     * @param call makes the call, returning its (eventual) result
+     *
+     * @return the result of the call, or a failed future (with a throttled {@link IaasException}) if too many calls are
+     * already waiting
+     */
+    public <T> CompletableFuture<T> submit(final String region,
+                                           final String action,
+                                           final Supplier<CompletableFuture<T>> call) {
+        return this.lanes.computeIfAbsent(new LaneKey(region, action), Lane::new)
+            .submit(call);
+    }
+
+    /**
+     * Removes the meters of every lane. Calls still waiting are made as usual.
+     */
+    public void close() {
+        this.lanes.values().forEach(lane -> lane.meters.forEach(MetricsUtils.registry()::remove));
+    }
+
+    /*
+     * The current rate limit of the given region and action, per second
+     */
+    double rate(final String region, final String action) {
+        return this.lanes.get(new LaneKey(region, action)).snapshot()[2];
+    }
+
+    /*
+     * Field by field: the configured limit of the action, then its built-in limit, then the configured default, then
+     * the built-in default
+     */
+    Config.CloudVmIaas.Limits.Limit limit(final String action) {
+        final List<Config.CloudVmIaas.Limits.Limit> candidates = new ArrayList<>();
+        if (this.config != null && this.config.actions() != null && this.config.actions().containsKey(action)) {
+            candidates.add(this.config.actions().get(action));
+        }
+        if (this.defaults.containsKey(action)) {
+            candidates.add(this.defaults.get(action));
+        }
+        if (this.config != null && this.config.defaults() != null) {
+            candidates.add(this.config.defaults());
+        }
+        candidates.add(DEFAULT_LIMIT);
+
+        final var ratePerSecond = candidates.stream()
+            .mapToDouble(Config.CloudVmIaas.Limits.Limit::ratePerSecond)
+            .filter(value -> value != 0)
+            .findFirst()
+            .orElseThrow();
+        final var burst = candidates.stream()
+            .mapToInt(Config.CloudVmIaas.Limits.Limit::burst)
+            .filter(value -> value != 0)
+            .findFirst()
+            .orElseThrow();
+        final var concurrency = candidates.stream()
+            .mapToInt(Config.CloudVmIaas.Limits.Limit::concurrency)
+            .filter(value -> value != 0)
+            .findFirst()
+            .orElseThrow();
+
+        return new Config.CloudVmIaas.Limits.Limit(ratePerSecond, burst, concurrency);
+    }
+
+    private boolean isThrottled(final Throwable t) {
+        final var cause = t instanceof CompletionException && t.getCause() != null
+            ? t.getCause()
+            : t;
+
+        return cause instanceof final IaasException e && e.isThrottled()
+            || this.isThrottled.test(cause);
+    }
+
+    private record LaneKey(String region, String action) {
+
+    }
+
+    private final class Lane {
+
+        private final LaneKey key;
+        private final double maxRate;
+        private final double minRate;
+        private final int concurrency;
+        private final TokenBucket bucket;
+
+        private final Timer waitTimer;
+        private final Counter throttledCounter;
+        private final Counter rejectedCounter;
+        private final List<Meter> meters = new ArrayList<>();
+
+        /*
+         * Guarded by this
+         */
+        private final Deque<Runnable> waiting = new ArrayDeque<>();
+        private int inFlight;
+        private double rate;
+        private long decreasedAt;
+        private boolean drainScheduled;
+
+        private Lane(final LaneKey key) {
+            final var limit = limit(key.action());
+
+            this.key = key;
+            this.maxRate = limit.ratePerSecond();
+            this.minRate = limit.ratePerSecond() * MIN_RATE_FRACTION;
+            this.concurrency = limit.concurrency();
+            this.bucket = new TokenBucket(limit.ratePerSecond(), limit.burst(), CallLimiter.this.nanoClock);
+            this.rate = this.maxRate;
+            this.decreasedAt = CallLimiter.this.nanoClock.getAsLong() - DECREASE_INTERVAL_NANOS;
+
+            final var registry = MetricsUtils.registry();
+            final var tags = Tags.of(
+                "provider", CallLimiter.this.provider,
+                "region", key.region(),
+                "action", key.action()
+            );
+
+            this.waitTimer = Timer.builder("vmcentral.iaas.calls.wait")
+                .description("Time from a cloud API call being submitted to it being made")
+                .tags(tags)
+                .register(registry);
+            this.throttledCounter = Counter.builder("vmcentral.iaas.calls.throttled")
+                .description("Cloud API calls throttled by the provider")
+                .tags(tags)
+                .register(registry);
+            this.rejectedCounter = Counter.builder("vmcentral.iaas.calls.rejected")
+                .description("Cloud API calls rejected because too many were already waiting")
+                .tags(tags)
+                .register(registry);
+
+            this.meters.add(this.waitTimer);
+            this.meters.add(this.throttledCounter);
+            this.meters.add(this.rejectedCounter);
+            this.meters.add(Gauge.builder("vmcentral.iaas.calls.queued", this, lane -> lane.snapshot()[0])
+                .description("Cloud API calls waiting to be made")
+                .tags(tags)
+                .register(registry));
+            this.meters.add(Gauge.builder("vmcentral.iaas.calls.in_flight", this, lane -> lane.snapshot()[1])
+                .description("Cloud API calls made but not yet completed")
+                .tags(tags)
+                .register(registry));
+            this.meters.add(Gauge.builder("vmcentral.iaas.calls.rate", this, lane -> lane.snapshot()[2])
+                .description("The current rate limit of cloud API calls, per second")
+                .tags(tags)
+                .register(registry));
+
+            LOGGER.info("Created %s call limiter for %s in %s: rate=%s/s, burst=%d, concurrency=%d".formatted(
+                CallLimiter.this.provider, key.action(), key.region(), limit.ratePerSecond(), limit.burst(),
+                limit.concurrency()));
+        }
+
+        private <T> CompletableFuture<T> submit(final Supplier<CompletableFuture<T>> call) {
+            final var result = new CompletableFuture<T>();
+            final var submittedAt = CallLimiter.this.nanoClock.getAsLong();
+
+            synchronized (this) {
+                if (this.waiting.size() >= CallLimiter.this.queueMax) {
+                    this.rejectedCounter.increment();
+                    return CompletableFuture.failedFuture(new IaasException("Too many %s calls to %s waiting in %s"
+                        .formatted(this.key.action(), CallLimiter.this.provider, this.key.region()), true));
+                }
+
+                this.waiting.add(() -> {
+                    this.waitTimer.record(CallLimiter.this.nanoClock.getAsLong() - submittedAt, TimeUnit.NANOSECONDS);
+
+                    CompletableFuture<T> made;
+                    try {
+                        made = call.get();
+                    }
+                    catch (final RuntimeException e) {
+                        made = CompletableFuture.failedFuture(e);
+                    }
+
+                    made.whenComplete((value, t) -> {
+                        completed(t);
+
+                        if (t != null) {
+                            result.completeExceptionally(t);
+                        }
+                        else {
+                            result.complete(value);
+                        }
+                    });
+                });
+            }
+
+            drain();
+            return result;
+        }
+
+        /*
+         * Makes as many waiting calls as both limits allow. If only the rate limit stands in the way, tries again once
+         * the next token is due.
+         */
+        private void drain() {
+            final var started = new ArrayList<Runnable>();
+
+            synchronized (this) {
+                while (this.inFlight < this.concurrency && !this.waiting.isEmpty()) {
+                    if (!this.bucket.tryAcquire()) {
+                        if (!this.drainScheduled) {
+                            this.drainScheduled = true;
+                            CallLimiter.this.scheduler.accept(this.bucket.nanosUntilAvailable(), () -> {
+                                synchronized (this) {
+                                    this.drainScheduled = false;
+                                }
+                                drain();
+                            });
+                        }
+                        break;
+                    }
+
+                    this.inFlight++;
+                    started.add(this.waiting.poll());
+                }
+            }
+
+            started.forEach(Runnable::run);
+        }
+
+        private void completed(final Throwable t) {
+            final var throttled = t != null && isThrottled(t);
+
+            synchronized (this) {
+                this.inFlight--;
+
+                if (throttled) {
+                    this.throttledCounter.increment();
+
+                    final var now = CallLimiter.this.nanoClock.getAsLong();
+                    if (now - this.decreasedAt >= DECREASE_INTERVAL_NANOS) {
+                        this.decreasedAt = now;
+                        this.rate = Math.max(this.minRate, this.rate * DECREASE_FACTOR);
+                        this.bucket.setRate(this.rate);
+                        this.bucket.empty();
+
+                        LOGGER.warn("Throttled by %s on %s in %s, reduced rate to %.2f/s".formatted(
+                            CallLimiter.this.provider, this.key.action(), this.key.region(), this.rate));
+                    }
+                }
+                else if (t == null && this.rate < this.maxRate) {
+                    this.rate = Math.min(this.maxRate, this.rate + this.maxRate * INCREASE_FRACTION);
+                    this.bucket.setRate(this.rate);
+                }
+            }
+
+            drain();
+        }
+
+        /*
+         * Waiting, in flight and the current rate, read together
+         */
+        private synchronized double[] snapshot() {
+            return new double[] {this.waiting.size(), this.inFlight, this.rate};
+        }
+    }
+}
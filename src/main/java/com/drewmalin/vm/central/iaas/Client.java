@@ -5,7 +5,8 @@ import com.drewmalin.vm.central.iaas.aws.Aws;
 
 import java.util.concurrent.atomic.AtomicReference;
 
-public class Client {
+public class Client
+    implements AutoCloseable {
 
     private final Config.CloudVmIaas config;
     private final AtomicReference<Aws> aws;
@@ -16,7 +17,23 @@ public class Client {
     }
 
     public Aws aws() {
+        /*
+         * Created at most once: a losing racer's Aws is discarded before it has created (or started) anything
+         */
+        final var existing = this.aws.get();
+        if (existing != null) {
+            return existing;
+        }
+
         this.aws.compareAndSet(null, new Aws(this.config.aws()));
         return this.aws.get();
     }
+
+    @Override
+    public void close() {
+        final var aws = this.aws.getAndSet(null);
+        if (aws != null) {
+            aws.close();
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package com.drewmalin.vm.central.iaas;
+
+/**
+ * A failed call to an {@link IaasProvider}. A throttled call (i.e. one rejected by the rate limit of the provider) was
+ * never attempted, so is always safe to retry once the rate allows.
+ */
+public class IaasException
+    extends RuntimeException {
+
+    private final boolean throttled;
+
+    public IaasException(final String message, final boolean throttled) {
+        super(message);
+        this.throttled = throttled;
+    }
+
+    public boolean isThrottled() {
+        return this.throttled;
+    }
+}
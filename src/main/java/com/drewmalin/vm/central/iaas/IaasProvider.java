@@ -0,0 +1,26 @@
+package com.drewmalin.vm.central.iaas;
+
+import com.drewmalin.vm.central.data.model.VmDTO;
+import com.drewmalin.vm.central.job.VmStatusFetcher;
+import io.vertx.core.Future;
+
+/**
+ * The cloud hosting the VMs of one {@link VmDTO.Provider}: VMs are provisioned through it, and their statuses fetched
+ * from it (see {@link VmStatusFetcher}). Implementations must not block the calling thread. See {@link IaasProviders}
+ * for the provider of each {@link VmDTO.Provider}.
+ */
+public interface IaasProvider
+    extends VmStatusFetcher {
+
+    /**
+     * Provisions the given VM. Provisioning is idempotent: provisioning the same VM again (e.g. after a lost reply)
+     * never creates a second instance.
+     *
+     * @param vm the {@link VmDTO} to provision
+     *
+     * @return a {@link Future<VmDTO>} of the VM, updated with the ID and region of its instance, and its status (which
+     * may still be {@link VmDTO.Status#INITIALIZING} if the instance has not yet booted). Fails with an
+     * {@link IaasException} if the provider rejected the call.
+     */
+    Future<VmDTO> provision(VmDTO vm);
+}
@@ -0,0 +1,128 @@
+package com.drewmalin.vm.central.iaas;
+
+import com.drewmalin.vm.central.configuration.Config;
+import com.drewmalin.vm.central.data.model.VmDTO;
+import com.drewmalin.vm.central.iaas.aws.Aws;
+import com.drewmalin.vm.central.iaas.aws.AwsProvider;
+import com.drewmalin.vm.central.iaas.simulated.SimulatedCloud;
+import com.drewmalin.vm.central.job.VmStatusFetcher;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Shareable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link IaasProvider} of each {@link VmDTO.Provider}. Unless disabled in the config, a single
+ * {@link SimulatedCloud} stands in for every provider; otherwise only the providers with config are available.
+ * <p>
+ * Also a {@link VmStatusFetcher} of VMs of any provider, each being fetched from its own provider.
+ * <p>
+ * A single set of providers is shared by every verticle of a Vert.x instance (so that, in particular, the instances
+ * of a simulated cloud are seen by all of them), see {@link #shared(Vertx, Config.CloudVmIaas)}.
+ */
+public class IaasProviders
+    implements VmStatusFetcher, Shareable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IaasProviders.class);
+
+    private static final String SHARED_DATA_MAP_NAME = "vm-central.iaas";
+    private static final String SHARED_DATA_KEY = "providers";
+
+    private final Map<VmDTO.Provider, IaasProvider> providers;
+
+    private IaasProviders(final Map<VmDTO.Provider, IaasProvider> providers) {
+        this.providers = providers;
+    }
+
+    /**
+     * Gets the {@link IaasProviders} shared by all verticles of the given Vert.x instance, creating them (from the
+     * given config, which may be null) if they do not yet exist.
+     *
+     * @throws IllegalArgumentException if the simulation is disabled and a real provider is missing, or misconfigured
+     */
+    public static IaasProviders shared(final Vertx vertx, final Config.CloudVmIaas config) {
+        return vertx.sharedData()
+            .<String, IaasProviders>getLocalMap(SHARED_DATA_MAP_NAME)
+            .computeIfAbsent(SHARED_DATA_KEY, ignored -> create(vertx, config));
+    }
+
+    private static IaasProviders create(final Vertx vertx, final Config.CloudVmIaas config) {
+        final Map<VmDTO.Provider, IaasProvider> providers = new EnumMap<>(VmDTO.Provider.class);
+
+        final var simulated = config != null ? config.simulated() : null;
+        if (simulated == null || !simulated.disabled()) {
+            LOGGER.info("Every IaaS provider is simulated");
+
+            final var cloud = new SimulatedCloud(vertx, simulated);
+            for (final var provider : VmDTO.Provider.values()) {
+                providers.put(provider, cloud);
+            }
+            return new IaasProviders(providers);
+        }
+
+        if (config.aws() != null) {
+            providers.put(VmDTO.Provider.AWS, new AwsProvider(Aws.shared(vertx, config.aws()),
+                config.aws().provisioning()));
+        }
+
+        /*
+         * Without the simulation, a node with no real provider could never provision a VM, so refuse to start at all
+         */
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("'vm.iaas.simulated' is disabled, but no IaaS provider is configured "
+                + "(e.g. 'vm.iaas.aws')");
+        }
+
+        LOGGER.info("Available IaaS providers: %s".formatted(providers.keySet()));
+        return new IaasProviders(providers);
+    }
+
+    /**
+     * Gets the {@link IaasProvider} of the given {@link VmDTO.Provider}.
+     *
+     * @throws IllegalArgumentException if the provider is not available
+     */
+    public IaasProvider get(final VmDTO.Provider provider) {
+        final var iaasProvider = this.providers.get(provider);
+        if (iaasProvider == null) {
+            throw new IllegalArgumentException("No IaaS provider available for %s".formatted(provider));
+        }
+        return iaasProvider;
+    }
+
+    /*
+     * VMs of an unavailable provider, or of a provider whose fetch failed, are left absent
+     */
+    @Override
+    public Future<Map<String, VmDTO.Status>> fetch(final List<VmDTO> vms) {
+        final Map<IaasProvider, List<VmDTO>> vmsByProvider = new HashMap<>();
+        for (final var vm : vms) {
+            final var provider = this.providers.get(vm.vmProvider());
+            if (provider != null) {
+                vmsByProvider.computeIfAbsent(provider, ignored -> new ArrayList<>()).add(vm);
+            }
+        }
+
+        final Map<String, VmDTO.Status> statuses = new ConcurrentHashMap<>();
+
+        final List<Future<Void>> fetches = new ArrayList<>(vmsByProvider.size());
+        for (final var entry : vmsByProvider.entrySet()) {
+            fetches.add(entry.getKey().fetch(entry.getValue())
+                .onSuccess(statuses::putAll)
+                .onFailure(t -> LOGGER.error("Failed to fetch VM statuses: %s".formatted(t.getMessage())))
+                .mapEmpty());
+        }
+
+        return Future.join(fetches)
+            .otherwiseEmpty()
+            .map(ignored -> statuses);
+    }
+}
@@ -0,0 +1,89 @@
+package com.drewmalin.vm.central.iaas;
+
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket rate limit: tokens accrue at a fixed rate, up to a maximum burst, and every permitted call takes one.
+ * The bucket starts full. Thread-safe.
+ */
+public class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final LongSupplier nanoClock;
+    private final double capacity;
+
+    private double tokensPerNano;
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * @param ratePerSecond the rate at which tokens accrue
+     * @param burst         the most tokens the bucket holds, or 0 for one second's worth (and at least one)
+     * @param nanoClock     the source of time, e.g. {@link System#nanoTime()}
+     */
+    public TokenBucket(final double ratePerSecond, final int burst, final LongSupplier nanoClock) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: %s".formatted(ratePerSecond));
+        }
+
+        this.nanoClock = nanoClock;
+        this.capacity = burst > 0 ? burst : Math.max(1, Math.ceil(ratePerSecond));
+        this.tokensPerNano = ratePerSecond / NANOS_PER_SECOND;
+        this.tokens = this.capacity;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return true if a token was taken, i.e. the call is permitted
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+
+        if (this.tokens < 1) {
+            return false;
+        }
+
+        this.tokens -= 1;
+        return true;
+    }
+
+    /**
+     * @return the time until a token is next available, in nanoseconds (0 if one is available now)
+     */
+    public synchronized long nanosUntilAvailable() {
+        refill();
+
+        return this.tokens >= 1
+            ? 0
+            : (long) Math.ceil((1 - this.tokens) / this.tokensPerNano);
+    }
+
+    /**
+     * Changes the rate at which tokens accrue from now on. Tokens already accrued are kept.
+     */
+    public synchronized void setRate(final double ratePerSecond) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive: %s".formatted(ratePerSecond));
+        }
+
+        refill();
+        this.tokensPerNano = ratePerSecond / NANOS_PER_SECOND;
+    }
+
+    /**
+     * Takes every token accrued so far, so that the next call waits for one to accrue at the current rate.
+     */
+    public synchronized void empty() {
+        refill();
+        this.tokens = Math.min(this.tokens, 0);
+    }
+
+    private void refill() {
+        final var now = this.nanoClock.getAsLong();
+        this.tokens = Math.min(this.capacity, this.tokens + (now - this.refilledAt) * this.tokensPerNano);
+        this.refilledAt = now;
+    }
+}
@@ -1,30 +1,98 @@
 package com.drewmalin.vm.central.iaas.aws;
 
 import com.drewmalin.vm.central.configuration.Config;
+import com.drewmalin.vm.central.iaas.CallLimiter;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Shareable;
 import org.apache.commons.lang3.StringUtils;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.awscore.AwsClient;
 import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
+import software.amazon.awssdk.core.client.builder.SdkAsyncClientBuilder;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ec2.Ec2AsyncClient;
 import software.amazon.awssdk.services.ec2.Ec2Client;
+import software.amazon.awssdk.services.eventbridge.EventBridgeAsyncClient;
 import software.amazon.awssdk.services.eventbridge.EventBridgeClient;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
 
 import java.net.URI;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
-public class Aws {
+/**
+ * Creates (once) and caches the AWS service clients, per service and region. Clients are thread-safe, as is the cache,
+ * so a single {@link Aws} may be shared by every verticle.
+ * <p>
+ * The asynchronous clients (e.g. {@link #ec2Async(Region)}) never block the calling thread, so are the ones to use from
+ * an event loop: see {@link #toFuture(CompletableFuture)} to continue on the caller's context. They share a single
+ * Netty-based HTTP client (and so a single, small, set of event loop threads), so the cost of outstanding cloud calls
+ * grows with connections rather than threads. The synchronous clients remain for blocking callers.
+ * <p>
+ * Asynchronous calls should be made through {@link #call(Region, String, Supplier)}, which applies the rate limit and
+ * concurrency bulkhead of the region and action (see {@link CallLimiter}) shared by every caller of this {@link Aws},
+ * backing off whenever AWS throttles (e.g. "RequestLimitExceeded"). The built-in limits follow the EC2 defaults for
+ * describe and mutating actions, and may be overridden (or disabled) in the config.
+ * <p>
+ * Setting an endpoint in the config (e.g. that of a LocalStack container) points every client at it instead of AWS.
+ * <p>
+ * Background jobs share a single {@link Aws} per Vert.x instance, see {@link #shared(Vertx, Config.CloudVmIaas.Aws)}.
+ */
+public class Aws
+    implements AutoCloseable, Shareable {
+
+    private static final String SHARED_DATA_MAP_NAME = "vm-central.iaas";
+    private static final String SHARED_DATA_KEY = "aws";
+
+    private static final int DEFAULT_MAX_CONCURRENCY = 50;
+
+    private static final String PROVIDER = "aws";
+
+    /*
+     * Actions whose built-in limit differs from that of CallLimiter: mutating EC2 actions have a smaller bucket, and
+     * SQS hardly limits calls at all (a long poll holds its permit for as long as it waits, so pollers need room)
+     */
+    private static final Map<String, Config.CloudVmIaas.Limits.Limit> DEFAULT_LIMITS = Map.of(
+        "ec2:RunInstances", new Config.CloudVmIaas.Limits.Limit(2, 5, 0),
+        "ec2:TerminateInstances", new Config.CloudVmIaas.Limits.Limit(5, 50, 0),
+        "sqs:ReceiveMessage", new Config.CloudVmIaas.Limits.Limit(100, 100, 50),
+        "sqs:DeleteMessageBatch", new Config.CloudVmIaas.Limits.Limit(100, 100, 50)
+    );
 
     private final Config.CloudVmIaas.Aws config;
-    private final Map<Service, Map<Region, AwsClient>> clients;
+    private final Map<ClientKey, AwsClient> clients;
+    private final CallLimiter limiter;
+
+    private SdkAsyncHttpClient asyncHttpClient;
 
     public Aws(final Config.CloudVmIaas.Aws config) {
         this.config = config;
-        this.clients = new HashMap<>();
+        this.clients = new ConcurrentHashMap<>();
+
+        final var limits = config != null ? config.limits() : null;
+        this.limiter = limits == null || !limits.disabled()
+            ? new CallLimiter(PROVIDER, limits, DEFAULT_LIMITS, Aws::isThrottled)
+            : null;
+    }
+
+    /**
+     * Gets the {@link Aws} shared by all verticles of the given Vert.x instance, creating it (from the given config) if
+     * it does not yet exist.
+     */
+    public static Aws shared(final Vertx vertx, final Config.CloudVmIaas.Aws config) {
+        return vertx.sharedData()
+            .<String, Aws>getLocalMap(SHARED_DATA_MAP_NAME)
+            .computeIfAbsent(SHARED_DATA_KEY, ignored -> new Aws(config));
     }
 
     public Ec2Client ec2(final Region region) {
@@ -39,27 +107,90 @@ public class Aws {
         return (EventBridgeClient) getClient(Service.EVENT_BRIDGE, region);
     }
 
-    private AwsClient getClient(final Service service, final Region region) {
-        if (!this.clients.containsKey(service)) {
-            /*
-             * A service of this type has not yet been created
-             */
-            this.clients.put(service, new HashMap<>());
+    public Ec2AsyncClient ec2Async(final Region region) {
+        return (Ec2AsyncClient) getClient(Service.EC2_ASYNC, region);
+    }
+
+    public SqsAsyncClient sqsAsync(final Region region) {
+        return (SqsAsyncClient) getClient(Service.SQS_ASYNC, region);
+    }
+
+    public EventBridgeAsyncClient eventBridgeAsync(final Region region) {
+        return (EventBridgeAsyncClient) getClient(Service.EVENT_BRIDGE_ASYNC, region);
+    }
+
+    /**
+     * Makes a call with an asynchronous client once the limits of its region and action allow, see {@link CallLimiter}.
+     *
+     * @param action the service and action called, e.g. "ec2:DescribeInstances"
+     * @param call   makes the call
+     *
+     * @return the result of the call, completed as by {@link #toFuture(CompletableFuture)}
+     */
+    public <T> Future<T> call(final Region region, final String action, final Supplier<CompletableFuture<T>> call) {
+        return toFuture(this.limiter != null
+            ? this.limiter.submit(region.id(), action, call)
+            : call.get());
+    }
+
+    /**
+     * Bridges the result of an asynchronous client into a Vert.x {@link Future}, completed on the context of the caller
+     * (if any) rather than on a thread of the HTTP client. Failures are unwrapped from their
+     * {@link CompletionException}, leaving the underlying SDK exception.
+     */
+    public static <T> Future<T> toFuture(final CompletableFuture<T> result) {
+        final var context = Vertx.currentContext();
+        final var future = context != null
+            ? Future.fromCompletionStage(result, context)
+            : Future.fromCompletionStage(result);
+
+        return future.recover(t -> Future.failedFuture(t instanceof CompletionException && t.getCause() != null
+            ? t.getCause()
+            : t));
+    }
+
+    /**
+     * Closes every client created so far, and the HTTP client shared by the asynchronous ones.
+     */
+    @Override
+    public void close() {
+        if (this.limiter != null) {
+            this.limiter.close();
         }
 
-        final var serviceClients = this.clients.get(service);
-        if (serviceClients.containsKey(region)) {
-            /*
-             * The service/region combination has already been created -- return and exit
-             */
-            return serviceClients.get(region);
+        this.clients.values().forEach(AwsClient::close);
+        this.clients.clear();
+
+        synchronized (this) {
+            if (this.asyncHttpClient != null) {
+                this.asyncHttpClient.close();
+                this.asyncHttpClient = null;
+            }
         }
+    }
 
+    /*
+     * The SDK already retries throttled calls (with backoff) before giving up, so a throttled failure here means AWS
+     * kept throttling
+     */
+    static boolean isThrottled(final Throwable t) {
+        return t instanceof final SdkServiceException e && e.isThrottlingException();
+    }
+
+    private AwsClient getClient(final Service service, final Region region) {
         /*
-         * This service/region combination has not yet been created
+         * Each service/region combination is created exactly once, however many threads ask for it at once
          */
-        final var builder = service.clientBuilder()
-            .region(region);
+        return this.clients.computeIfAbsent(new ClientKey(service, region), this::newClient);
+    }
+
+    private AwsClient newClient(final ClientKey key) {
+        final var builder = key.service().clientBuilder()
+            .region(key.region());
+
+        if (builder instanceof final SdkAsyncClientBuilder<?, ?> asyncBuilder) {
+            asyncBuilder.httpClient(getAsyncHttpClient());
+        }
 
         final var endpoint = this.config.endpoint();
         if (!StringUtils.isBlank(endpoint)) {
@@ -92,20 +223,37 @@ public class Aws {
             builder.credentialsProvider(StaticCredentialsProvider.create(credentialsProvider));
         }
 
-        final var awsClient = (AwsClient) builder.build();
+        return (AwsClient) builder.build();
+    }
 
-        /*
-         * Cache the client for this type and region
-         */
-        this.clients.get(service).put(region, awsClient);
+    /*
+     * Created on first use, so that processes which never make an asynchronous call never start its event loop threads.
+     * Clients given an HTTP client do not close it themselves, see close().
+     */
+    private synchronized SdkAsyncHttpClient getAsyncHttpClient() {
+        if (this.asyncHttpClient == null) {
+            final var maxConcurrency = this.config.maxConcurrency() != 0
+                ? this.config.maxConcurrency()
+                : DEFAULT_MAX_CONCURRENCY;
+
+            this.asyncHttpClient = NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConcurrency)
+                .build();
+        }
+        return this.asyncHttpClient;
+    }
+
+    private record ClientKey(Service service, Region region) {
 
-        return awsClient;
     }
 
     private enum Service {
         EC2(Ec2Client::builder),
         SQS(SqsClient::builder),
         EVENT_BRIDGE(EventBridgeClient::builder),
+        EC2_ASYNC(Ec2AsyncClient::builder),
+        SQS_ASYNC(SqsAsyncClient::builder),
+        EVENT_BRIDGE_ASYNC(EventBridgeAsyncClient::builder),
         ;
 
         private final Supplier<AwsClientBuilder<?, ?>> builderSupplier;
@@ -0,0 +1,102 @@
+package com.drewmalin.vm.central.iaas.aws;
+
+import com.drewmalin.vm.central.configuration.Config;
+import com.drewmalin.vm.central.data.model.VmDTO;
+import com.drewmalin.vm.central.iaas.IaasException;
+import com.drewmalin.vm.central.iaas.IaasProvider;
+import io.vertx.core.Future;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ec2.model.ResourceType;
+import software.amazon.awssdk.services.ec2.model.RunInstancesRequest;
+import software.amazon.awssdk.services.ec2.model.Tag;
+import software.amazon.awssdk.services.ec2.model.TagSpecification;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link IaasProvider} of {@link VmDTO.Provider#AWS}: each VM is provisioned as one EC2 instance (of the image,
+ * type and region given by the "provisioning" config), and statuses are fetched from EC2 (see
+ * {@link Ec2StatusFetcher}).
+ * <p>
+ * The ID of the VM is the client token of its RunInstances call, which EC2 uses to make the call idempotent:
+ * provisioning the same VM again (e.g. after a lost reply) returns the instance already launched for it.
+ */
+public class AwsProvider
+    implements IaasProvider {
+
+    static final String TAG_VM_ID = "vm-central:vm-id";
+
+    private final Aws aws;
+    private final Config.CloudVmIaas.Aws.Provisioning provisioning;
+    private final Region region;
+    private final Ec2StatusFetcher statusFetcher;
+
+    /**
+     * @throws IllegalArgumentException if the provisioning config is missing or incomplete
+     */
+    public AwsProvider(final Aws aws, final Config.CloudVmIaas.Aws.Provisioning provisioning) {
+        Validate.isTrue(provisioning != null, "'vm.iaas.aws.provisioning' is required to provision VMs on AWS");
+        Validate.isTrue(StringUtils.isNotBlank(provisioning.region()),
+            "'vm.iaas.aws.provisioning.region' is required");
+        Validate.isTrue(StringUtils.isNotBlank(provisioning.imageId()),
+            "'vm.iaas.aws.provisioning.imageId' is required");
+        Validate.isTrue(StringUtils.isNotBlank(provisioning.instanceType()),
+            "'vm.iaas.aws.provisioning.instanceType' is required");
+
+        this.aws = aws;
+        this.provisioning = provisioning;
+        this.region = Region.of(provisioning.region());
+        this.statusFetcher = new Ec2StatusFetcher(aws, 0);
+    }
+
+    @Override
+    public Future<VmDTO> provision(final VmDTO vm) {
+        final var request = RunInstancesRequest.builder()
+            .imageId(this.provisioning.imageId())
+            .instanceType(this.provisioning.instanceType())
+            .minCount(1)
+            .maxCount(1)
+            .clientToken(vm.id())
+            .tagSpecifications(TagSpecification.builder()
+                .resourceType(ResourceType.INSTANCE)
+                .tags(Tag.builder()
+                    .key(TAG_VM_ID)
+                    .value(vm.id())
+                    .build())
+                .build())
+            .build();
+
+        return this.aws.call(this.region, "ec2:RunInstances", () -> this.aws.ec2Async(this.region)
+                .runInstances(request))
+            .recover(t -> Future.failedFuture(t instanceof IaasException
+                ? t
+                : new IaasException("Failed to run an instance for %s: %s".formatted(vm.id(), t.getMessage()),
+                    Aws.isThrottled(t))))
+            .map(response -> {
+                final var instance = response.instances().get(0);
+
+                /*
+                 * A new instance is pending, but one returned for a repeated client token may have moved on since
+                 */
+                final var status = Ec2StatusFetcher.toStatus(instance.state() != null
+                    ? instance.state().name()
+                    : null);
+
+                return VmDTO.builder(vm)
+                    .providerInstanceId(instance.instanceId())
+                    .region(this.region.id())
+                    .status(status != null
+                        ? status
+                        : VmDTO.Status.INITIALIZING)
+                    .build();
+            });
+    }
+
+    @Override
+    public Future<Map<String, VmDTO.Status>> fetch(final List<VmDTO> vms) {
+        return this.statusFetcher.fetch(vms);
+    }
+}
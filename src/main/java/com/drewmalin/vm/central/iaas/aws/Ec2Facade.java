@@ -1,26 +1,56 @@
 package com.drewmalin.vm.central.iaas.aws;
 
-import com.drewmalin.vm.central.configuration.Config;
+import io.vertx.core.Future;
 import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.ec2.Ec2Client;
-
-import java.net.URI;
-
+import software.amazon.awssdk.services.ec2.model.Instance;
+import software.amazon.awssdk.services.ec2.model.InstanceStateChange;
+import software.amazon.awssdk.services.ec2.model.Reservation;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The EC2 operations of the service, in a single region, made through the (shared, asynchronous) client of {@link Aws}.
+ * Every operation completes on the context of its caller, so may be called from an event loop, and is subject to the
+ * limits of {@link Aws#call}.
+ */
 public class Ec2Facade {
 
-    private final Ec2Client client;
+    private final Aws aws;
+    private final Region region;
 
-    public Ec2Facade(final Config.CloudVmIaas config) {
-
-        final var clientBuilder = Ec2Client.builder();
+    public Ec2Facade(final Aws aws, final Region region) {
+        this.aws = aws;
+        this.region = region;
+    }
 
-        if (config.aws() != null && config.aws().endpoint() != null) {
-            clientBuilder.endpointOverride(URI.create(config.aws().endpoint()));
+    /**
+     * Describes the given instances. Instances unknown to EC2 are omitted, as are instances terminated long enough ago
+     * for EC2 to have forgotten them.
+     */
+    public Future<List<Instance>> describeInstances(final Collection<String> instanceIds) {
+        if (instanceIds.isEmpty()) {
+            return Future.succeededFuture(List.of());
         }
 
-        this.client = clientBuilder
-            .region(Region.US_WEST_2)
-            .build();
+        return this.aws.call(this.region, "ec2:DescribeInstances", () -> this.aws.ec2Async(this.region)
+                .describeInstances(builder -> builder.instanceIds(instanceIds)))
+            .map(response -> response.reservations().stream()
+                .map(Reservation::instances)
+                .flatMap(List::stream)
+                .toList());
     }
 
+    /**
+     * Terminates the given instances.
+     */
+    public Future<List<InstanceStateChange>> terminateInstances(final Collection<String> instanceIds) {
+        if (instanceIds.isEmpty()) {
+            return Future.succeededFuture(List.of());
+        }
+
+        return this.aws.call(this.region, "ec2:TerminateInstances", () -> this.aws.ec2Async(this.region)
+                .terminateInstances(builder -> builder.instanceIds(instanceIds)))
+            .map(response -> response.terminatingInstances());
+    }
 }
@@ -0,0 +1,94 @@
+package com.drewmalin.vm.central.iaas.aws;
+
+import com.drewmalin.vm.central.data.model.VmDTO;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+import software.amazon.awssdk.services.ec2.model.InstanceStateName;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * An "EC2 Instance State-change Notification", as delivered by EventBridge to an SQS queue:
+ * <pre>
+ * {
+ *   "detail-type": "EC2 Instance State-change Notification",
+ *   "source": "aws.ec2",
+ *   "time": "2023-11-11T21:29:54Z",
+ *   "region": "us-west-2",
+ *   "detail": {
+ *     "instance-id": "i-0123456789abcdef0",
+ *     "state": "running"
+ *   }
+ * }
+ * </pre>
+ * Rules which forward only the "detail" of the event (i.e. an input path of "$.detail") are also understood, in which
+ * case neither the region nor the time are known: the region of the queue is assumed, and the time is null.
+ *
+ * @param instanceId the ID of the instance whose state changed
+ * @param region     the region hosting the instance
+ * @param status     the {@link VmDTO.Status} corresponding to the new state of the instance
+ * @param time       the time of the change, or null if unknown
+ */
+public record Ec2StateChangeEvent(String instanceId, String region, VmDTO.Status status, Instant time) {
+
+    /**
+     * Decodes the body of an SQS message.
+     *
+     * @param body          the message body
+     * @param defaultRegion the region to assume if the message does not carry one (i.e. that of the queue)
+     *
+     * @return the decoded {@link Ec2StateChangeEvent}, or null if the body is not an instance state change (or is a
+     * change to a state without a corresponding {@link VmDTO.Status})
+     */
+    public static Ec2StateChangeEvent parse(final String body, final String defaultRegion) {
+        final JsonObject json;
+        try {
+            json = new JsonObject(body);
+        }
+        catch (final DecodeException | ClassCastException e) {
+            return null;
+        }
+
+        final var detail = json.getValue("detail") instanceof final JsonObject value
+            ? value
+            : json;
+
+        if (!(detail.getValue("instance-id") instanceof final String instanceId)
+            || !(detail.getValue("state") instanceof final String state)) {
+            return null;
+        }
+
+        final var status = Ec2StatusFetcher.toStatus(InstanceStateName.fromValue(state));
+        if (status == null) {
+            return null;
+        }
+
+        final var region = json.getValue("region") instanceof final String value
+            ? value
+            : defaultRegion;
+
+        return new Ec2StateChangeEvent(instanceId, region, status, parseTime(json.getValue("time")));
+    }
+
+    /**
+     * True if this event is known to have happened after the given one: an event of unknown time is after none, while
+     * an event of known time is after any of unknown time.
+     */
+    public boolean isAfter(final Ec2StateChangeEvent other) {
+        return this.time != null && (other.time == null || this.time.isAfter(other.time));
+    }
+
+    private static Instant parseTime(final Object time) {
+        if (!(time instanceof final String value)) {
+            return null;
+        }
+
+        try {
+            return Instant.parse(value);
+        }
+        catch (final DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.drewmalin.vm.central.iaas.aws;
+
+import com.drewmalin.vm.central.data.model.VmDTO;
+import com.drewmalin.vm.central.job.VmStatusFetcher;
+import io.vertx.core.Future;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ec2.model.DescribeInstancesRequest;
+import software.amazon.awssdk.services.ec2.model.Filter;
+import software.amazon.awssdk.services.ec2.model.InstanceStateName;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A {@link VmStatusFetcher} backed by EC2. Rather than one call per VM, the VMs of each region are described in batches
+ * of up to {@link #MAX_INSTANCE_IDS_PER_CALL} instance IDs per DescribeInstances call (each paginated), so a page of
+ * 1,000 VMs in one region costs five calls rather than 1,000.
+ * <p>
+ * Regions are described concurrently, each with at most a fixed number of calls in flight at once (and every call
+ * subject to the limits of {@link Aws#call}), and the results of every region are merged into one map of statuses. A
+ * region whose calls fail is logged and its VMs left absent from the map (i.e. unchanged), so one unavailable region
+ * does not hold back the rest of the fleet.
+ * <p>
+ * VMs not hosted by AWS, or not yet provisioned (i.e. without an instance ID and region), are always absent.
+ */
+public class Ec2StatusFetcher
+    implements VmStatusFetcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Ec2StatusFetcher.class);
+
+    /*
+     * Instances are matched by an "instance-id" filter rather than by the InstanceIds parameter: a single unknown ID in
+     * the InstanceIds parameter fails the whole call, whereas a filter simply omits it. A filter takes at most 200
+     * values, and a filtered call may be paginated (at most 1,000 results per page).
+     */
+    static final int MAX_INSTANCE_IDS_PER_CALL = 200;
+    private static final int MAX_RESULTS_PER_PAGE = 1_000;
+
+    private static final int DEFAULT_REGION_CONCURRENCY = 4;
+
+    private final Aws aws;
+    private final int regionConcurrency;
+
+    /**
+     * @param aws               the (shared) {@link Aws} whose asynchronous EC2 clients to describe instances with
+     * @param regionConcurrency the most DescribeInstances calls in flight at once per region, or 0 for the default
+     */
+    public Ec2StatusFetcher(final Aws aws, final int regionConcurrency) {
+        this.aws = aws;
+        this.regionConcurrency = regionConcurrency != 0
+            ? regionConcurrency
+            : DEFAULT_REGION_CONCURRENCY;
+    }
+
+    @Override
+    public Future<Map<String, VmDTO.Status>> fetch(final List<VmDTO> vms) {
+        /*
+         * Region -> instance ID -> VM ID
+         */
+        final Map<String, Map<String, String>> regions = new HashMap<>();
+        for (final var vm : vms) {
+            if (vm.vmProvider() != VmDTO.Provider.AWS || vm.providerInstanceId() == null || vm.region() == null) {
+                continue;
+            }
+            regions.computeIfAbsent(vm.region(), ignored -> new HashMap<>())
+                .put(vm.providerInstanceId(), vm.id());
+        }
+
+        if (regions.isEmpty()) {
+            return Future.succeededFuture(Map.of());
+        }
+
+        final Map<String, VmDTO.Status> statuses = new ConcurrentHashMap<>();
+
+        final List<Future<Void>> fetches = new ArrayList<>(regions.size());
+        for (final var entry : regions.entrySet()) {
+            final var region = entry.getKey();
+
+            fetches.add(fetchRegion(Region.of(region), entry.getValue(), statuses)
+                .onFailure(t -> LOGGER.error("Failed to describe instances in region %s: %s"
+                    .formatted(region, t.getMessage()))));
+        }
+
+        return Future.join(fetches)
+            .otherwiseEmpty()
+            .map(ignored -> statuses);
+    }
+
+    /*
+     * Describes every batch of the region, from at most regionConcurrency "lanes" at once, each taking the next batch
+     * as soon as its previous one completes
+     */
+    private Future<Void> fetchRegion(final Region region,
+                                     final Map<String, String> vmIdsByInstanceId,
+                                     final Map<String, VmDTO.Status> statuses) {
+
+        final Queue<List<String>> batches = new ConcurrentLinkedQueue<>(
+            partition(List.copyOf(vmIdsByInstanceId.keySet()), MAX_INSTANCE_IDS_PER_CALL));
+
+        final var lanes = Math.min(this.regionConcurrency, batches.size());
+        final List<Future<Void>> fetches = new ArrayList<>(lanes);
+        for (var i = 0; i < lanes; i++) {
+            fetches.add(fetchBatches(region, batches, vmIdsByInstanceId, statuses));
+        }
+
+        return Future.all(fetches).mapEmpty();
+    }
+
+    private Future<Void> fetchBatches(final Region region,
+                                      final Queue<List<String>> batches,
+                                      final Map<String, String> vmIdsByInstanceId,
+                                      final Map<String, VmDTO.Status> statuses) {
+
+        final var batch = batches.poll();
+        if (batch == null) {
+            return Future.succeededFuture();
+        }
+
+        return fetchBatch(region, batch, vmIdsByInstanceId, statuses)
+            .compose(ignored -> fetchBatches(region, batches, vmIdsByInstanceId, statuses));
+    }
+
+    private Future<Void> fetchBatch(final Region region,
+                                    final List<String> instanceIds,
+                                    final Map<String, String> vmIdsByInstanceId,
+                                    final Map<String, VmDTO.Status> statuses) {
+
+        final var request = DescribeInstancesRequest.builder()
+            .filters(Filter.builder()
+                .name("instance-id")
+                .values(instanceIds)
+                .build())
+            .maxResults(MAX_RESULTS_PER_PAGE)
+            .build();
+
+        return fetchPage(region, request, vmIdsByInstanceId, statuses);
+    }
+
+    /*
+     * Each page is a call of its own, and so waits its turn within the limits of Aws
+     */
+    private Future<Void> fetchPage(final Region region,
+                                   final DescribeInstancesRequest request,
+                                   final Map<String, String> vmIdsByInstanceId,
+                                   final Map<String, VmDTO.Status> statuses) {
+
+        return this.aws.call(region, "ec2:DescribeInstances", () -> this.aws.ec2Async(region)
+                .describeInstances(request))
+            .compose(page -> {
+                page.reservations().forEach(reservation -> reservation.instances().forEach(instance -> {
+                    final var vmId = vmIdsByInstanceId.get(instance.instanceId());
+                    final var status = toStatus(instance.state().name());
+
+                    if (vmId != null && status != null) {
+                        statuses.put(vmId, status);
+                    }
+                }));
+
+                return StringUtils.isNotEmpty(page.nextToken())
+                    ? fetchPage(region, request.toBuilder().nextToken(page.nextToken()).build(), vmIdsByInstanceId,
+                        statuses)
+                    : Future.succeededFuture();
+            });
+    }
+
+    /*
+     * Null for any state unknown to this version of the SDK
+     */
+    static VmDTO.Status toStatus(final InstanceStateName state) {
+        return switch (state) {
+            case null -> null;
+            case PENDING -> VmDTO.Status.INITIALIZING;
+            case RUNNING -> VmDTO.Status.UP;
+            case SHUTTING_DOWN, TERMINATED, STOPPING, STOPPED -> VmDTO.Status.DOWN;
+            default -> null;
+        };
+    }
+
+    static <T> List<List<T>> partition(final List<T> items, final int size) {
+        final List<List<T>> partitions = new ArrayList<>((items.size() + size - 1) / size);
+        for (var from = 0; from < items.size(); from += size) {
+            partitions.add(items.subList(from, Math.min(from + size, items.size())));
+        }
+        return partitions;
+    }
+}
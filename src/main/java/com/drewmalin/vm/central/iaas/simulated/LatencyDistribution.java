@@ -0,0 +1,73 @@
+package com.drewmalin.vm.central.iaas.simulated;
+
+import com.drewmalin.vm.central.configuration.Config;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.SplittableRandom;
+
+/**
+ * A distribution of latencies, in milliseconds, parameterized by its median (so that swapping one distribution for
+ * another keeps the "typical" latency, and only changes its tail):
+ * <ul>
+ *     <li>fixed: always the median</li>
+ *     <li>uniform: anywhere between zero and twice the median</li>
+ *     <li>exponential: memoryless, with a long (but thin) tail</li>
+ *     <li>lognormal: the usual shape of service latencies, whose tail grows with sigma (default 0.5)</li>
+ * </ul>
+ * Every sample is capped by the maximum, if any.
+ */
+final class LatencyDistribution {
+
+    private static final double DEFAULT_SIGMA = 0.5;
+
+    private final Type type;
+    private final double medianMillis;
+    private final long maxMillis;
+    private final double sigma;
+
+    private LatencyDistribution(final Type type, final double medianMillis, final long maxMillis, final double sigma) {
+        this.type = type;
+        this.medianMillis = medianMillis;
+        this.maxMillis = maxMillis;
+        this.sigma = sigma;
+    }
+
+    /**
+     * @param config        the config of the distribution, or null for a fixed latency of the default
+     * @param defaultMillis the median if none is configured
+     */
+    static LatencyDistribution of(final Config.CloudVmIaas.Simulated.Latency config, final int defaultMillis) {
+        if (config == null) {
+            return new LatencyDistribution(Type.FIXED, defaultMillis, 0, 0);
+        }
+
+        final var type = StringUtils.isBlank(config.distribution())
+            ? Type.FIXED
+            : Type.valueOf(config.distribution().toUpperCase());
+
+        final var sigma = config.sigma() != 0 ? config.sigma() : DEFAULT_SIGMA;
+
+        return new LatencyDistribution(type, config.millis(), config.maxMillis(), sigma);
+    }
+
+    long sample(final SplittableRandom random) {
+        final var millis = switch (this.type) {
+            case FIXED -> this.medianMillis;
+            case UNIFORM -> random.nextDouble() * 2 * this.medianMillis;
+            case EXPONENTIAL -> -this.medianMillis * Math.log(1 - random.nextDouble()) / Math.log(2);
+            case LOGNORMAL -> this.medianMillis * Math.exp(this.sigma * random.nextGaussian());
+        };
+
+        final var sample = Math.round(millis);
+        return this.maxMillis > 0
+            ? Math.min(sample, this.maxMillis)
+            : sample;
+    }
+
+    private enum Type {
+        FIXED,
+        UNIFORM,
+        EXPONENTIAL,
+        LOGNORMAL,
+    }
+}
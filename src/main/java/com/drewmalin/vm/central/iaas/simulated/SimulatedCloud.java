@@ -0,0 +1,297 @@
+package com.drewmalin.vm.central.iaas.simulated;
+
+import com.drewmalin.vm.central.configuration.Config;
+import com.drewmalin.vm.central.data.model.VmDTO;
+import com.drewmalin.vm.central.iaas.CallLimiter;
+import com.drewmalin.vm.central.iaas.IaasException;
+import com.drewmalin.vm.central.iaas.IaasProvider;
+import com.drewmalin.vm.central.iaas.TokenBucket;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * An in-process, simulated cloud, standing in for a real {@link IaasProvider} so that the provisioning and
+ * reconciliation paths can be exercised (and load tested) at fleet scale without one. Instances live only in memory.
+ * <p>
+ * Like a real cloud, each call ("run" to provision, "describe" to fetch statuses) takes time (see
+ * {@link LatencyDistribution}), may fail, and is subject to a rate limit per region: a call beyond the limit is
+ * rejected straight away as throttled (see {@link IaasException#isThrottled()}). An instance is pending for a while
+ * after it is run ("boot"), and only appears to "describe" after a while ("visibility"), i.e. reads are eventually
+ * consistent. Waiting is done with timers, so no thread is ever held by a call in progress.
+ * <p>
+ * If limits are configured, every call is also made through a {@link CallLimiter}, just as calls to a real provider
+ * are, so that a load test exercises the client's limits and backoff against the simulated ones.
+ * <p>
+ * Every random outcome is drawn from a seed, the call and the VM (or region) it concerns, so a given seed reproduces
+ * the same instance IDs, regions, latencies and failures for each VM from run to run, however calls interleave.
+ */
+public class SimulatedCloud
+    implements IaasProvider {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SimulatedCloud.class);
+
+    private static final List<String> DEFAULT_REGIONS = List.of("us-west-2");
+
+    /*
+     * By default, provisioning takes as long as the worker used to pretend it did, and instances boot instantly
+     */
+    private static final int DEFAULT_RUN_MILLIS = 3_000;
+    private static final int DEFAULT_DESCRIBE_MILLIS = 100;
+
+    private static final int MAX_INSTANCE_IDS_PER_DESCRIBE = 200;
+
+    private final Vertx vertx;
+    private final LongSupplier nanoClock;
+    private final long seed;
+    private final List<String> regions;
+
+    private final Action run;
+    private final Action describe;
+    private final LatencyDistribution boot;
+    private final LatencyDistribution visibility;
+    private final CallLimiter limiter;
+
+    private final Map<String, Instance> instances = new ConcurrentHashMap<>();
+
+    /*
+     * Calls made so far, per action and VM (or region), so that retries draw fresh (but reproducible) outcomes
+     */
+    private final Map<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+
+    /**
+     * @param config the config of the simulation, or null for the defaults
+     */
+    public SimulatedCloud(final Vertx vertx, final Config.CloudVmIaas.Simulated config) {
+        this(vertx, config, System::nanoTime);
+    }
+
+    SimulatedCloud(final Vertx vertx, final Config.CloudVmIaas.Simulated config, final LongSupplier nanoClock) {
+        this.vertx = vertx;
+        this.nanoClock = nanoClock;
+
+        if (config == null) {
+            this.seed = 0;
+            this.regions = DEFAULT_REGIONS;
+            this.run = new Action("run", null, DEFAULT_RUN_MILLIS);
+            this.describe = new Action("describe", null, DEFAULT_DESCRIBE_MILLIS);
+            this.boot = LatencyDistribution.of(null, 0);
+            this.visibility = LatencyDistribution.of(null, 0);
+            this.limiter = null;
+            return;
+        }
+
+        this.seed = config.seed();
+        this.regions = config.regions() != null && !config.regions().isEmpty()
+            ? List.copyOf(config.regions())
+            : DEFAULT_REGIONS;
+        this.run = new Action("run", config.run(), DEFAULT_RUN_MILLIS);
+        this.describe = new Action("describe", config.describe(), DEFAULT_DESCRIBE_MILLIS);
+        this.boot = LatencyDistribution.of(config.boot(), 0);
+        this.visibility = LatencyDistribution.of(config.visibility(), 0);
+        this.limiter = config.limits() != null && !config.limits().disabled()
+            ? new CallLimiter("simulated", config.limits(), Map.of(), ignored -> false)
+            : null;
+    }
+
+    @Override
+    public Future<VmDTO> provision(final VmDTO vm) {
+        final var identity = random("identity", vm.id(), 0);
+        final var instanceId = "i-%017x".formatted(identity.nextLong() >>> 4);
+        final var region = this.regions.get(identity.nextInt(this.regions.size()));
+
+        final var random = random(this.run.name, vm.id(), nextSequence(this.run.name, vm.id()));
+
+        return call(this.run, region, random).map(ignored -> {
+            final var now = this.nanoClock.getAsLong();
+
+            /*
+             * Running the same VM again finds its existing instance
+             */
+            final var instance = this.instances.computeIfAbsent(instanceId, id -> new Instance(
+                now + TimeUnit.MILLISECONDS.toNanos(this.boot.sample(random)),
+                now + TimeUnit.MILLISECONDS.toNanos(this.visibility.sample(random))
+            ));
+
+            return VmDTO.builder(vm)
+                .providerInstanceId(instanceId)
+                .region(region)
+                .status(instance.status(now))
+                .build();
+        });
+    }
+
+    /*
+     * Describes each region in batches (one call per batch, one batch at a time), the regions concurrently. A failed
+     * call leaves the VMs of its batch absent, as does an instance not yet visible.
+     */
+    @Override
+    public Future<Map<String, VmDTO.Status>> fetch(final List<VmDTO> vms) {
+        /*
+         * Region -> instance ID -> VM ID
+         */
+        final Map<String, Map<String, String>> regions = new HashMap<>();
+        for (final var vm : vms) {
+            if (vm.providerInstanceId() == null || vm.region() == null) {
+                continue;
+            }
+            regions.computeIfAbsent(vm.region(), ignored -> new HashMap<>())
+                .put(vm.providerInstanceId(), vm.id());
+        }
+
+        final Map<String, VmDTO.Status> statuses = new ConcurrentHashMap<>();
+
+        final List<Future<Void>> fetches = new ArrayList<>(regions.size());
+        for (final var entry : regions.entrySet()) {
+            final var instanceIds = List.copyOf(entry.getValue().keySet());
+            final List<List<String>> batches = new ArrayList<>();
+            for (var from = 0; from < instanceIds.size(); from += MAX_INSTANCE_IDS_PER_DESCRIBE) {
+                final var to = Math.min(from + MAX_INSTANCE_IDS_PER_DESCRIBE, instanceIds.size());
+                batches.add(instanceIds.subList(from, to));
+            }
+
+            fetches.add(describe(entry.getKey(), batches, 0, entry.getValue(), statuses));
+        }
+
+        return Future.join(fetches)
+            .otherwiseEmpty()
+            .map(ignored -> statuses);
+    }
+
+    private Future<Void> describe(final String region,
+                                  final List<List<String>> batches,
+                                  final int index,
+                                  final Map<String, String> vmIdsByInstanceId,
+                                  final Map<String, VmDTO.Status> statuses) {
+        if (index == batches.size()) {
+            return Future.succeededFuture();
+        }
+
+        final var random = random(this.describe.name, region, nextSequence(this.describe.name, region));
+
+        return call(this.describe, region, random)
+            .onSuccess(ignored -> {
+                final var now = this.nanoClock.getAsLong();
+                for (final var instanceId : batches.get(index)) {
+                    final var instance = this.instances.get(instanceId);
+                    if (instance != null && instance.isVisible(now)) {
+                        statuses.put(vmIdsByInstanceId.get(instanceId), instance.status(now));
+                    }
+                }
+            })
+            .recover(t -> {
+                LOGGER.warn("Failed to describe instances in region %s: %s".formatted(region, t.getMessage()));
+                return Future.succeededFuture();
+            })
+            .compose(ignored -> describe(region, batches, index + 1, vmIdsByInstanceId, statuses));
+    }
+
+    private Future<Void> call(final Action action, final String region, final SplittableRandom random) {
+        if (this.limiter == null) {
+            return action.call(region, random);
+        }
+
+        final var context = Vertx.currentContext();
+        final var result = this.limiter.submit(region, action.name, () -> action.call(region, random)
+            .toCompletionStage()
+            .toCompletableFuture());
+
+        return context != null
+            ? Future.fromCompletionStage(result, context)
+            : Future.fromCompletionStage(result);
+    }
+
+    private long nextSequence(final String action, final String key) {
+        return this.sequences.computeIfAbsent(action + "/" + key, ignored -> new AtomicLong())
+            .getAndIncrement();
+    }
+
+    private SplittableRandom random(final String action, final String key, final long sequence) {
+        var hash = this.seed;
+        hash = hash * 0x9E3779B97F4A7C15L + action.hashCode();
+        hash = hash * 0x9E3779B97F4A7C15L + key.hashCode();
+        hash = hash * 0x9E3779B97F4A7C15L + sequence;
+        return new SplittableRandom(hash);
+    }
+
+    private Future<Void> after(final long millis) {
+        if (millis <= 0) {
+            return Future.succeededFuture();
+        }
+
+        final Promise<Void> promise = Promise.promise();
+        this.vertx.setTimer(millis, id -> promise.complete());
+        return promise.future();
+    }
+
+    /*
+     * A kind of call, with its own latency, failure rate and (per region) rate limit
+     */
+    private final class Action {
+
+        private final String name;
+        private final LatencyDistribution latency;
+        private final double failureRate;
+        private final double rateLimitPerSecond;
+        private final int rateLimitBurst;
+        private final Map<String, TokenBucket> rateLimits = new ConcurrentHashMap<>();
+
+        private Action(final String name,
+                       final Config.CloudVmIaas.Simulated.Action config,
+                       final int defaultMillis) {
+            this.name = name;
+            this.latency = LatencyDistribution.of(config != null ? config.latency() : null, defaultMillis);
+            this.failureRate = config != null ? config.failureRate() : 0;
+            this.rateLimitPerSecond = config != null ? config.rateLimitPerSecond() : 0;
+            this.rateLimitBurst = config != null ? config.rateLimitBurst() : 0;
+        }
+
+        /*
+         * Draws the outcome and the latency up front, always in the same order, so later draws stay reproducible
+         */
+        private Future<Void> call(final String region, final SplittableRandom random) {
+            final var failed = random.nextDouble() < this.failureRate;
+            final var latencyMillis = this.latency.sample(random);
+
+            if (this.rateLimitPerSecond > 0 && !rateLimit(region).tryAcquire()) {
+                return Future.failedFuture(new IaasException(
+                    "Rate limit exceeded for %s in %s".formatted(this.name, region), true));
+            }
+
+            return after(latencyMillis).compose(ignored -> failed
+                ? Future.failedFuture(new IaasException(
+                    "Simulated failure of %s in %s".formatted(this.name, region), false))
+                : Future.succeededFuture());
+        }
+
+        private TokenBucket rateLimit(final String region) {
+            return this.rateLimits.computeIfAbsent(region, ignored ->
+                new TokenBucket(this.rateLimitPerSecond, this.rateLimitBurst, SimulatedCloud.this.nanoClock));
+        }
+    }
+
+    private record Instance(long runningAt, long visibleAt) {
+
+        VmDTO.Status status(final long now) {
+            return now < this.runningAt
+                ? VmDTO.Status.INITIALIZING
+                : VmDTO.Status.UP;
+        }
+
+        boolean isVisible(final long now) {
+            return now >= this.visibleAt;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.drewmalin.vm.central.job;
+
+import com.drewmalin.vm.central.configuration.Config;
+import com.drewmalin.vm.central.configuration.VmCentralConfigChangeListener;
+import com.drewmalin.vm.central.context.ServiceContext;
+import com.drewmalin.vm.central.data.repository.VmRepository;
+import com.drewmalin.vm.central.iaas.aws.Aws;
+import com.drewmalin.vm.central.iaas.aws.Ec2StateChangeEvent;
+import com.drewmalin.vm.central.security.Principal;
+import com.drewmalin.vm.central.security.System;
+import com.drewmalin.vm.central.task.Tasks;
+import com.drewmalin.vm.central.task.UpdateVmStatusesByInstanceTask;
+import com.drewmalin.vm.central.utils.MetricsUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Future;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Ingests VM status changes as they happen, from an SQS queue fed "EC2 Instance State-change Notification" events by
+ * an EventBridge rule (see {@link Ec2StateChangeEvent}), rather than waiting for {@link UpdateVmStatusJob} to notice
+ * them. A change is then applied within seconds of happening, and costs a share of one SQS call rather than a share of
+ * a DescribeInstances call every period for as long as the VM is pending.
+ * <p>
+ * Each poller long-polls the queue for up to 10 messages at once, applies the whole batch with a single bulk write
+ * (only the latest event per instance counts), then deletes the batch and polls again straight away. Messages are only
+ * deleted once applied: if the write fails they become visible again after the visibility timeout of the queue, and
+ * are retried. Applying an event is idempotent, so redelivery is harmless.
+ * <p>
+ * Events may also arrive out of order across batches (or pollers), so each is applied only if it happened after the
+ * latest status change already recorded for its VM (see {@link VmRepository#putStatusesByInstance}). Events may be
+ * lost altogether, so {@link UpdateVmStatusJob} keeps running alongside this job as a (much less frequent) safety net
+ * over every provisioned VM, UP ones included.
+ */
+public class IngestVmStatusEventsJob
+    extends VmCentralConfigChangeListener
+    implements Job {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IngestVmStatusEventsJob.class);
+
+    private static final Principal PRINCIPAL = System.BACKGROUND_JOB;
+
+    /*
+     * The most messages (and longest wait) SQS allows per ReceiveMessage call
+     */
+    private static final int MAX_MESSAGES_PER_RECEIVE = 10;
+    private static final int MAX_WAIT_SECONDS = 20;
+
+    private static final int DEFAULT_POLLERS = 1;
+
+    private static final Duration BACKOFF_BASE = Duration.ofSeconds(1);
+    private static final Duration BACKOFF_MAX = Duration.ofMinutes(1);
+
+    private final ServiceContext context;
+    private final Function<List<VmRepository.InstanceStatus>, Future<Integer>> writer;
+
+    private final Counter appliedCounter;
+    private final Counter ignoredCounter;
+    private final Counter failedCounter;
+    private final Timer lagTimer;
+
+    /*
+     * Incremented on every (re)configuration: pollers of an older generation stop at their next turn, rather than
+     * having to be interrupted mid-poll
+     */
+    private int generation;
+
+    private IngestVmStatusEventsJob(final ServiceContext context,
+                                    final Function<List<VmRepository.InstanceStatus>, Future<Integer>> writer) {
+        super(context);
+
+        this.context = context;
+        this.writer = writer;
+
+        final var registry = MetricsUtils.registry();
+        this.appliedCounter = Counter.builder("vmcentral.vm.status_events")
+            .description("VM status events received from the queue, by outcome")
+            .tag("outcome", "applied")
+            .register(registry);
+        this.ignoredCounter = Counter.builder("vmcentral.vm.status_events")
+            .description("VM status events received from the queue, by outcome")
+            .tag("outcome", "ignored")
+            .register(registry);
+        this.failedCounter = Counter.builder("vmcentral.vm.status_events")
+            .description("VM status events received from the queue, by outcome")
+            .tag("outcome", "failed")
+            .register(registry);
+        this.lagTimer = Timer.builder("vmcentral.vm.status_events.lag")
+            .description("Time from a VM status change happening to it being applied")
+            .register(registry);
+    }
+
+    public static Job create(final ServiceContext ctx) {
+        return create(ctx, statuses -> Tasks
+            .updateVmStatusesByInstance(new UpdateVmStatusesByInstanceTask.Input(statuses), ctx)
+            .submit(PRINCIPAL));
+    }
+
+    /**
+     * @param writer applies each batch of statuses, returning the number of VMs changed
+     */
+    public static Job create(final ServiceContext ctx,
+                             final Function<List<VmRepository.InstanceStatus>, Future<Integer>> writer) {
+        return new IngestVmStatusEventsJob(ctx, writer);
+    }
+
+    @Override
+    public void schedule() {
+        schedule(this.context.config());
+    }
+
+    @Override
+    protected void onConfigurationChange(final Config.VmCentral config) {
+        schedule(config);
+    }
+
+    private void schedule(final Config.VmCentral config) {
+        final var generation = ++this.generation;
+
+        final var eventsConfig = config.jobVmStatusEvents();
+        if (eventsConfig == null || !eventsConfig.enabled()) {
+            // nothing to do
+            return;
+        }
+
+        final var iaasConfig = config.cloudVmIaas();
+        if (iaasConfig == null || iaasConfig.aws() == null) {
+            throw new IllegalArgumentException("Status events require 'vm.iaas.aws' config");
+        }
+
+        final var region = StringUtils.isNotBlank(eventsConfig.region())
+            ? eventsConfig.region()
+            : Region.US_WEST_2.id();
+
+        final var pollers = eventsConfig.pollers() != 0 ? eventsConfig.pollers() : DEFAULT_POLLERS;
+        final var waitSeconds = eventsConfig.waitSeconds() != 0
+            ? Math.min(eventsConfig.waitSeconds(), MAX_WAIT_SECONDS)
+            : MAX_WAIT_SECONDS;
+
+        final var poller = new Poller(
+            generation,
+            Aws.shared(this.context.vertx(), iaasConfig.aws()),
+            eventsConfig.queueUrl(),
+            Region.of(region),
+            waitSeconds
+        );
+
+        LOGGER.info("Ingesting VM status events from %s with %d poller(s)".formatted(eventsConfig.queueUrl(), pollers));
+
+        for (var i = 0; i < pollers; i++) {
+            poll(poller, 0);
+        }
+    }
+
+    private String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /*
+     * Polls once, then schedules the next poll: straight away after a success (long polling already waits for
+     * messages), or after a (jittered) exponential backoff after consecutive failures
+     */
+    private void poll(final Poller poller, final int failures) {
+        if (poller.generation() != this.generation) {
+            LOGGER.debug("%s poller of a previous configuration stopped".formatted(getName()));
+            return;
+        }
+
+        receive(poller)
+            .compose(messages -> apply(poller, messages))
+            .onComplete(ar -> {
+                if (ar.succeeded()) {
+                    poll(poller, 0);
+                    return;
+                }
+
+                final var backoff = ProvisionVmsJob.backoff(failures + 1, BACKOFF_BASE, BACKOFF_MAX);
+                LOGGER.error("Failed to ingest VM status events, retrying in %dms: %s"
+                    .formatted(backoff.toMillis(), ar.cause().getMessage()));
+
+                this.context.vertx().setTimer(backoff.toMillis(), id -> poll(poller, failures + 1));
+            });
+    }
+
+    private Future<List<Message>> receive(final Poller poller) {
+        return poller.aws().call(poller.region(), "sqs:ReceiveMessage", () -> poller.sqs()
+                .receiveMessage(builder -> builder
+                    .queueUrl(poller.queueUrl())
+                    .maxNumberOfMessages(MAX_MESSAGES_PER_RECEIVE)
+                    .waitTimeSeconds(poller.waitSeconds())
+                    .attributeNamesWithStrings(MessageSystemAttributeName.SENT_TIMESTAMP.toString())))
+            .map(response -> response.messages());
+    }
+
+    /*
+     * Applies one batch of messages with a single write, then deletes the whole batch (including any message that was
+     * not a usable event, which would otherwise be redelivered forever)
+     */
+    private Future<Void> apply(final Poller poller, final List<Message> messages) {
+        if (messages.isEmpty()) {
+            return Future.succeededFuture();
+        }
+
+        /*
+         * Region + instance ID -> latest event
+         */
+        final Map<String, Ec2StateChangeEvent> latest = new LinkedHashMap<>();
+        for (final var message : messages) {
+            final var parsed = Ec2StateChangeEvent.parse(message.body(), poller.region().id());
+            if (parsed == null) {
+                LOGGER.warn("Ignoring message %s, it is not an instance state change".formatted(message.messageId()));
+                this.ignoredCounter.increment();
+                continue;
+            }
+
+            /*
+             * Events forwarded without their envelope carry no time, so are ordered by when they were sent instead
+             */
+            final var event = parsed.time() != null
+                ? parsed
+                : new Ec2StateChangeEvent(parsed.instanceId(), parsed.region(), parsed.status(), sentTime(message));
+
+            latest.merge(event.region() + "/" + event.instanceId(), event, (existing, candidate) ->
+                existing.isAfter(candidate) ? existing : candidate);
+        }
+
+        final List<VmRepository.InstanceStatus> statuses = new ArrayList<>(latest.size());
+        for (final var event : latest.values()) {
+            statuses.add(new VmRepository.InstanceStatus(event.region(), event.instanceId(), event.status(),
+                event.time()));
+        }
+
+        return this.writer.apply(statuses)
+            .onFailure(t -> this.failedCounter.increment(latest.size()))
+            .compose(updated -> {
+                this.appliedCounter.increment(latest.size());
+                recordLag(latest.values());
+
+                LOGGER.debug("Applied %d VM status event(s), %d VM(s) changed".formatted(latest.size(), updated));
+
+                return delete(poller, messages);
+            });
+    }
+
+    /*
+     * The time the message was sent to the queue, or (should SQS not say) now
+     */
+    private static Instant sentTime(final Message message) {
+        final var sentTimestamp = message.attributes().get(MessageSystemAttributeName.SENT_TIMESTAMP);
+        if (sentTimestamp != null) {
+            try {
+                return Instant.ofEpochMilli(Long.parseLong(sentTimestamp));
+            }
+            catch (final NumberFormatException e) {
+                LOGGER.warn("Ignoring the unreadable SentTimestamp of message %s: %s"
+                    .formatted(message.messageId(), sentTimestamp));
+            }
+        }
+        return Instant.now();
+    }
+
+    private void recordLag(final Iterable<Ec2StateChangeEvent> events) {
+        final var now = Instant.now();
+        for (final var event : events) {
+            if (event.time() != null && event.time().isBefore(now)) {
+                this.lagTimer.record(Duration.between(event.time(), now));
+            }
+        }
+    }
+
+    private Future<Void> delete(final Poller poller, final List<Message> messages) {
+        final List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (var i = 0; i < messages.size(); i++) {
+            entries.add(DeleteMessageBatchRequestEntry.builder()
+                .id(Integer.toString(i))
+                .receiptHandle(messages.get(i).receiptHandle())
+                .build());
+        }
+
+        return poller.aws().call(poller.region(), "sqs:DeleteMessageBatch", () -> poller.sqs()
+                .deleteMessageBatch(builder -> builder
+                    .queueUrl(poller.queueUrl())
+                    .entries(entries)))
+            .map(response -> {
+                /*
+                 * Not worth failing the batch over: undeleted messages are redelivered, and applied again, harmlessly
+                 */
+                if (response.hasFailed() && !response.failed().isEmpty()) {
+                    LOGGER.warn("Failed to delete %d VM status event(s)".formatted(response.failed().size()));
+                }
+                return null;
+            });
+    }
+
+    private record Poller(int generation, Aws aws, String queueUrl, Region region, int waitSeconds) {
+
+        SqsAsyncClient sqs() {
+            return this.aws.sqsAsync(this.region);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.drewmalin.vm.central.job;
+
+import com.drewmalin.vm.central.configuration.Config;
+import com.drewmalin.vm.central.configuration.VmCentralConfigChangeListener;
+import com.drewmalin.vm.central.context.ServiceContext;
+import com.drewmalin.vm.central.data.datasource.PoolLimiter;
+import com.drewmalin.vm.central.data.model.VmDTO;
+import com.drewmalin.vm.central.data.repository.ProvisioningQueue;
+import com.drewmalin.vm.central.data.repository.ProvisioningQueueSql;
+import com.drewmalin.vm.central.data.repository.SqlStatement;
+import com.drewmalin.vm.central.data.repository.VmRepositorySql;
+import com.drewmalin.vm.central.utils.DurationUtils;
+import io.vertx.core.Future;
+import io.vertx.core.eventbus.DeliveryOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.drewmalin.vm.central.vertical.VmCloudWorker.EVENT_VM_CREATE;
+
+/**
+ * Drains the {@link ProvisioningQueue}, handing each claimed VM to a VmCloudWorker. Every node runs this job; claims
+ * never overlap, so the nodes share the work rather than compete for it.
+ * <p>
+ * A job is only removed from the queue once its VM has been provisioned and saved. Failed attempts are retried with
+ * (jittered) exponential backoff until the maximum number of attempts, after which the job is abandoned and the VM is
+ * marked DOWN. If this node stops mid-attempt the job is simply claimed again, by any node, once its lease expires.
+ * <p>
+ * Requires a PostgreSQL datasource: on any other nothing is enqueued (CreateVmTask hands each VM to a VmCloudWorker
+ * directly instead), so the job is not scheduled.
+ */
+public class ProvisionVmsJob
+    extends VmCentralConfigChangeListener
+    implements Job {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProvisionVmsJob.class);
+
+    private static final int DEFAULT_PERIOD_MILLIS = 1_000;
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final int DEFAULT_LEASE_MILLIS = 30_000;
+    private static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    private static final Duration BACKOFF_BASE = Duration.ofSeconds(1);
+    private static final Duration BACKOFF_MAX = Duration.ofMinutes(5);
+
+    private final ServiceContext context;
+    private final ProvisioningQueue queue;
+
+    /*
+     * Set while a run is in progress, so that a slow run is never overlapped by the next tick
+     */
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    /*
+     * Null-able for the same reasons as UpdateVmStatusJob#jobHandle
+     */
+    private Long jobHandle;
+
+    private ProvisionVmsJob(final ServiceContext context) {
+        super(context);
+
+        this.context = context;
+        this.queue = new ProvisioningQueueSql(context.sqlPool());
+    }
+
+    public static Job create(final ServiceContext ctx) {
+        return new ProvisionVmsJob(ctx);
+    }
+
+    @Override
+    public void schedule() {
+        final var config = this.context.config();
+
+        schedule(config.jobVmProvision());
+    }
+
+    @Override
+    protected void onConfigurationChange(final Config.VmCentral config) {
+        if (this.jobHandle != null) {
+            // Keep a null-able jobHandle in order to avoid canceling a worker that we do not own
+            this.context.vertx().cancelTimer(this.jobHandle);
+            this.jobHandle = null;
+        }
+
+        schedule(config.jobVmProvision());
+    }
+
+    private void schedule(final Config.VmCentral.JobVmProvision provisionConfig) {
+        /*
+         * Unlike other jobs, this one is not optional unless explicitly disabled: without it no VM is ever provisioned
+         */
+        final var config = provisionConfig != null
+            ? provisionConfig
+            : new Config.VmCentral.JobVmProvision(false, 0, 0, 0, 0);
+
+        if (config.disabled()) {
+            // nothing to do
+            return;
+        }
+
+        if (SqlStatement.Dialect.of(this.context.sqlPool()) != SqlStatement.Dialect.POSTGRES) {
+            LOGGER.info("Not scheduling %s, which requires a PostgreSQL datasource: VMs are provisioned without retries"
+                .formatted(getName()));
+            return;
+        }
+
+        final var periodMillis = config.periodMillis() != 0 ? config.periodMillis() : DEFAULT_PERIOD_MILLIS;
+        final var batchSize = config.batchSize() != 0 ? config.batchSize() : DEFAULT_BATCH_SIZE;
+        final var maxAttempts = config.maxAttempts() != 0 ? config.maxAttempts() : DEFAULT_MAX_ATTEMPTS;
+        final var lease = Duration.ofMillis(config.leaseMillis() != 0 ? config.leaseMillis() : DEFAULT_LEASE_MILLIS);
+
+        final var handle = this.context.vertx().setPeriodic(periodMillis, id -> {
+
+            if (!this.running.compareAndSet(false, true)) {
+                LOGGER.debug("%s is still running from its previous period, skipping".formatted(getName()));
+                return;
+            }
+
+            final var start = java.lang.System.currentTimeMillis();
+
+            drain(batchSize, lease, maxAttempts)
+                .onComplete(ar -> {
+                    this.running.set(false);
+
+                    if (ar.failed()) {
+                        LOGGER.error("Failed to provision VMs: %s".formatted(ar.cause().getMessage()));
+                    }
+                    else {
+                        LOGGER.debug("%s finished in %s".formatted(getName(), DurationUtils.toString(start)));
+                    }
+                });
+        });
+
+        if (this.jobHandle == null) {
+            this.jobHandle = handle;
+        }
+        else {
+            throw new IllegalStateException("Expected null job handle but found: %d".formatted(this.jobHandle));
+        }
+    }
+
+    private String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /*
+     * Claim and provision one batch at a time (the VMs of a batch being provisioned concurrently), until the queue
+     * holds nothing more that is claimable.
+     */
+    private Future<Void> drain(final int batchSize, final Duration lease, final int maxAttempts) {
+        return this.queue.claim(batchSize, lease).compose(claims -> {
+
+            if (claims.isEmpty()) {
+                return Future.succeededFuture();
+            }
+
+            LOGGER.info("Claimed %d VM(s) for provisioning".formatted(claims.size()));
+
+            final List<Future<Void>> attempts = claims.stream()
+                .map(claim -> provision(claim, lease, maxAttempts))
+                .toList();
+
+            return Future.join(attempts).compose(ignored -> {
+                if (claims.size() < batchSize) {
+                    return Future.succeededFuture();
+                }
+                return drain(batchSize, lease, maxAttempts);
+            });
+        });
+    }
+
+    /*
+     * Never fails: if even recording the outcome of an attempt fails, the job is left to be claimed again once its
+     * lease expires.
+     */
+    private Future<Void> provision(final ProvisioningQueue.Claim claim, final Duration lease, final int maxAttempts) {
+        /*
+         * A reply arriving after the lease has expired could race another claimant, so give up on it before then
+         */
+        final var options = new DeliveryOptions()
+            .setSendTimeout(lease.toMillis());
+
+        return this.context.vertx().eventBus().request(EVENT_VM_CREATE, claim.vm(), options)
+            .compose(reply -> {
+                if (!(reply.body() instanceof final VmDTO vm)) {
+                    return Future.failedFuture(new IllegalStateException("Invalid payload"));
+                }
+                return onProvisioned(claim, vm);
+            })
+            .recover(t -> onFailed(claim, t, maxAttempts))
+            .recover(t -> {
+                LOGGER.error("Failed to record provisioning of VM %s: %s".formatted(claim.vm().id(), t.getMessage()));
+                return Future.succeededFuture();
+            });
+    }
+
+    private Future<Void> onProvisioned(final ProvisioningQueue.Claim claim, final VmDTO vm) {
+        final var sqlPool = this.context.sqlPool();
+
+        return PoolLimiter.withTransaction(sqlPool, sqlConnection -> new ProvisioningQueueSql(sqlConnection)
+            .complete(claim)
+            .compose(completed -> {
+                if (!completed) {
+                    LOGGER.warn("Lease lost for VM %s, discarding its result".formatted(vm.id()));
+                    return Future.succeededFuture();
+                }
+                return new VmRepositorySql(sqlConnection).put(vm).mapEmpty();
+            }));
+    }
+
+    private Future<Void> onFailed(final ProvisioningQueue.Claim claim, final Throwable cause, final int maxAttempts) {
+        final var vm = claim.vm();
+        final var error = String.valueOf(cause.getMessage());
+
+        if (claim.attempts() < maxAttempts) {
+            final var delay = backoff(claim.attempts());
+
+            LOGGER.warn("Failed to provision VM %s (attempt %d of %d), retrying in %s: %s"
+                .formatted(vm.id(), claim.attempts(), maxAttempts, delay, error));
+
+            return this.queue.retry(claim, delay, error).mapEmpty();
+        }
+
+        LOGGER.error("Failed to provision VM %s after %d attempts, abandoning: %s"
+            .formatted(vm.id(), claim.attempts(), error));
+
+        final var sqlPool = this.context.sqlPool();
+
+        return PoolLimiter.withTransaction(sqlPool, sqlConnection -> new ProvisioningQueueSql(sqlConnection)
+            .abandon(claim, error)
+            .compose(abandoned -> {
+                if (!abandoned) {
+                    return Future.succeededFuture();
+                }
+
+                final var downVm = VmDTO.builder(vm)
+                    .status(VmDTO.Status.DOWN)
+                    .build();
+
+                return new VmRepositorySql(sqlConnection).put(downVm).mapEmpty();
+            }));
+    }
+
+    /*
+     * Exponential backoff (doubling per attempt up to a maximum), with the upper half jittered so that VMs which failed
+     * together are not all retried together. Also used by the other jobs which retry.
+     */
+    private static Duration backoff(final int attempts) {
+        return backoff(attempts, BACKOFF_BASE, BACKOFF_MAX);
+    }
+
+    static Duration backoff(final int attempts, final Duration base, final Duration max) {
+        final var exponent = Math.min(attempts - 1, 20);
+        final var millis = Math.min(max.toMillis(), base.toMillis() << exponent);
+
+        return Duration.ofMillis(millis / 2 + ThreadLocalRandom.current().nextLong(millis / 2 + 1));
+    }
+}
@@ -0,0 +1,51 @@
+package com.drewmalin.vm.central.job;
+
+import com.drewmalin.vm.central.data.model.VmDTO;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link VmStatusFetcher} which reports every provisioned VM (i.e. one with an instance ID) as
+ * {@link VmDTO.Status#UP} after a fixed delay, standing in for a round trip to a cloud provider. VMs not yet
+ * provisioned (or whose provisioning was abandoned) are left absent, just as a real provider would not know them. The
+ * delay is a timer rather than a sleep, so no thread is held while "waiting".
+ */
+public class SimulatedVmStatusFetcher
+    implements VmStatusFetcher {
+
+    private static final long DEFAULT_LATENCY_MILLIS = 1_000;
+
+    private final Vertx vertx;
+    private final long latencyMillis;
+
+    public SimulatedVmStatusFetcher(final Vertx vertx) {
+        this(vertx, DEFAULT_LATENCY_MILLIS);
+    }
+
+    public SimulatedVmStatusFetcher(final Vertx vertx, final long latencyMillis) {
+        this.vertx = vertx;
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public Future<Map<String, VmDTO.Status>> fetch(final List<VmDTO> vms) {
+        final Promise<Map<String, VmDTO.Status>> promise = Promise.promise();
+
+        this.vertx.setTimer(this.latencyMillis, id -> {
+            final Map<String, VmDTO.Status> statuses = new HashMap<>();
+            for (final var vm : vms) {
+                if (vm.providerInstanceId() != null) {
+                    statuses.put(vm.id(), VmDTO.Status.UP);
+                }
+            }
+            promise.complete(statuses);
+        });
+
+        return promise.future();
+    }
+}
@@ -3,16 +3,28 @@ package com.drewmalin.vm.central.job;
 import com.drewmalin.vm.central.configuration.VmCentralConfigChangeListener;
 import com.drewmalin.vm.central.context.ServiceContext;
 import com.drewmalin.vm.central.data.model.VmDTO;
+import com.drewmalin.vm.central.data.repository.Page;
+import com.drewmalin.vm.central.data.repository.PageRequest;
+import com.drewmalin.vm.central.iaas.IaasProviders;
+import com.drewmalin.vm.central.iaas.aws.Aws;
+import com.drewmalin.vm.central.iaas.aws.Ec2StatusFetcher;
 import com.drewmalin.vm.central.security.Principal;
 import com.drewmalin.vm.central.security.System;
 import com.drewmalin.vm.central.task.BulkUpdateVmsTask;
+import com.drewmalin.vm.central.task.GetPendingVmsTask;
+import com.drewmalin.vm.central.task.GetProvisionedVmsTask;
+import com.drewmalin.vm.central.task.Task;
 import com.drewmalin.vm.central.task.Tasks;
 import com.drewmalin.vm.central.configuration.Config;
+import com.drewmalin.vm.central.utils.DurationUtils;
+import io.vertx.core.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 
 public class UpdateVmStatusJob
     extends VmCentralConfigChangeListener
@@ -22,7 +34,21 @@ public class UpdateVmStatusJob
 
     private static final Principal PRINCIPAL = System.BACKGROUND_JOB;
 
+    private static final int DEFAULT_PAGE_SIZE = 1_000;
+    private static final int DEFAULT_FLEET_PERIOD_MILLIS = 15 * 60 * 1_000;
+
+    private static final String FETCHER_EC2 = "ec2";
+    private static final String FETCHER_IAAS = "iaas";
+
     private final ServiceContext context;
+    private final VmStatusFetcher statusFetcher;
+
+    /*
+     * Set while a run (of pending VMs, or of the whole fleet) is in progress, so that a slow run is never overlapped by
+     * the next tick. The two are independent: a long walk of the fleet never holds back pending VMs.
+     */
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicBoolean fleetRunning = new AtomicBoolean(false);
 
     /*
      * Possible vertx bug: in order to cancel this job (in case the configuration change instructs us to do so) we must
@@ -35,22 +61,48 @@ public class UpdateVmStatusJob
      * means that all works normally with the hidden vertx machinery.
      */
     private Long jobHandle;
+    private Long fleetJobHandle;
 
-    private UpdateVmStatusJob(final ServiceContext context) {
+    private UpdateVmStatusJob(final ServiceContext context, final VmStatusFetcher statusFetcher) {
         super(context);
 
         this.context = context;
+        this.statusFetcher = statusFetcher;
     }
 
     public static Job create(final ServiceContext ctx) {
-        return new UpdateVmStatusJob(ctx);
+        return create(ctx, newStatusFetcher(ctx));
+    }
+
+    public static Job create(final ServiceContext ctx, final VmStatusFetcher statusFetcher) {
+        return new UpdateVmStatusJob(ctx, statusFetcher);
+    }
+
+    /*
+     * "fetcher": "ec2" reconciles against EC2 (using the "vm.iaas" config), "iaas" against the provider of each VM (see
+     * IaasProviders), and anything else against a simulation which reports every provisioned VM UP
+     */
+    private static VmStatusFetcher newStatusFetcher(final ServiceContext ctx) {
+        final var config = ctx.config().jobVmUpdateStatus();
+        final var iaasConfig = ctx.config().cloudVmIaas();
+
+        if (config != null && FETCHER_IAAS.equalsIgnoreCase(config.fetcher())) {
+            return IaasProviders.shared(ctx.vertx(), iaasConfig);
+        }
+        if (config == null || !FETCHER_EC2.equalsIgnoreCase(config.fetcher())) {
+            return new SimulatedVmStatusFetcher(ctx.vertx());
+        }
+
+        if (iaasConfig == null || iaasConfig.aws() == null) {
+            throw new IllegalArgumentException("The '%s' fetcher requires 'vm.iaas.aws' config".formatted(FETCHER_EC2));
+        }
+
+        return new Ec2StatusFetcher(Aws.shared(ctx.vertx(), iaasConfig.aws()), config.regionConcurrency());
     }
 
     @Override
     public void schedule() {
-        final var config = this.context.config();
-
-        schedule(config.jobVmUpdateStatus());
+        schedule(this.context.config());
     }
 
     @Override
@@ -60,50 +112,139 @@ public class UpdateVmStatusJob
             this.context.vertx().cancelTimer(this.jobHandle);
             this.jobHandle = null;
         }
+        if (this.fleetJobHandle != null) {
+            this.context.vertx().cancelTimer(this.fleetJobHandle);
+            this.fleetJobHandle = null;
+        }
 
-        schedule(config.jobVmUpdateStatus());
+        schedule(config);
     }
 
-    private void schedule(final Config.VmCentral.JobVmUpdateStatus config) {
+    private void schedule(final Config.VmCentral serviceConfig) {
+        final var config = serviceConfig.jobVmUpdateStatus();
         if (config.disabled()) {
             // nothing to do
             return;
         }
 
-        final var handle = this.context.vertx().setPeriodic(config.periodMillis(), id -> {
+        final var pageSize = config.pageSize() != 0
+            ? config.pageSize()
+            : DEFAULT_PAGE_SIZE;
+
+        final var fleetPeriodMillis = config.fleetPeriodMillis() != 0
+            ? config.fleetPeriodMillis()
+            : DEFAULT_FLEET_PERIOD_MILLIS;
+
+        /*
+         * While status events are ingested (see IngestVmStatusEventsJob) this job is only a safety net for lost events,
+         * so may run far less often. An event may be lost for any provisioned VM (e.g. an UP VM which was stopped), so
+         * the safety net covers the whole provisioned fleet, not just pending VMs.
+         */
+        final var eventsConfig = serviceConfig.jobVmStatusEvents();
+        final var safetyNet = eventsConfig != null
+            && eventsConfig.enabled()
+            && eventsConfig.safetyNetPeriodMillis() != 0;
+        final var periodMillis = safetyNet
+            ? eventsConfig.safetyNetPeriodMillis()
+            : config.periodMillis();
+        final var fleetScanPeriodMillis = safetyNet
+            ? Math.min(fleetPeriodMillis, eventsConfig.safetyNetPeriodMillis())
+            : fleetPeriodMillis;
+
+        final var handle = schedule(periodMillis, this.running, "pending VMs",
+            page -> Tasks.getPendingVms(new GetPendingVmsTask.Input(page), this.context), pageSize);
+
+        final var fleetHandle = schedule(fleetScanPeriodMillis, this.fleetRunning, "provisioned VMs",
+            page -> Tasks.getProvisionedVms(new GetProvisionedVmsTask.Input(page), this.context), pageSize);
+
+        if (this.jobHandle == null && this.fleetJobHandle == null) {
+            this.jobHandle = handle;
+            this.fleetJobHandle = fleetHandle;
+        }
+        else {
+            throw new IllegalStateException("Expected null job handles but found: %d, %d"
+                .formatted(this.jobHandle, this.fleetJobHandle));
+        }
+    }
 
-            LOGGER.debug("%s is doing work".formatted(getClass().getSimpleName()));
+    /*
+     * Every tick walks each page of VMs returned by the given task, unless the previous tick is still running
+     */
+    private long schedule(final long periodMillis,
+                          final AtomicBoolean running,
+                          final String description,
+                          final Function<PageRequest, Task<Page<VmDTO>>> pages,
+                          final int pageSize) {
+
+        return this.context.vertx().setPeriodic(periodMillis, id -> {
+
+            if (!running.compareAndSet(false, true)) {
+                LOGGER.warn("%s is still running over %s from its previous period, skipping"
+                    .formatted(getName(), description));
+                return;
+            }
+
+            LOGGER.debug("%s is doing work over %s".formatted(getName(), description));
+            final var start = java.lang.System.currentTimeMillis();
+
+            updatePage(pages, PageRequest.first(pageSize))
+                .onComplete(ar -> {
+                    running.set(false);
+
+                    if (ar.failed()) {
+                        LOGGER.error("Failed to update the statuses of %s: %s"
+                            .formatted(description, ar.cause().getMessage()));
+                    }
+                    else {
+                        LOGGER.debug("%s finished %s in %s"
+                            .formatted(getName(), description, DurationUtils.toString(start)));
+                    }
+                });
+        });
+    }
+
+    private String getName() {
+        return getClass().getSimpleName();
+    }
 
-            Tasks.getAllVms(this.context).submit(PRINCIPAL).compose(vms -> {
+    /*
+     * Update a single page of VMs, then move on to the next page (if any). Every "period.millis" only pending (i.e.
+     * INITIALIZING) VMs are read, so the cost of those ticks scales with the amount of pending work rather than with
+     * the fleet size. Only every (much longer) "fleet.period.millis" is the whole provisioned fleet read, to catch VMs
+     * whose instances were stopped or terminated behind our back. Walking either one page at a time keeps the memory
+     * held by each tick bounded by the page size.
+     *
+     * Every step is asynchronous: the page is read through the pool, statuses are fetched by the (non-blocking)
+     * VmStatusFetcher, and changes are written through the pool. The event loop is only occupied for as long as it
+     * takes to compare one page of statuses.
+     */
+    private Future<Void> updatePage(final Function<PageRequest, Task<Page<VmDTO>>> pages, final PageRequest page) {
+        return pages.apply(page).submit(PRINCIPAL).compose(vms -> this.statusFetcher
+            .fetch(vms.items())
+            .compose(statuses -> {
 
                 final List<VmDTO> vmsToUpdate = new ArrayList<>();
 
-                try {
-                    // simulate background work (todo: go to aws!)
-                    Thread.sleep(1_000);
-                }
-                catch (final InterruptedException e) {
-                }
+                for (final var vm : vms.items()) {
+                    final var status = statuses.get(vm.id());
 
-                for (final var vm : vms) {
-                    if (vm.vmStatus() != VmDTO.Status.UP) {
+                    if (status != null && status != vm.vmStatus()) {
                         vmsToUpdate.add(
                             VmDTO.builder(vm)
-                                .status(VmDTO.Status.UP)
+                                .status(status)
                                 .build()
                         );
                     }
                 }
+
                 return Tasks.bulkUpdateVms(new BulkUpdateVmsTask.Input(vmsToUpdate), this.context)
                     .submit(PRINCIPAL);
-            });
-        });
-
-        if (this.jobHandle == null) {
-            this.jobHandle = handle;
-        }
-        else {
-            throw new IllegalStateException("Expected null job handle but found: %d".formatted(this.jobHandle));
-        }
+            })
+            .compose(ignored -> {
+                if (!vms.hasNext()) {
+                    return Future.succeededFuture();
+                }
+                return updatePage(pages, PageRequest.of(vms.nextCursor(), page.limit()));
+            }));
     }
 }
@@ -0,0 +1,24 @@
+package com.drewmalin.vm.central.job;
+
+import com.drewmalin.vm.central.data.model.VmDTO;
+import io.vertx.core.Future;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fetches the current, actual status of VMs from wherever they are hosted. Implementations must not block the calling
+ * (event loop) thread: any remote or blocking work belongs on an asynchronous client or a worker.
+ */
+public interface VmStatusFetcher {
+
+    /**
+     * Fetches the current status of each of the provided {@link VmDTO}s.
+     *
+     * @param vms the {@link List<VmDTO>} to fetch statuses for
+     *
+     * @return a {@link Future<Map>} of VM ID to current {@link VmDTO.Status}. VMs whose status could not be determined
+     * are absent from the map.
+     */
+    Future<Map<String, VmDTO.Status>> fetch(List<VmDTO> vms);
+}
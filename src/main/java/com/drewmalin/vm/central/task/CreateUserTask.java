@@ -6,7 +6,7 @@ import com.drewmalin.vm.central.data.model.UserDTO;
 import com.drewmalin.vm.central.data.repository.IdUtils;
 import com.drewmalin.vm.central.data.repository.UserRepository;
 import com.drewmalin.vm.central.data.repository.UserRepositorySql;
-import com.drewmalin.vm.central.http.auth.Crypto;
+import com.drewmalin.vm.central.http.auth.PasswordHasher;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.sqlclient.Pool;
@@ -18,12 +18,14 @@ public class CreateUserTask
 
     private final Input input;
     private final UserRepository userRepository;
+    private final PasswordHasher passwordHasher;
 
-    public CreateUserTask(final Input input, final Pool sqlPool, final Vertx vertx) {
+    public CreateUserTask(final Input input, final PasswordHasher passwordHasher, final Pool sqlPool, final Vertx vertx) {
         super(sqlPool, vertx);
 
         this.input = input;
         this.userRepository = new UserRepositorySql(getSqlPool());
+        this.passwordHasher = passwordHasher;
     }
 
     @Override
@@ -32,19 +34,20 @@ public class CreateUserTask
             throw new UnauthorizedException("user %s is unauthorized to perform 'userRepository.insertIdentity'".formatted(principal.id()));
         }
 
-        final var tempCreds = Crypto.encode(this.input.password());
+        return this.passwordHasher.encode(this.input.password())
+            .compose(tempCreds -> {
+                final var newUser = UserDTO.builder()
+                    .id(ID_PREFIX + IdUtils.nextId())
+                    .username(this.input.username())
+                    .firstName(this.input.firstName())
+                    .lastName(this.input.lastName())
+                    .hashedPassword(tempCreds.hash())
+                    .salt(tempCreds.salt())
+                    .roleId(this.input.role.getId())
+                    .build();
 
-        final var newUser = UserDTO.builder()
-            .id(ID_PREFIX + IdUtils.nextId())
-            .username(this.input.username())
-            .firstName(this.input.firstName())
-            .lastName(this.input.lastName())
-            .hashedPassword(tempCreds.hash())
-            .salt(tempCreds.salt())
-            .roleId(this.input.role.getId())
-            .build();
-
-        return this.userRepository.add(newUser, this.input.failOnDuplicate);
+                return this.userRepository.add(newUser, this.input.failOnDuplicate);
+            });
     }
 
     private boolean isAuthorized(final Principal principal) {
@@ -1,7 +1,10 @@
 package com.drewmalin.vm.central.task;
 
+import com.drewmalin.vm.central.data.datasource.PoolLimiter;
 import com.drewmalin.vm.central.data.model.VmDTO;
 import com.drewmalin.vm.central.data.repository.IdUtils;
+import com.drewmalin.vm.central.data.repository.ProvisioningQueueSql;
+import com.drewmalin.vm.central.data.repository.SqlStatement;
 import com.drewmalin.vm.central.data.repository.VmRepositorySql;
 import com.drewmalin.vm.central.security.Principal;
 import com.drewmalin.vm.central.security.Role;
@@ -20,13 +23,11 @@ public class CreateVmTask
     private static final String ID_PREFIX = "VM:";
 
     private final Input input;
-    private final VmRepositorySql vmRepository;
 
     public CreateVmTask(final Input input, final Pool sqlPool, final Vertx vertx) {
         super(sqlPool, vertx);
 
         this.input = input;
-        this.vmRepository = new VmRepositorySql(getSqlPool());
     }
 
     @Override
@@ -45,31 +46,40 @@ public class CreateVmTask
                 .owner(user)
                 .build();
 
-            return this.vmRepository
+            /*
+             * Claiming provisioning jobs requires PostgreSQL (see ProvisionVmsJob), so on any other datasource the VM
+             * is handed to a VmCloudWorker directly, as a single request which is not retried
+             */
+            if (SqlStatement.Dialect.of(getSqlPool()) != SqlStatement.Dialect.POSTGRES) {
+                final var vmRepository = new VmRepositorySql(getSqlPool());
+
+                return vmRepository
+                    .add(newVm, true)
+                    .onSuccess(vm -> requestInstantiation(vmRepository, vm));
+            }
+
+            /*
+             * The VM and its provisioning job are written in one transaction, so that every VM is guaranteed to be
+             * provisioned (see ProvisionVmsJob) however and whenever this node stops
+             */
+            return PoolLimiter.withTransaction(getSqlPool(), sqlConnection -> new VmRepositorySql(sqlConnection)
                 .add(newVm, true)
-                .onSuccess(this::requestInstantiation);
+                .compose(vm -> new ProvisioningQueueSql(sqlConnection)
+                    .enqueue(vm)
+                    .map(vm)));
         });
     }
 
-    private void requestInstantiation(final VmDTO vm) {
+    private void requestInstantiation(final VmRepositorySql vmRepository, final VmDTO vm) {
 
-        getVertx().eventBus().request(EVENT_VM_CREATE, vm, responseMessage -> {
-
-            if (!responseMessage.succeeded()) {
-                LOGGER.error("Failed to create VM");
-                return;
-            }
-
-            if (!(responseMessage.result().body() instanceof VmDTO responseVm)) {
-                LOGGER.error("Invalid payload");
-                return;
-            }
-
-            this.vmRepository.put(responseVm)
-                .onSuccess(updatedVm -> {
-                    LOGGER.info("yay");
-                });
-        });
+        getVertx().eventBus().request(EVENT_VM_CREATE, vm)
+            .compose(reply -> {
+                if (!(reply.body() instanceof final VmDTO responseVm)) {
+                    return Future.failedFuture(new IllegalStateException("Invalid payload"));
+                }
+                return vmRepository.put(responseVm);
+            })
+            .onFailure(t -> LOGGER.error("Failed to provision VM %s: %s".formatted(vm.id(), t.getMessage())));
     }
 
     private boolean isAuthorized(final Principal principal) {
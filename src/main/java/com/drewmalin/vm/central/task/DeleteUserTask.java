@@ -2,7 +2,6 @@ package com.drewmalin.vm.central.task;
 
 import com.drewmalin.vm.central.security.Role;
 import com.drewmalin.vm.central.data.repository.UserRepository;
-import com.drewmalin.vm.central.data.repository.UserRepositorySql;
 import com.drewmalin.vm.central.security.Principal;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
@@ -18,7 +17,7 @@ public class DeleteUserTask
         super(sqlPool, vertx);
 
         this.input = input;
-        this.userRepository = new UserRepositorySql(getSqlPool());
+        this.userRepository = getUserRepository(); // cached, see Task
     }
 
     @Override
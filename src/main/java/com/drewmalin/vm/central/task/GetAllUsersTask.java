@@ -1,5 +1,7 @@
 package com.drewmalin.vm.central.task;
 
+import com.drewmalin.vm.central.data.repository.Page;
+import com.drewmalin.vm.central.data.repository.PageRequest;
 import com.drewmalin.vm.central.security.Principal;
 import com.drewmalin.vm.central.security.Role;
 import com.drewmalin.vm.central.data.model.UserDTO;
@@ -9,29 +11,39 @@ import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.sqlclient.Pool;
 
-import java.util.List;
-
 public class GetAllUsersTask
-    extends Task<List<UserDTO>> {
+    extends Task<Page<UserDTO>> {
 
+    private final Input input;
     private final UserRepository userRepository;
 
-    public GetAllUsersTask(final Pool sqlPool, final Vertx vertx) {
+    public GetAllUsersTask(final Input input, final Pool sqlPool, final Vertx vertx) {
         super(sqlPool, vertx);
+
+        this.input = input;
         this.userRepository = new UserRepositorySql(getSqlPool());
     }
 
     @Override
-    public Future<List<UserDTO>> onSubmit(final Principal principal) {
+    public Future<Page<UserDTO>> onSubmit(final Principal principal) {
         if (!isAuthorized(principal)) {
             throw new UnauthorizedException("user %s is unauthorized to perform 'userRepository.selectAll'".formatted(principal.id()));
         }
 
-        return this.userRepository.getAll();
+        return this.userRepository.getAll(this.input.page());
     }
 
     private boolean isAuthorized(final Principal principal) {
         // Admin only!
         return principal.role().equals(Role.ADMIN);
     }
+
+    /**
+     * Input for the {@link GetAllUsersTask}
+     *
+     * @param page the {@link PageRequest} identifying the page of users to return
+     */
+    public record Input(PageRequest page) {
+
+    }
 }
@@ -1,5 +1,7 @@
 package com.drewmalin.vm.central.task;
 
+import com.drewmalin.vm.central.data.repository.Page;
+import com.drewmalin.vm.central.data.repository.PageRequest;
 import com.drewmalin.vm.central.security.Role;
 import com.drewmalin.vm.central.data.model.VmDTO;
 import com.drewmalin.vm.central.data.repository.VmRepositorySql;
@@ -8,37 +10,36 @@ import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.sqlclient.Pool;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 public class GetAllVmsTask
-    extends Task<List<VmDTO>> {
+    extends Task<Page<VmDTO>> {
 
+    private final Input input;
     private final VmRepositorySql vmRepository;
 
-    public GetAllVmsTask(final Pool sqlPool, final Vertx vertx) {
+    public GetAllVmsTask(final Input input, final Pool sqlPool, final Vertx vertx) {
         super(sqlPool, vertx);
+
+        this.input = input;
         this.vmRepository = new VmRepositorySql(getSqlPool());
     }
 
     @Override
-    public Future<List<VmDTO>> onSubmit(final Principal principal) {
-        return this.vmRepository.getAll().map(allVms -> {
-
-            return allVms.stream()
-                .filter(vm -> isAuthorized(vm, principal))
-                .collect(Collectors.toList());
-        });
-    }
-
-    private boolean isAuthorized(final VmDTO vm, final Principal principal) {
+    public Future<Page<VmDTO>> onSubmit(final Principal principal) {
         if (principal.role().equals(Role.ADMIN)) {
-            return true;
+            // Admin can see everything
+            return this.vmRepository.getAll(this.input.page());
         }
-        return vm.owner().id().equals(principal.id());
+
+        // Not an admin! can only see their own VMs, so let the database do the filtering
+        return this.vmRepository.getAllByOwner(principal.id(), this.input.page());
     }
 
-    public record Input(String provider) {
+    /**
+     * Input for the {@link GetAllVmsTask}
+     *
+     * @param page the {@link PageRequest} identifying the page of VMs to return
+     */
+    public record Input(PageRequest page) {
 
     }
 }
@@ -0,0 +1,48 @@
+package com.drewmalin.vm.central.task;
+
+import com.drewmalin.vm.central.data.model.VmDTO;
+import com.drewmalin.vm.central.data.repository.Page;
+import com.drewmalin.vm.central.data.repository.PageRequest;
+import com.drewmalin.vm.central.data.repository.VmRepositorySql;
+import com.drewmalin.vm.central.security.Principal;
+import com.drewmalin.vm.central.security.Role;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.sqlclient.Pool;
+
+public class GetProvisionedVmsTask
+    extends Task<Page<VmDTO>> {
+
+    private final Input input;
+    private final VmRepositorySql vmRepository;
+
+    public GetProvisionedVmsTask(final Input input, final Pool sqlPool, final Vertx vertx) {
+        super(sqlPool, vertx);
+
+        this.input = input;
+        this.vmRepository = new VmRepositorySql(getSqlPool());
+    }
+
+    @Override
+    public Future<Page<VmDTO>> onSubmit(final Principal principal) {
+        if (!isAuthorized(principal)) {
+            throw new UnauthorizedException("principal %s is unauthorized to perform 'vmRepository.getProvisioned'"
+                .formatted(principal.id()));
+        }
+
+        return this.vmRepository.getProvisioned(this.input.page());
+    }
+
+    private boolean isAuthorized(final Principal principal) {
+        return principal.role().equals(Role.ADMIN);
+    }
+
+    /**
+     * Input for the {@link GetProvisionedVmsTask}
+     *
+     * @param page the {@link PageRequest} identifying the page of provisioned VMs to return
+     */
+    public record Input(PageRequest page) {
+
+    }
+}
@@ -4,7 +4,6 @@ import com.drewmalin.vm.central.security.Principal;
 import com.drewmalin.vm.central.security.Role;
 import com.drewmalin.vm.central.data.model.UserDTO;
 import com.drewmalin.vm.central.data.repository.UserRepository;
-import com.drewmalin.vm.central.data.repository.UserRepositorySql;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.sqlclient.Pool;
@@ -19,7 +18,7 @@ public class GetUserTask
         super(sqlPool, vertx);
 
         this.input = input;
-        this.userRepository = new UserRepositorySql(getSqlPool());
+        this.userRepository = getUserRepository(); // cached, see Task
     }
 
     @Override
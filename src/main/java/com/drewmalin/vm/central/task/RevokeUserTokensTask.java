@@ -0,0 +1,61 @@
+package com.drewmalin.vm.central.task;
+
+import com.drewmalin.vm.central.security.Principal;
+import com.drewmalin.vm.central.security.Role;
+import com.drewmalin.vm.central.data.model.UserDTO;
+import com.drewmalin.vm.central.data.repository.UserRepository;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.sqlclient.Pool;
+
+/**
+ * Revokes all outstanding refresh tokens of a user (i.e. signs the user out everywhere, once the user's current access
+ * tokens expire), see {@link UserRepository#revokeTokens(String)}.
+ */
+public class RevokeUserTokensTask
+    extends Task<UserDTO> {
+
+    private final Input input;
+    private final UserRepository userRepository;
+
+    public RevokeUserTokensTask(final Input input, final Pool sqlPool, final Vertx vertx) {
+        super(sqlPool, vertx);
+
+        this.input = input;
+        this.userRepository = getUserRepository(); // cached, see Task
+    }
+
+    @Override
+    public Future<UserDTO> onSubmit(final Principal principal) {
+
+        if (!isAuthorized(this.input, principal)) {
+            throw new UnauthorizedException("user %s is unauthorized to perform 'userRepository.revokeTokens'".formatted(principal.id()));
+        }
+
+        return this.userRepository.revokeTokens(this.input.userId());
+    }
+
+    private boolean isAuthorized(final Input input, final Principal principal) {
+        if (principal.role().equals(Role.ADMIN)) {
+            // Admin can do whatever they want
+            return true;
+        }
+
+        // Not an admin! can only revoke their own tokens
+        final var processingUserId = principal.id();
+        if (processingUserId.equals(input.userId())) {
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Input for the {@link RevokeUserTokensTask}
+     *
+     * @param userId the ID of the user whose tokens are revoked
+     */
+    public record Input(String userId) {
+
+    }
+}
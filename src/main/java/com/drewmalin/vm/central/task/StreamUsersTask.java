@@ -0,0 +1,51 @@
+package com.drewmalin.vm.central.task;
+
+import com.drewmalin.vm.central.data.model.UserDTO;
+import com.drewmalin.vm.central.data.repository.UserRepository;
+import com.drewmalin.vm.central.data.repository.UserRepositorySql;
+import com.drewmalin.vm.central.security.Principal;
+import com.drewmalin.vm.central.security.Role;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.sqlclient.Pool;
+
+import java.util.function.Function;
+
+public class StreamUsersTask
+    extends Task<Void> {
+
+    private final Input input;
+    private final UserRepository userRepository;
+
+    public StreamUsersTask(final Input input, final Pool sqlPool, final Vertx vertx) {
+        super(sqlPool, vertx);
+
+        this.input = input;
+        this.userRepository = new UserRepositorySql(getSqlPool());
+    }
+
+    @Override
+    public Future<Void> onSubmit(final Principal principal) {
+        if (!isAuthorized(principal)) {
+            throw new UnauthorizedException("user %s is unauthorized to perform 'userRepository.stream'".formatted(principal.id()));
+        }
+
+        return this.userRepository.stream(this.input.consumer());
+    }
+
+    private boolean isAuthorized(final Principal principal) {
+        // Admin only!
+        return principal.role().equals(Role.ADMIN);
+    }
+
+    /**
+     * Input for the {@link StreamUsersTask}
+     *
+     * @param consumer a function which consumes the {@link ReadStream<UserDTO>} of users, returning a
+     *                 {@link Future<Void>} which completes once the consumer is finished with the stream
+     */
+    public record Input(Function<ReadStream<UserDTO>, Future<Void>> consumer) {
+
+    }
+}
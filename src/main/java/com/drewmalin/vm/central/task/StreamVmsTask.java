@@ -0,0 +1,47 @@
+package com.drewmalin.vm.central.task;
+
+import com.drewmalin.vm.central.data.model.VmDTO;
+import com.drewmalin.vm.central.data.repository.VmRepositorySql;
+import com.drewmalin.vm.central.security.Principal;
+import com.drewmalin.vm.central.security.Role;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.sqlclient.Pool;
+
+import java.util.function.Function;
+
+public class StreamVmsTask
+    extends Task<Void> {
+
+    private final Input input;
+    private final VmRepositorySql vmRepository;
+
+    public StreamVmsTask(final Input input, final Pool sqlPool, final Vertx vertx) {
+        super(sqlPool, vertx);
+
+        this.input = input;
+        this.vmRepository = new VmRepositorySql(getSqlPool());
+    }
+
+    @Override
+    public Future<Void> onSubmit(final Principal principal) {
+        if (principal.role().equals(Role.ADMIN)) {
+            // Admin can see everything
+            return this.vmRepository.stream(this.input.consumer());
+        }
+
+        // Not an admin! can only see their own VMs, so let the database do the filtering
+        return this.vmRepository.streamByOwner(principal.id(), this.input.consumer());
+    }
+
+    /**
+     * Input for the {@link StreamVmsTask}
+     *
+     * @param consumer a function which consumes the {@link ReadStream<VmDTO>} of VMs visible to the principal,
+     *                 returning a {@link Future<Void>} which completes once the consumer is finished with the stream
+     */
+    public record Input(Function<ReadStream<VmDTO>, Future<Void>> consumer) {
+
+    }
+}
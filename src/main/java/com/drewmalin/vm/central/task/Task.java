@@ -2,8 +2,12 @@ package com.drewmalin.vm.central.task;
 
 import com.drewmalin.vm.central.security.Principal;
 import com.drewmalin.vm.central.data.model.UserDTO;
+import com.drewmalin.vm.central.data.repository.CachingUserRepository;
+import com.drewmalin.vm.central.data.repository.UserCache;
 import com.drewmalin.vm.central.data.repository.UserRepository;
 import com.drewmalin.vm.central.data.repository.UserRepositorySql;
+import com.drewmalin.vm.central.http.auth.AuthProvider;
+import io.micrometer.core.instrument.Timer;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 import io.vertx.ext.web.RoutingContext;
@@ -11,26 +15,39 @@ import io.vertx.sqlclient.Pool;
 
 public abstract class Task<T> {
 
-    private static final String CTX_USER_ID = "userId";
+    private static final String CTX_USER_ID = AuthProvider.CLAIM_USER_ID;
 
     private final Pool sqlPool;
     private final Vertx vertx;
-    private final UserRepositorySql userRepository;
+    private final UserRepository userRepository;
 
     Task(final Pool sqlPool, final Vertx vertx) {
         this.sqlPool = sqlPool;
         this.vertx = vertx;
 
-        this.userRepository = new UserRepositorySql(this.sqlPool);
+        /*
+         * Every authenticated request resolves its user (see submit(RoutingContext)), so users are read through the
+         * shared cache
+         */
+        this.userRepository = new CachingUserRepository(
+            new UserRepositorySql(this.sqlPool),
+            UserCache.shared(this.vertx)
+        );
     }
 
     /**
      * Submits this task for processing using a {@link RoutingContext} to finalize the resultant {@link Future}.
      */
     public Future<T> submit(final RoutingContext ctx) {
-        return this.userRepository
-            .get(ctx.user().get(CTX_USER_ID))
-            .map(UserDTO::toPrincipal)
+        /*
+         * The principal is built straight from the claims of the (already verified) access token. Only tokens issued
+         * before roles were signed into them require the user to be looked up.
+         */
+        return Future.succeededFuture(ctx.user())
+            .map(AuthProvider::toPrincipal)
+            .compose(principal -> principal.isPresent()
+                ? Future.succeededFuture(principal.get())
+                : this.userRepository.get(ctx.user().get(CTX_USER_ID)).map(UserDTO::toPrincipal))
             .compose(this::submit)
             .onFailure(ctx::fail);
     }
@@ -40,7 +57,20 @@ public abstract class Task<T> {
      * this skips any fetching of the user from the database, so can be used to circumvent security!
      */
     public Future<T> submit(final Principal principal) {
-        return onSubmit(principal);
+        /*
+         * Every submission (by a user or otherwise) is timed and its outcome recorded, see TaskMetrics
+         */
+        final var sample = Timer.start();
+
+        Future<T> result;
+        try {
+            result = onSubmit(principal);
+        }
+        catch (final RuntimeException e) {
+            result = Future.failedFuture(e);
+        }
+
+        return result.onComplete(ar -> TaskMetrics.record(sample, this, principal, ar.cause()));
     }
 
     public abstract Future<T> onSubmit(Principal principal);
@@ -0,0 +1,91 @@
+package com.drewmalin.vm.central.task;
+
+import com.drewmalin.vm.central.security.Principal;
+import com.drewmalin.vm.central.utils.MetricsUtils;
+import io.micrometer.core.instrument.Timer;
+import io.vertx.ext.web.handler.HttpException;
+import io.vertx.ext.web.validation.BadRequestException;
+
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Records the latency and outcome of every {@link Task}, as the timer "vmcentral.task" tagged by:
+ * <ul>
+ *     <li>task: the simple name of the task class, e.g. "CreateVmTask"</li>
+ *     <li>role: the role of the submitting principal, e.g. "user"</li>
+ *     <li>outcome: one of {@link Outcome}</li>
+ * </ul>
+ * A timer also counts what it times, so the number of (e.g.) unauthorized submissions of a task is the count of its
+ * timer with outcome "unauthorized" (vmcentral_task_seconds_count on /metrics).
+ */
+final class TaskMetrics {
+
+    private static final String METER_NAME = "vmcentral.task";
+
+    private TaskMetrics() {
+
+    }
+
+    /**
+     * Records the given submission of a task as complete.
+     *
+     * @param sample    the sample started when the task was submitted
+     * @param task      the task
+     * @param principal the principal the task was submitted by
+     * @param failure   the cause of failure, or null if the task succeeded
+     */
+    static void record(final Timer.Sample sample,
+                       final Task<?> task,
+                       final Principal principal,
+                       final Throwable failure) {
+
+        final var timer = Timer.builder(METER_NAME)
+            .description("Time taken to complete a task, by task, role of the submitting principal and outcome")
+            .tag("task", task.getClass().getSimpleName())
+            .tag("role", principal.role().name().toLowerCase(Locale.ROOT))
+            .tag("outcome", Outcome.of(failure).tag)
+            .register(MetricsUtils.registry());
+
+        sample.stop(timer);
+    }
+
+    /*
+     * Mirrors the mapping of failures to HTTP statuses made by ResponseUtils.error
+     */
+    enum Outcome {
+        SUCCESS("success"),
+        BAD_REQUEST("bad_request"),
+        UNAUTHORIZED("unauthorized"),
+        NOT_FOUND("not_found"),
+        ERROR("error"),
+        ;
+
+        private final String tag;
+
+        Outcome(final String tag) {
+            this.tag = tag;
+        }
+
+        static Outcome of(final Throwable failure) {
+            return switch (failure) {
+                case null -> SUCCESS;
+                case BadRequestException e -> BAD_REQUEST;
+                case IllegalArgumentException e -> BAD_REQUEST;
+                case UnauthorizedException e -> UNAUTHORIZED;
+                case NoSuchElementException e -> NOT_FOUND;
+                case HttpException e -> of(e.getStatusCode());
+                default -> ERROR;
+            };
+        }
+
+        private static Outcome of(final int status) {
+            return switch (status) {
+                case 400 -> BAD_REQUEST;
+                case 401, 403 -> UNAUTHORIZED;
+                case 404 -> NOT_FOUND;
+                default -> ERROR;
+            };
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.drewmalin.vm.central.task;
 import com.drewmalin.vm.central.context.ServiceContext;
 import com.drewmalin.vm.central.data.model.UserDTO;
 import com.drewmalin.vm.central.data.model.VmDTO;
+import com.drewmalin.vm.central.data.repository.Page;
+import com.drewmalin.vm.central.http.auth.PasswordHasher;
 import io.vertx.core.Vertx;
 import io.vertx.sqlclient.Pool;
 import org.slf4j.Logger;
@@ -22,27 +24,50 @@ public class Tasks {
         return new GetUserTask(input, context.sqlPool(), context.vertx());
     }
 
-    public static Task<List<UserDTO>> getAllUsers(final ServiceContext context) {
-        return new GetAllUsersTask(context.sqlPool(), context.vertx());
+    public static Task<Page<UserDTO>> getAllUsers(final GetAllUsersTask.Input input, final ServiceContext context) {
+        return new GetAllUsersTask(input, context.sqlPool(), context.vertx());
     }
 
     public static Task<UserDTO> createUser(final CreateUserTask.Input input, final ServiceContext context) {
-        return createUser(input, context.sqlPool(), context.vertx());
+        final var passwordHasher = PasswordHasher.shared(context.vertx(), context.config());
+        return createUser(input, passwordHasher, context.sqlPool(), context.vertx());
     }
 
-    public static Task<UserDTO> createUser(final CreateUserTask.Input input, final Pool sqlPool, final Vertx vertx) {
-        return new CreateUserTask(input, sqlPool, vertx);
+    public static Task<UserDTO> createUser(final CreateUserTask.Input input,
+                                           final PasswordHasher passwordHasher,
+                                           final Pool sqlPool,
+                                           final Vertx vertx) {
+        return new CreateUserTask(input, passwordHasher, sqlPool, vertx);
     }
 
     public static Task<Void> deleteUser(final DeleteUserTask.Input input, final ServiceContext context) {
         return new DeleteUserTask(input, context.sqlPool(), context.vertx());
     }
 
-    public static Task<List<VmDTO>> getAllVms(final ServiceContext context) {
-        return new GetAllVmsTask(context.sqlPool(), context.vertx());
+    public static Task<UserDTO> revokeUserTokens(final RevokeUserTokensTask.Input input,
+                                                 final ServiceContext context) {
+        return new RevokeUserTokensTask(input, context.sqlPool(), context.vertx());
+    }
+
+    public static Task<Page<VmDTO>> getAllVms(final GetAllVmsTask.Input input, final ServiceContext context) {
+        return new GetAllVmsTask(input, context.sqlPool(), context.vertx());
+    }
+
+    public static Task<Page<VmDTO>> getPendingVms(final GetPendingVmsTask.Input input, final ServiceContext context) {
+        return new GetPendingVmsTask(input, context.sqlPool(), context.vertx());
+    }
+
+    public static Task<Page<VmDTO>> getProvisionedVms(final GetProvisionedVmsTask.Input input,
+                                                      final ServiceContext context) {
+        return new GetProvisionedVmsTask(input, context.sqlPool(), context.vertx());
     }
 
     public static Task<List<VmDTO>> bulkUpdateVms(final BulkUpdateVmsTask.Input input, final ServiceContext context) {
         return new BulkUpdateVmsTask(input, context.sqlPool(), context.vertx());
     }
+
+    public static Task<Integer> updateVmStatusesByInstance(final UpdateVmStatusesByInstanceTask.Input input,
+                                                           final ServiceContext context) {
+        return new UpdateVmStatusesByInstanceTask(input, context.sqlPool(), context.vertx());
+    }
 }
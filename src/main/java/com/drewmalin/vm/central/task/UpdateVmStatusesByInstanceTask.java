@@ -0,0 +1,47 @@
+package com.drewmalin.vm.central.task;
+
+import com.drewmalin.vm.central.data.repository.VmRepository;
+import com.drewmalin.vm.central.data.repository.VmRepositorySql;
+import com.drewmalin.vm.central.security.Principal;
+import com.drewmalin.vm.central.security.Role;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.sqlclient.Pool;
+
+import java.util.List;
+
+public class UpdateVmStatusesByInstanceTask
+    extends Task<Integer> {
+
+    private final Input input;
+    private final VmRepositorySql vmRepository;
+
+    UpdateVmStatusesByInstanceTask(final Input input, final Pool sqlPool, final Vertx vertx) {
+        super(sqlPool, vertx);
+
+        this.input = input;
+        this.vmRepository = new VmRepositorySql(getSqlPool());
+    }
+
+    @Override
+    public Future<Integer> onSubmit(final Principal principal) {
+        if (!isAuthorized(principal)) {
+            throw new UnauthorizedException("principal %s is unauthorized to perform 'vmRepository.putStatusesByInstance'".formatted(principal.id()));
+        }
+
+        return this.vmRepository.putStatusesByInstance(this.input.statuses());
+    }
+
+    private boolean isAuthorized(final Principal principal) {
+        return principal.role().equals(Role.ADMIN);
+    }
+
+    /**
+     * Input for the {@link UpdateVmStatusesByInstanceTask}
+     *
+     * @param statuses the {@link List<VmRepository.InstanceStatus>} to apply, at most one per instance
+     */
+    public record Input(List<VmRepository.InstanceStatus> statuses) {
+
+    }
+}
@@ -0,0 +1,58 @@
+package com.drewmalin.vm.central.utils;
+
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Vertx;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how late the event loop of the calling context runs a timer, relative to when the timer was due. Anything
+ * occupying that event loop (blocking calls, long synchronous computation) shows up directly as lag, recorded to the
+ * "vmcentral.eventloop.lag" timer.
+ * <p>
+ * The probe must be started from the context (i.e. the verticle) whose event loop should be measured.
+ */
+public class EventLoopLagProbe {
+
+    private static final long INTERVAL_MILLIS = 100;
+
+    private final Vertx vertx;
+    private final Timer lagTimer;
+
+    private volatile boolean running;
+    private long timerId;
+
+    public EventLoopLagProbe(final Vertx vertx, final String name) {
+        this.vertx = vertx;
+        this.lagTimer = Timer.builder("vmcentral.eventloop.lag")
+            .description("Delay between when an event loop timer was due and when it actually ran")
+            .tag("verticle", name)
+            .register(MetricsUtils.registry());
+    }
+
+    public void start() {
+        this.running = true;
+        scheduleNext();
+    }
+
+    public void stop() {
+        this.running = false;
+        this.vertx.cancelTimer(this.timerId);
+    }
+
+    /*
+     * A chain of one-shot timers (rather than a periodic one) so that each measurement is relative to its own due time
+     */
+    private void scheduleNext() {
+        if (!this.running) {
+            return;
+        }
+
+        final var due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(INTERVAL_MILLIS);
+
+        this.timerId = this.vertx.setTimer(INTERVAL_MILLIS, id -> {
+            this.lagTimer.record(Math.max(0, System.nanoTime() - due), TimeUnit.NANOSECONDS);
+            scheduleNext();
+        });
+    }
+}
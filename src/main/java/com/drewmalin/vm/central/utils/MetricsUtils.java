@@ -0,0 +1,23 @@
+package com.drewmalin.vm.central.utils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.vertx.micrometer.backends.BackendRegistries;
+
+public class MetricsUtils {
+
+    private MetricsUtils() {
+
+    }
+
+    /**
+     * The {@link MeterRegistry} application metrics should be registered against: the Vert.x (Prometheus) registry if
+     * metrics are enabled, otherwise Micrometer's global registry (which, having no backing registries, is a no-op).
+     */
+    public static MeterRegistry registry() {
+        final var registry = BackendRegistries.getDefaultNow();
+        return registry != null
+            ? registry
+            : Metrics.globalRegistry;
+    }
+}
@@ -2,13 +2,21 @@ package com.drewmalin.vm.central.vertical;
 
 import com.drewmalin.vm.central.context.ServiceContext;
 import com.drewmalin.vm.central.data.datasource.Datasource;
+import com.drewmalin.vm.central.data.datasource.PoolLimiter;
 import com.drewmalin.vm.central.data.model.UserDTO;
 import com.drewmalin.vm.central.data.model.VmDTO;
-import com.drewmalin.vm.central.event.Codec;
+import com.drewmalin.vm.central.data.repository.SqlStatementMetrics;
+import com.drewmalin.vm.central.data.repository.UserCache;
+import com.drewmalin.vm.central.event.ConfigChangeCodec;
+import com.drewmalin.vm.central.event.JsonCodec;
+import com.drewmalin.vm.central.event.UserDTOCodec;
+import com.drewmalin.vm.central.event.VmDTOCodec;
 import com.drewmalin.vm.central.http.router.AuthRouter;
 import com.drewmalin.vm.central.http.router.HealthCheckRouter;
 import com.drewmalin.vm.central.http.router.MetricsRouter;
 import com.drewmalin.vm.central.http.utils.ResponseUtils;
+import com.drewmalin.vm.central.job.IngestVmStatusEventsJob;
+import com.drewmalin.vm.central.job.ProvisionVmsJob;
 import com.drewmalin.vm.central.job.UpdateVmStatusJob;
 import com.drewmalin.vm.central.security.Role;
 import com.drewmalin.vm.central.security.System;
@@ -19,15 +27,18 @@ import com.drewmalin.vm.central.http.auth.AuthProvider;
 import com.drewmalin.vm.central.http.router.UsersRouter;
 import com.drewmalin.vm.central.http.router.VirtualMachinesRouter;
 import com.drewmalin.vm.central.utils.DurationUtils;
+import com.drewmalin.vm.central.utils.EventLoopLagProbe;
 import io.vertx.config.ConfigChange;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.shareddata.LocalMap;
 import io.vertx.ext.web.Router;
 import io.vertx.sqlclient.Pool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class VmCentral
@@ -38,36 +49,51 @@ public class VmCentral
 
     public static final String NAME = "vm.central";
 
+    private static final String CODECS_MAP_NAME = "vm-central.codecs";
+
     private AtomicReference<ServiceContext> serviceContext = new AtomicReference<>();
 
+    private EventLoopLagProbe eventLoopLagProbe;
+
     @Override
     public void start(final Promise<Void> promise) {
         final var start = java.lang.System.currentTimeMillis();
         LOGGER.info("Beginning startup");
 
-        newServiceContext().onSuccess(ctx -> {
-
-            startBackgroundJobs(ctx);
-
-            mountHttpRoutes(ctx);
-
-            final var port = ctx.config().httpPort();
-            ctx.vertx().createHttpServer()
-                .requestHandler(ctx.router())
-                .listen(port, http -> {
-                    if (http.succeeded()) {
-                        final var duration = DurationUtils.toString(start);
-                        LOGGER.info("Service startup completed successfully in %s".formatted(duration));
-                        promise.complete();
-                    }
-                    else {
-                        LOGGER.error("Service startup failed", http.cause());
-                        promise.fail(http.cause());
-                    }
-                });
-
-            this.serviceContext.set(ctx);
-        });
+        this.eventLoopLagProbe = new EventLoopLagProbe(getVertx(), NAME);
+        this.eventLoopLagProbe.start();
+
+        newServiceContext()
+            .onSuccess(ctx -> {
+
+                mountHttpRoutes(ctx);
+
+                /*
+                 * Every instance listens on the same port, Vert.x spreads the connections across them
+                 */
+                final var port = ctx.config().httpPort();
+                ctx.vertx().createHttpServer()
+                    .requestHandler(ctx.router())
+                    .listen(port, http -> {
+                        if (http.succeeded()) {
+                            final var duration = DurationUtils.toString(start);
+                            LOGGER.info("Service startup completed successfully in %s".formatted(duration));
+                            promise.complete();
+                        }
+                        else {
+                            LOGGER.error("Service startup failed", http.cause());
+                            this.serviceContext.set(null);
+                            VmCentralShared.release(getVertx());
+                            promise.fail(http.cause());
+                        }
+                    });
+
+                this.serviceContext.set(ctx);
+            })
+            .onFailure(t -> {
+                LOGGER.error("Service startup failed", t);
+                promise.fail(t);
+            });
     }
 
     private void startBackgroundJobs(final ServiceContext ctx) {
@@ -75,6 +101,16 @@ public class VmCentral
          * Schedule VM status checks
          */
         UpdateVmStatusJob.create(ctx).schedule();
+
+        /*
+         * Provision newly created VMs
+         */
+        ProvisionVmsJob.create(ctx).schedule();
+
+        /*
+         * Apply VM status changes as they happen, if a queue of them is configured
+         */
+        IngestVmStatusEventsJob.create(ctx).schedule();
     }
 
     private void mountHttpRoutes(final ServiceContext ctx) {
@@ -121,14 +157,38 @@ public class VmCentral
         );
     }
 
+    /*
+     * Several instances of this verticle may be deployed (one per event loop), each with its own router and HTTP server
+     * but sharing a single SQL pool and AuthProvider (see VmCentralShared). Anything that must happen once per process
+     * rather than once per instance is done only by the first instance to start.
+     */
     private Future<ServiceContext> newServiceContext() {
         final var vertx = getVertx();
         final var config = config().mapTo(Config.VmCentral.class);
         final var httpRouter = Router.router(vertx);
 
+        return VmCentralShared.acquire(vertx, () -> newSharedResources(config))
+            .map(resources -> {
+                return new ServiceContext(
+                    vertx,
+                    config,
+                    httpRouter,
+                    resources.sqlPool(),
+                    resources.auth()
+                );
+            });
+    }
+
+    private Future<VmCentralShared.Resources> newSharedResources(final Config.VmCentral config) {
         // Prepare the event bus with any custom message codecs
         prepareEventBusCodecs();
 
+        // Size the user cache from the config before any task creates it with defaults
+        UserCache.shared(getVertx(), config);
+
+        // A negative threshold disables the slow query log, zero leaves the default
+        SqlStatementMetrics.setSlowQueryThreshold(Duration.ofMillis(config.datasourceSlowQueryThresholdMillis()));
+
         // Await the pool's completion as migrations must occur
 
         final AtomicReference<Pool> poolReference = new AtomicReference<>();
@@ -139,49 +199,60 @@ public class VmCentral
                 return newAuthProvider(pool, config);
             })
             .map(authProvider -> {
-                return new ServiceContext(
-                    vertx,
+                final var resources = new VmCentralShared.Resources(poolReference.get(), authProvider);
+
+                startBackgroundJobs(new ServiceContext(
+                    getVertx(),
                     config,
-                    httpRouter,
-                    poolReference.get(),
-                    authProvider
-                );
+                    null, // background jobs do not serve HTTP
+                    resources.sqlPool(),
+                    resources.auth()
+                ));
+
+                return resources;
             });
     }
 
     private void prepareEventBusCodecs() {
+        /*
+         * Codecs belong to the Vert.x instance itself, so must be registered only once however many times this verticle
+         * is (re)deployed to it
+         */
+        final LocalMap<String, Boolean> registrations = getVertx().sharedData().getLocalMap(CODECS_MAP_NAME);
+        if (registrations.putIfAbsent(NAME, true) != null) {
+            return;
+        }
+
         final var eb = getVertx().eventBus();
         eb.registerDefaultCodec(
             ConfigChange.class,
-            new Codec<>(ConfigChange.class)
+            new ConfigChangeCodec()
         );
         eb.registerDefaultCodec(
             UserDTO.class,
-            new Codec<>(UserDTO.class)
+            new UserDTOCodec()
         );
         eb.registerDefaultCodec(
             VmDTO.class,
-            new Codec<>(VmDTO.class)
+            new VmDTOCodec()
         );
         eb.registerDefaultCodec(
             Config.VmCentral.class,
-            new Codec<>(Config.VmCentral.class)
+            new JsonCodec<>(Config.VmCentral.class)
         );
         eb.registerDefaultCodec(
             Config.Vertx.class,
-            new Codec<>(Config.Vertx.class)
+            new JsonCodec<>(Config.Vertx.class)
         );
         eb.registerDefaultCodec(
             Config.CloudVmWorker.class,
-            new Codec<>(Config.CloudVmWorker.class)
+            new JsonCodec<>(Config.CloudVmWorker.class)
         );
     }
 
     private Future<AuthProvider> newAuthProvider(final Pool sqlPool, final Config.VmCentral config) {
         LOGGER.info("Creating auth provider");
 
-        final var authProvider = new AuthProvider(sqlPool, config, getVertx());
-
         final var input = new CreateUserTask.Input(
             // TODO: pull from config / environment
             "admin",
@@ -193,14 +264,15 @@ public class VmCentral
             false // discard duplication as this will regularly occur on restart
         );
 
-        return Tasks.createUser(input, sqlPool, getVertx())
-            .submit(System.ROOT)
-            .map(admin -> {
-                LOGGER.info("System admin user '%s' created".formatted(input.username()));
-                return authProvider;
-            })
+        return AuthProvider.create(sqlPool, config, getVertx())
+            .compose(authProvider -> Tasks.createUser(input, authProvider.getPasswordHasher(), sqlPool, getVertx())
+                .submit(System.ROOT)
+                .map(admin -> {
+                    LOGGER.info("System admin user '%s' created".formatted(input.username()));
+                    return authProvider;
+                }))
             .onFailure(t -> {
-                LOGGER.error("Error creating admin user!");
+                LOGGER.error("Error creating auth provider or admin user!");
                 LOGGER.error(t.getMessage());
             });
     }
@@ -216,14 +288,23 @@ public class VmCentral
             .username(config.datasourceUsername())
             .password(config.datasourcePassword())
             .maxPoolSize(config.datasourceMaxPoolSize())
+            .maxWaitQueueSize(config.datasourcePoolWaitQueueMax())
+            .eventLoopSize(context.getInstanceCount())
             .build();
 
-        return Future.future(handler -> {
-            datasource.performMigrations();
-
-            final var pool = datasource.newPool(getVertx());
-            handler.complete(pool);
-        });
+        /*
+         * Migrations use JDBC (i.e. they block), so keep them off the event loop
+         */
+        return getVertx()
+            .executeBlocking(() -> {
+                datasource.performMigrations();
+                return null;
+            })
+            .map(ignored -> {
+                final var pool = datasource.newPool(getVertx());
+                PoolLimiter.register(getVertx(), pool, config);
+                return pool;
+            });
     }
 
     @Override
@@ -240,19 +321,13 @@ public class VmCentral
     public void stop() {
         LOGGER.info("Beginning shutdown");
 
-        // Be careful with nulls here as we don't necessarily know why we are stopping
-        final var ctx = this.serviceContext.get();
-        if (ctx == null) {
-            return;
+        if (this.eventLoopLagProbe != null) {
+            this.eventLoopLagProbe.stop();
         }
 
-        // Shut down all connections in the sql pool
-        final var sqlPool = ctx.sqlPool();
-        if (sqlPool == null) {
-            return;
+        // Only the last instance to stop actually closes the shared resources
+        if (this.serviceContext.get() != null) {
+            VmCentralShared.release(getVertx());
         }
-        sqlPool.close(ar -> {
-            LOGGER.info("SQL Pool shut down");
-        });
     }
 }
@@ -0,0 +1,96 @@
+package com.drewmalin.vm.central.vertical;
+
+import com.drewmalin.vm.central.data.datasource.PoolLimiter;
+import com.drewmalin.vm.central.http.auth.AuthProvider;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.sqlclient.Pool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * The resources shared by every {@link VmCentral} instance deployed to a Vert.x instance: a single SQL pool and a
+ * single {@link AuthProvider}. The first instance to start creates them (along with anything else which must only
+ * happen once, such as migrations and background jobs) while the remaining instances await them. They are closed once
+ * the last instance stops.
+ */
+final class VmCentralShared
+    implements Shareable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VmCentralShared.class);
+
+    private static final String SHARED_DATA_MAP_NAME = "vm-central.shared";
+    private static final String SHARED_DATA_KEY = "resources";
+
+    private final Promise<Resources> resources = Promise.promise();
+    private final AtomicInteger references = new AtomicInteger();
+
+    private VmCentralShared() {
+
+    }
+
+    /**
+     * Acquires the shared resources for the calling instance. Only the first caller's initializer is ever invoked; the
+     * returned future completes on the caller's own context either way. Every successful acquire must be matched by a
+     * {@link #release(Vertx)}.
+     */
+    static Future<Resources> acquire(final Vertx vertx, final Supplier<Future<Resources>> initializer) {
+        final var candidate = new VmCentralShared();
+        final var existing = map(vertx).putIfAbsent(SHARED_DATA_KEY, candidate);
+        final var shared = existing != null ? existing : candidate;
+
+        shared.references.incrementAndGet();
+
+        if (existing == null) {
+            LOGGER.info("Creating shared resources");
+            initializer.get().onComplete(candidate.resources);
+        }
+
+        /*
+         * The resources may be completed from the context of another instance, so hop back onto our own
+         */
+        final var context = vertx.getOrCreateContext();
+        final Promise<Resources> promise = Promise.promise();
+        shared.resources.future().onComplete(ar -> context.runOnContext(ignored -> promise.handle(ar)));
+
+        return promise.future()
+            .onFailure(t -> release(vertx));
+    }
+
+    /**
+     * Releases the calling instance's reference to the shared resources, closing them if it was the last one.
+     */
+    static Future<Void> release(final Vertx vertx) {
+        final var map = map(vertx);
+        final var shared = map.get(SHARED_DATA_KEY);
+        if (shared == null || shared.references.decrementAndGet() > 0) {
+            return Future.succeededFuture();
+        }
+
+        map.remove(SHARED_DATA_KEY, shared);
+
+        final var resources = shared.resources.future();
+        if (resources.failed() || resources.result() == null) {
+            return Future.succeededFuture();
+        }
+
+        PoolLimiter.unregister(resources.result().sqlPool());
+
+        return resources.result().sqlPool().close()
+            .onComplete(ar -> LOGGER.info("SQL Pool shut down"));
+    }
+
+    private static LocalMap<String, VmCentralShared> map(final Vertx vertx) {
+        return vertx.sharedData().getLocalMap(SHARED_DATA_MAP_NAME);
+    }
+
+    record Resources(Pool sqlPool, AuthProvider auth) {
+
+    }
+}
@@ -1,6 +1,9 @@
 package com.drewmalin.vm.central.vertical;
 
+import com.drewmalin.vm.central.configuration.Config;
 import com.drewmalin.vm.central.data.model.VmDTO;
+import com.drewmalin.vm.central.iaas.IaasProvider;
+import com.drewmalin.vm.central.iaas.IaasProviders;
 import com.drewmalin.vm.central.utils.DurationUtils;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.eventbus.EventBus;
@@ -39,6 +42,9 @@ public class VmCloudWorker
     private void handleVmCreate(final EventBus bus) {
         LOGGER.info("Listening for '%s' events".formatted(EVENT_VM_CREATE));
 
+        final var config = config().mapTo(Config.CloudVmWorker.class);
+        final var providers = IaasProviders.shared(getVertx(), config.cloudVmIaas());
+
         bus.consumer(EVENT_VM_CREATE, requestMessage -> {
 
             if (!(requestMessage.body() instanceof final VmDTO vm)) {
@@ -46,19 +52,22 @@ public class VmCloudWorker
                 return;
             }
 
+            final IaasProvider provider;
             try {
-                // simulate background work
-                Thread.sleep(3_000);
+                provider = providers.get(vm.vmProvider());
             }
-            catch (final InterruptedException e) {
-                requestMessage.fail(500, e.getMessage());
+            catch (final IllegalArgumentException e) {
+                requestMessage.fail(400, e.getMessage());
+                return;
             }
 
-            final var updatedVm = VmDTO.builder(vm)
-                .status(VmDTO.Status.UP)
-                .build();
-
-            requestMessage.reply(updatedVm);
+            /*
+             * Providers never block, so the reply is simply sent once provisioning completes, whichever threading model
+             * this worker is deployed with (see Main). In the meantime, the next message can be handled.
+             */
+            provider.provision(vm)
+                .onSuccess(requestMessage::reply)
+                .onFailure(t -> requestMessage.fail(500, t.getMessage()));
         });
     }
 
@@ -0,0 +1,3 @@
+-- Supports owner-scoped queries (WHERE user_fk = ?), which are then an index lookup rather than a scan. Leading with
+-- user_fk and ending with virtual_machine_pk, the index also returns each owner's VMs in primary key order.
+CREATE INDEX virtual_machines_user_fk_pk_idx ON virtual_machines (user_fk, virtual_machine_pk);
@@ -0,0 +1,6 @@
+-- Supports status reconciliation, which only visits pending VMs
+-- (WHERE status = 'INITIALIZING' AND virtual_machine_pk > ? ORDER BY virtual_machine_pk). Being partial, the index only
+-- holds pending VMs, so both its size and the cost of scanning it scale with pending work rather than with the fleet.
+-- DOWN is as settled a status as UP, so is left out just the same.
+CREATE INDEX virtual_machines_pending_status_idx ON virtual_machines (virtual_machine_pk)
+    WHERE status = 'INITIALIZING';
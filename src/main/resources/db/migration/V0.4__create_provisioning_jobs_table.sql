@@ -0,0 +1,19 @@
+-- Durable queue of VMs awaiting provisioning. A job is claimable once visible_at has passed; claiming it pushes
+-- visible_at out by the length of the lease (and records the lease_token of the claimant), so a job whose claimant dies
+-- becomes claimable again once its lease runs out. Failed attempts are delayed (backed off) the same way.
+CREATE TABLE provisioning_jobs
+(
+    provisioning_job_pk SERIAL                      PRIMARY KEY,
+    virtual_machine_fk  INT                         UNIQUE NOT NULL,
+    attempts            INT                         NOT NULL DEFAULT 0,
+    visible_at          TIMESTAMP WITH TIME ZONE    NOT NULL DEFAULT now(),
+    lease_token         VARCHAR(50),
+    last_error          TEXT,
+    abandoned_at        TIMESTAMP WITH TIME ZONE,
+    CONSTRAINT          fk_virtual_machine          FOREIGN KEY(virtual_machine_fk)
+                                                    REFERENCES virtual_machines(virtual_machine_pk) ON DELETE CASCADE
+);
+
+-- Supports claiming (WHERE abandoned_at IS NULL AND visible_at <= now() ORDER BY visible_at). Abandoned jobs are kept
+-- for inspection, but are excluded from the index.
+CREATE INDEX provisioning_jobs_claimable_idx ON provisioning_jobs (visible_at) WHERE abandoned_at IS NULL;
@@ -0,0 +1,5 @@
+-- The epoch of a user's tokens. Every token carries the epoch current at the time it was issued, and a refresh token is
+-- only honoured while its epoch is still current: incrementing a user's token_epoch (DELETE /users/:userID/tokens)
+-- therefore revokes all of their outstanding refresh tokens (and so, within one access token lifetime, all of their
+-- sessions).
+ALTER TABLE users ADD COLUMN token_epoch INT NOT NULL DEFAULT 0;
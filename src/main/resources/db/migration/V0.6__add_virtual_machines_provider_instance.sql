@@ -0,0 +1,5 @@
+-- Where each VM actually lives once provisioned: the ID its provider gave it (e.g. an EC2 instance ID) and the
+-- region of the provider hosting it. Both are null until the VM has been provisioned. Status reconciliation looks VMs
+-- up by these, grouped by region, see Ec2StatusFetcher.
+ALTER TABLE virtual_machines ADD COLUMN provider_instance_id VARCHAR(64);
+ALTER TABLE virtual_machines ADD COLUMN region VARCHAR(32);
@@ -0,0 +1,5 @@
+-- Supports the reconciliation of the whole provisioned fleet, which walks every VM having a provider instance in keyset
+-- pages (WHERE provider_instance_id IS NOT NULL AND virtual_machine_pk > ? ORDER BY virtual_machine_pk). Being
+-- partial, the index only holds VMs that have been provisioned.
+CREATE INDEX virtual_machines_provisioned_idx ON virtual_machines (virtual_machine_pk)
+    WHERE provider_instance_id IS NOT NULL;
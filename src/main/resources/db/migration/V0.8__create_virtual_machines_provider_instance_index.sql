@@ -0,0 +1,4 @@
+-- Supports status events, which identify VMs by the instance ID their provider gave them rather than by their own ID
+-- (WHERE provider_instance_id = ? AND region = ?). Being partial, the index only holds VMs that have been provisioned.
+CREATE INDEX virtual_machines_provider_instance_idx ON virtual_machines (provider_instance_id, region)
+    WHERE provider_instance_id IS NOT NULL;
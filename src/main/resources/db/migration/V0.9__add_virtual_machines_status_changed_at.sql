@@ -0,0 +1,5 @@
+-- The time of the latest status change of each VM, against which status events are ordered: an event only applies if
+-- it happened after the change already recorded (WHERE status_changed_at < ?), so that an event delivered late never
+-- overwrites a newer status. Existing VMs have no known time, so any event applies to them.
+ALTER TABLE virtual_machines ADD COLUMN status_changed_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT '-infinity';
+ALTER TABLE virtual_machines ALTER COLUMN status_changed_at SET DEFAULT now();
@@ -0,0 +1,107 @@
+package com.drewmalin.vm.central.data.repository;
+
+import io.vertx.core.Vertx;
+import io.vertx.pgclient.PgConnectOptions;
+import io.vertx.pgclient.PgPool;
+import io.vertx.sqlclient.Pool;
+import io.vertx.sqlclient.PoolOptions;
+import io.vertx.sqlclient.Tuple;
+import io.vertx.sqlclient.templates.SqlTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-call overhead a repository pays before a query reaches the driver: constructing a
+ * {@link SqlTemplate} (which parses the template) plus a map of named parameters, versus binding a pre-parsed
+ * {@link SqlStatement}. Everything after that point (the driver, the network, the database) is common to both and so
+ * is not measured; the pool below is never connected. Run with "-prof gc" to compare allocations per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlStatementBenchmark {
+
+    private static final String TEMPLATE = """
+        INSERT INTO virtual_machines (
+            virtual_machine_id,
+            provider,
+            status,
+            user_fk
+        )
+        VALUES (
+            #{virtual_machine_id},
+            #{provider},
+            #{status},
+            #{user_pk}
+        )
+        RETURNING
+            virtual_machine_pk,
+            virtual_machine_id,
+            provider,
+            status,
+            user_fk
+        """;
+
+    private static final SqlStatement STATEMENT = SqlStatement.parse("vm.insert", TEMPLATE);
+
+    private Vertx vertx;
+    private Pool pool;
+    private SqlStatement.Dialect dialect;
+    private String id;
+
+    @Setup
+    public void setup() {
+        this.vertx = Vertx.vertx();
+        this.pool = PgPool.pool(this.vertx, new PgConnectOptions(), new PoolOptions());
+        this.dialect = SqlStatement.Dialect.of(this.pool);
+        this.id = UUID.randomUUID().toString();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.pool.close();
+        this.vertx.close();
+    }
+
+    @Benchmark
+    public Object sqlTemplate() {
+        final Map<String, Object> parameters = new HashMap<>();
+        parameters.put("virtual_machine_id", this.id);
+        parameters.put("provider", "AWS");
+        parameters.put("status", "INITIALIZING");
+        parameters.put("user_pk", 1);
+
+        final var template = SqlTemplate.forUpdate(this.pool, TEMPLATE);
+        return new Object[]{template, parameters};
+    }
+
+    @Benchmark
+    public Tuple sqlStatement() {
+        return STATEMENT.bind(this.dialect, this.id, "AWS", "INITIALIZING", 1);
+    }
+
+    @Benchmark
+    public SqlStatement sqlStatementParse() {
+        /*
+         * The one-time (class initialization) cost of a statement, for reference
+         */
+        return SqlStatement.parse("vm.insert", TEMPLATE);
+    }
+}
@@ -0,0 +1,100 @@
+package com.drewmalin.vm.central.http.auth;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.JWTOptions;
+import io.vertx.ext.auth.User;
+import io.vertx.ext.auth.authentication.TokenCredentials;
+import io.vertx.ext.auth.jwt.JWTAuth;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of signing (i.e. issuing) and verifying tokens, and of generating keys, across each
+ * {@link SigningAlgorithm}. Tokens carry the same claims as those issued by {@link AuthProvider}. The size of a token
+ * under each algorithm is printed once per trial (i.e. once per @Param value), during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SigningAlgorithmBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    private String algorithm;
+
+    private Vertx vertx;
+    private SigningAlgorithm signingAlgorithm;
+    private JWTAuth jwtAuth;
+    private JsonObject claims;
+    private JWTOptions options;
+    private TokenCredentials token;
+
+    @Setup(Level.Trial)
+    public void setup()
+        throws Exception {
+
+        this.vertx = Vertx.vertx();
+        this.signingAlgorithm = SigningAlgorithm.forName(this.algorithm);
+        this.jwtAuth = AuthProvider.newJwtAuth(this.vertx, this.signingAlgorithm, this.signingAlgorithm.newKeyPair());
+
+        this.claims = new JsonObject()
+            .put(AuthProvider.CLAIM_USER_ID, "USER:%s".formatted(UUID.randomUUID()))
+            .put(AuthProvider.CLAIM_USERNAME, "username")
+            .put(AuthProvider.CLAIM_ROLE, "ROLE:USER")
+            .put(AuthProvider.CLAIM_TOKEN_EPOCH, 0)
+            .put(AuthProvider.CLAIM_TOKEN_USE, "access");
+
+        this.options = new JWTOptions()
+            .setAlgorithm(this.signingAlgorithm.jwsName())
+            .setExpiresInSeconds(900);
+
+        final var signed = sign();
+        this.token = new TokenCredentials(signed);
+
+        System.out.printf("%n%s token: %d bytes%n", this.algorithm, signed.length());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.vertx.close();
+    }
+
+    @Benchmark
+    public String sign() {
+        return this.jwtAuth.generateToken(this.claims, this.options);
+    }
+
+    @Benchmark
+    public User verify() {
+        /*
+         * Verification does not block, so the future is already complete
+         */
+        return this.jwtAuth.authenticate(this.token).result();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object generateKeyPair()
+        throws Exception {
+
+        return this.signingAlgorithm.newKeyPair();
+    }
+}
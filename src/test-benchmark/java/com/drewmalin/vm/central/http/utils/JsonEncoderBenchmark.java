@@ -0,0 +1,86 @@
+package com.drewmalin.vm.central.http.utils;
+
+import com.drewmalin.vm.central.http.model.VmHttpGetAllResponse;
+import com.drewmalin.vm.central.http.model.VmHttpResponse;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the previous response encoding (a pretty-printed {@link String}, converted to a {@link Buffer} when written)
+ * against {@link JsonEncoder}. Run with "-prof gc" to compare allocations per response (gc.alloc.rate.norm); the bytes
+ * per response of each encoding are printed once per trial, during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonEncoderBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int vms;
+
+    private VmHttpGetAllResponse page;
+    private JsonObject error;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final var items = new ArrayList<VmHttpResponse>(this.vms);
+        for (int i = 0; i < this.vms; i++) {
+            items.add(new VmHttpResponse(UUID.randomUUID().toString(), "AWS", "UP", UUID.randomUUID().toString()));
+        }
+        this.page = new VmHttpGetAllResponse(items.size(), items, "cGs6MTAw");
+        this.error = new JsonObject()
+            .put("error", "Not found")
+            .put("message", "No user found for id: %s".formatted(UUID.randomUUID()));
+
+        /*
+         * Sizes are constant for a given page, so are reported once per trial rather than measured per operation
+         */
+        System.out.printf("%n[vms=%d] page bytes: pretty=%d, compact=%d; error bytes: pretty=%d, compact=%d%n",
+            this.vms,
+            Buffer.buffer(Json.encodePrettily(this.page)).length(),
+            JsonEncoder.encode(this.page).length(),
+            Buffer.buffer(this.error.encodePrettily()).length(),
+            JsonEncoder.encode(this.error).length()
+        );
+    }
+
+    @Benchmark
+    public Buffer pagePrettyString() {
+        return Buffer.buffer(Json.encodePrettily(this.page));
+    }
+
+    @Benchmark
+    public Buffer pageCompact() {
+        return JsonEncoder.encode(this.page);
+    }
+
+    @Benchmark
+    public Buffer errorPrettyString() {
+        return Buffer.buffer(this.error.encodePrettily());
+    }
+
+    @Benchmark
+    public Buffer errorCompact() {
+        return JsonEncoder.encode(this.error);
+    }
+}
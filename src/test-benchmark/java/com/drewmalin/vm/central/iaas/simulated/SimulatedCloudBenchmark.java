@@ -0,0 +1,93 @@
+package com.drewmalin.vm.central.iaas.simulated;
+
+import com.drewmalin.vm.central.configuration.Config;
+import com.drewmalin.vm.central.data.model.VmDTO;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of the {@link SimulatedCloud} itself at fleet scale: provisioning, then describing, a whole fleet of VMs
+ * with every latency set to zero. Whatever a load test measures beyond this is the cost of the service, not of the
+ * simulation standing in for the cloud.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SimulatedCloudBenchmark {
+
+    private static final Config.CloudVmIaas.Simulated.Action INSTANT = new Config.CloudVmIaas.Simulated.Action(
+        new Config.CloudVmIaas.Simulated.Latency("fixed", 0, 0, 0), 0, 0, 0);
+
+    @Param({"100000"})
+    private int fleetSize;
+
+    private Vertx vertx;
+    private List<VmDTO> fleet;
+    private SimulatedCloud cloud;
+    private List<VmDTO> provisioned;
+
+    @Setup
+    public void setup() {
+        this.vertx = Vertx.vertx();
+
+        this.fleet = new ArrayList<>(this.fleetSize);
+        for (var i = 0; i < this.fleetSize; i++) {
+            this.fleet.add(VmDTO.builder()
+                .pk(i)
+                .id("VM:%d".formatted(i))
+                .provider(VmDTO.Provider.AWS)
+                .status(VmDTO.Status.INITIALIZING)
+                .build());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void newCloud() {
+        final var config = new Config.CloudVmIaas.Simulated(false, 42,
+            List.of("us-west-2", "us-east-1", "eu-west-1", "ap-southeast-2"),
+            INSTANT, INSTANT, null, null, null);
+
+        this.cloud = new SimulatedCloud(this.vertx, config);
+        this.provisioned = Future.all(this.fleet.stream().map(this.cloud::provision).toList())
+            .map(all -> all.<VmDTO>list())
+            .result();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.vertx.close();
+    }
+
+    @Benchmark
+    public List<VmDTO> provision() {
+        return Future.all(this.fleet.stream().map(this.cloud::provision).toList())
+            .map(all -> all.<VmDTO>list())
+            .result();
+    }
+
+    @Benchmark
+    public Map<String, VmDTO.Status> describe() {
+        return this.cloud.fetch(this.provisioned).result();
+    }
+}
@@ -0,0 +1,75 @@
+package com.drewmalin.vm.central.iaas.aws;
+
+import com.drewmalin.vm.central.data.model.UserDTO;
+import com.drewmalin.vm.central.data.model.VmDTO;
+import com.drewmalin.vm.central.integrationtest.AbstractAwsTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.regions.Region;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.core.Is.is;
+
+@Tag("integration")
+public class AwsProviderIntegrationTest
+    extends AbstractAwsTest {
+
+    @Test
+    void shouldProvisionAnInstancePerVm() {
+
+        final var aws = newAws();
+        final var config = newAwsConfig();
+        final var provider = new AwsProvider(aws, config.provisioning());
+
+        final var vm = VmDTO.builder()
+            .id("VM:1234")
+            .provider(VmDTO.Provider.AWS)
+            .status(VmDTO.Status.INITIALIZING)
+            .owner(UserDTO.builder()
+                .pk(1)
+                .id("USER:1")
+                .username("username")
+                .hashedPassword(new byte[16])
+                .salt(new byte[16])
+                .firstName("first")
+                .lastName("last")
+                .roleId("user")
+                .build())
+            .build();
+
+        final var provisioned = provider.provision(vm)
+            .toCompletionStage()
+            .toCompletableFuture()
+            .join();
+
+        assertThat(provisioned.id(), is(vm.id()));
+        assertThat(provisioned.providerInstanceId(), is(not(nullValue())));
+        assertThat(provisioned.region(), is(config.provisioning().region()));
+
+        /*
+         * The instance is tagged with the ID of its VM, and its status can be fetched
+         */
+        final var instance = aws.ec2(Region.of(provisioned.region()))
+            .describeInstances(builder -> builder.instanceIds(provisioned.providerInstanceId()))
+            .reservations()
+            .get(0)
+            .instances()
+            .get(0);
+
+        assertThat(instance.tags().stream()
+            .anyMatch(tag -> tag.key().equals(AwsProvider.TAG_VM_ID) && tag.value().equals(vm.id())), is(true));
+
+        final var statuses = provider.fetch(List.of(provisioned))
+            .toCompletionStage()
+            .toCompletableFuture()
+            .join();
+
+        assertThat(statuses.get(vm.id()), is(not(nullValue())));
+
+        aws.close();
+    }
+}
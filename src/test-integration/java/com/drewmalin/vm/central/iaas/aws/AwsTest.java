@@ -9,6 +9,7 @@ import software.amazon.awssdk.services.eventbridge.model.Target;
 import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
 
 import java.util.HashMap;
+import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.Is.is;
@@ -63,6 +64,41 @@ public class AwsTest
         assertThat(messages.size(), is(0));
     }
 
+    @Test
+    void testAsync() {
+
+        final var aws = newAws();
+
+        final var instanceId = aws.ec2(Region.US_WEST_2)
+            .runInstances(builder -> {
+                builder.imageId("ami-ff0fea8310f3");
+                builder.maxCount(1);
+                builder.instanceType("t3.nano");
+            })
+            .instances()
+            .get(0)
+            .instanceId();
+
+        final var ec2 = new Ec2Facade(aws, Region.US_WEST_2);
+
+        final var instances = ec2.describeInstances(List.of(instanceId))
+            .toCompletionStage()
+            .toCompletableFuture()
+            .join();
+
+        assertThat(instances.size(), is(1));
+        assertThat(instances.get(0).instanceId(), is(instanceId));
+
+        final var terminated = ec2.terminateInstances(List.of(instanceId))
+            .toCompletionStage()
+            .toCompletableFuture()
+            .join();
+
+        assertThat(terminated.size(), is(1));
+
+        aws.close();
+    }
+
     private String sqsQueueUrl(final Aws aws) {
         final var queueUrl = aws.sqs(Region.US_WEST_2)
             .createQueue(builder -> {
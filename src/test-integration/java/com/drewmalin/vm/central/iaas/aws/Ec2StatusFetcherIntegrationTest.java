@@ -0,0 +1,103 @@
+package com.drewmalin.vm.central.iaas.aws;
+
+import com.drewmalin.vm.central.data.model.UserDTO;
+import com.drewmalin.vm.central.data.model.VmDTO;
+import com.drewmalin.vm.central.integrationtest.AbstractAwsTest;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.ec2.model.Instance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+@Tag("integration")
+public class Ec2StatusFetcherIntegrationTest
+    extends AbstractAwsTest {
+
+    private static final UserDTO OWNER = UserDTO.builder()
+        .pk(1)
+        .id("USER:1")
+        .username("username")
+        .hashedPassword(new byte[16])
+        .salt(new byte[16])
+        .firstName("first")
+        .lastName("last")
+        .roleId("user")
+        .build();
+
+    @Test
+    void shouldFetchStatusesAcrossBatchesAndRegions() {
+
+        final var aws = newAws();
+
+        /*
+         * More instances than fit in one DescribeInstances call, so the region is described in two batches
+         */
+        final var running = runInstances(aws, Region.US_WEST_2, Ec2StatusFetcher.MAX_INSTANCE_IDS_PER_CALL + 1);
+        final var terminated = runInstances(aws, Region.US_EAST_1, 1).get(0);
+
+        aws.ec2(Region.US_EAST_1)
+            .terminateInstances(builder -> {
+                builder.instanceIds(terminated);
+            });
+
+        final var vms = new ArrayList<VmDTO>();
+        for (var i = 0; i < running.size(); i++) {
+            vms.add(vm("VM:" + i, Region.US_WEST_2, running.get(i)));
+        }
+        vms.add(vm("VM:terminated", Region.US_EAST_1, terminated));
+        vms.add(vm("VM:unknown", Region.US_EAST_1, "i-0123456789abcdef0"));
+        vms.add(vm("VM:unprovisioned", null, null));
+
+        final var fetcher = new Ec2StatusFetcher(aws, 0);
+
+        final Map<String, VmDTO.Status> statuses = fetcher.fetch(vms)
+            .toCompletionStage()
+            .toCompletableFuture()
+            .join();
+
+        /*
+         * Every running instance, plus the terminated one; an unknown instance ID is omitted rather than failing its
+         * batch, and the unprovisioned VM is never described
+         */
+        assertThat(statuses.size(), is(running.size() + 1));
+        for (var i = 0; i < running.size(); i++) {
+            assertThat(statuses.get("VM:" + i), is(VmDTO.Status.UP));
+        }
+        assertThat(statuses.get("VM:terminated"), is(VmDTO.Status.DOWN));
+        assertThat(statuses.containsKey("VM:unknown"), is(false));
+        assertThat(statuses.containsKey("VM:unprovisioned"), is(false));
+
+        aws.close();
+    }
+
+    private List<String> runInstances(final Aws aws, final Region region, final int count) {
+        return aws.ec2(region)
+            .runInstances(builder -> {
+                builder.imageId("ami-ff0fea8310f3");
+                builder.minCount(count);
+                builder.maxCount(count);
+                builder.instanceType("t3.nano");
+            })
+            .instances()
+            .stream()
+            .map(Instance::instanceId)
+            .toList();
+    }
+
+    private VmDTO vm(final String id, final Region region, final String instanceId) {
+        return VmDTO.builder()
+            .id(id)
+            .provider(VmDTO.Provider.AWS)
+            .status(VmDTO.Status.INITIALIZING)
+            .providerInstanceId(instanceId)
+            .region(region != null ? region.id() : null)
+            .owner(OWNER)
+            .build();
+    }
+}
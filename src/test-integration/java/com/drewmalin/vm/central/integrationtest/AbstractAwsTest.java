@@ -25,16 +25,25 @@ public abstract class AbstractAwsTest {
     }
 
     public Aws newAws() {
-        final var config = new Config.CloudVmIaas.Aws(
+        return new Aws(newAwsConfig());
+    }
+
+    public Config.CloudVmIaas.Aws newAwsConfig() {
+        return new Config.CloudVmIaas.Aws(
             LOCALSTACK.getEndpoint().toString(),
+            0,
             null,
             new Config.CloudVmIaas.Aws.BasicCredentials(
                 LOCALSTACK.getAccessKey(),
                 LOCALSTACK.getSecretKey()
+            ),
+            null,
+            new Config.CloudVmIaas.Aws.Provisioning(
+                "us-west-2",
+                "ami-ff0fea8310f3",
+                "t3.nano"
             )
         );
-
-        return new Aws(config);
     }
 
     @BeforeAll
@@ -0,0 +1,124 @@
+package com.drewmalin.vm.central.job;
+
+import com.drewmalin.vm.central.configuration.Config;
+import com.drewmalin.vm.central.context.ServiceContext;
+import com.drewmalin.vm.central.data.model.VmDTO;
+import com.drewmalin.vm.central.data.repository.VmRepository;
+import com.drewmalin.vm.central.integrationtest.AbstractAwsTest;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.core.Is.is;
+
+@Tag("integration")
+public class IngestVmStatusEventsJobTest
+    extends AbstractAwsTest {
+
+    private static final int INSTANCES = 25;
+
+    @Test
+    void test()
+        throws InterruptedException {
+
+        final var aws = newAws();
+        final var sqs = aws.sqs(Region.US_WEST_2);
+
+        final var queueUrl = sqs.createQueue(builder -> builder.queueName("vm-status-events"))
+            .queueUrl();
+
+        for (var i = 0; i < INSTANCES; i++) {
+            final var body = event(i, "running", "2023-11-11T21:30:54Z");
+            sqs.sendMessage(builder -> builder.queueUrl(queueUrl).messageBody(body));
+        }
+        sqs.sendMessage(builder -> builder.queueUrl(queueUrl).messageBody("not an event"));
+
+        /*
+         * Ingest with a stand-in for the repository, which records the latest status written per instance
+         */
+        final Map<String, VmDTO.Status> statuses = new ConcurrentHashMap<>();
+        final var largestBatch = new AtomicInteger();
+        final var done = new CountDownLatch(1);
+
+        final var vertx = Vertx.vertx();
+        final var ctx = new ServiceContext(vertx, config(queueUrl), null, null, null);
+
+        final var job = IngestVmStatusEventsJob.create(ctx, (List<VmRepository.InstanceStatus> batch) -> {
+            largestBatch.accumulateAndGet(batch.size(), Math::max);
+            for (final var status : batch) {
+                statuses.put(status.providerInstanceId(), status.status());
+            }
+
+            if (statuses.size() == INSTANCES) {
+                done.countDown();
+            }
+            return Future.succeededFuture(batch.size());
+        });
+
+        vertx.runOnContext(ignored -> job.schedule());
+
+        assertThat(done.await(60, TimeUnit.SECONDS), is(true));
+
+        assertThat(statuses.size(), is(INSTANCES));
+        assertThat(statuses.values().stream().allMatch(status -> status == VmDTO.Status.UP), is(true));
+        assertThat(largestBatch.get(), is(lessThanOrEqualTo(10)));
+
+        /*
+         * Every message (including the one that was not an event) has been deleted once applied
+         */
+        Thread.sleep(1_000);
+
+        final var attributes = sqs.getQueueAttributes(builder -> builder
+                .queueUrl(queueUrl)
+                .attributeNames(
+                    QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES,
+                    QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE
+                ))
+            .attributes();
+
+        assertThat(attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES), is("0"));
+        assertThat(attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE), is("0"));
+
+        vertx.close()
+            .toCompletionStage()
+            .toCompletableFuture()
+            .join();
+        aws.close();
+    }
+
+    private Config.VmCentral config(final String queueUrl) {
+        return new JsonObject()
+            .put("job.vm.status_events", new JsonObject()
+                .put("queue.url", queueUrl)
+                .put("region", Region.US_WEST_2.id())
+                .put("wait.seconds", 1))
+            .put("vm.iaas", new JsonObject()
+                .put("aws", JsonObject.mapFrom(newAwsConfig())))
+            .mapTo(Config.VmCentral.class);
+    }
+
+    private static String event(final int instance, final String state, final String time) {
+        return new JsonObject()
+            .put("detail-type", "EC2 Instance State-change Notification")
+            .put("source", "aws.ec2")
+            .put("time", time)
+            .put("region", Region.US_WEST_2.id())
+            .put("detail", new JsonObject()
+                .put("instance-id", "i-%017d".formatted(instance))
+                .put("state", state))
+            .encode();
+    }
+}
@@ -1,6 +1,7 @@
 package com.drewmalin.vm.central.task;
 
 import com.drewmalin.vm.central.data.model.UserDTO;
+import com.drewmalin.vm.central.data.repository.PageRequest;
 import com.drewmalin.vm.central.integrationtest.AbstractVertxTest;
 import com.drewmalin.vm.central.security.Principal;
 import com.drewmalin.vm.central.security.Role;
@@ -79,13 +80,17 @@ public class UserTaskIntegrationTest
                  * Step 3: search for the user within the 'get all' response
                  */
 
-                return Tasks.getAllUsers(ctx).submit(PROCESSING_USER).onComplete(tc.succeeding(result -> {
+                final var getAllUsersInput = new GetAllUsersTask.Input(
+                    PageRequest.first(100)
+                );
+
+                return Tasks.getAllUsers(getAllUsersInput, ctx).submit(PROCESSING_USER).onComplete(tc.succeeding(result -> {
                     tc.verify(() -> {
 
-                        assertThat(result.size(), is(greaterThanOrEqualTo(1)));
+                        assertThat(result.items().size(), is(greaterThanOrEqualTo(1)));
 
                         UserDTO foundUser = null;
-                        for (final var userResult : result) {
+                        for (final var userResult : result.items()) {
                             if (userResult.id().equals(user.id())) {
                                 foundUser = user;
                             }
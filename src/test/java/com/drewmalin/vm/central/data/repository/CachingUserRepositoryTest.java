@@ -0,0 +1,128 @@
+package com.drewmalin.vm.central.data.repository;
+
+import com.drewmalin.vm.central.data.model.UserDTO;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.streams.ReadStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CachingUserRepositoryTest {
+
+    private static final UserDTO USER = UserDTO.builder()
+        .pk(7)
+        .id("USER:5678")
+        .username("username")
+        .hashedPassword(new byte[16])
+        .salt(new byte[16])
+        .firstName("first")
+        .lastName("last")
+        .roleId("user")
+        .build();
+
+    private Vertx vertx;
+    private CountingUserRepository delegate;
+    private CachingUserRepository repository;
+
+    @BeforeEach
+    public void setup() {
+        this.vertx = Vertx.vertx();
+        this.delegate = new CountingUserRepository();
+        this.repository = new CachingUserRepository(this.delegate, UserCache.shared(this.vertx));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.vertx.close();
+    }
+
+    @Test
+    public void shouldOnlyReadThroughOnMiss() {
+        assertThat(this.repository.get(USER.id()).result().id(), is(USER.id()));
+        assertThat(this.repository.get(USER.id()).result().id(), is(USER.id()));
+
+        assertThat(this.delegate.gets, is(1));
+    }
+
+    @Test
+    public void shouldInvalidateOnWrite() {
+        this.repository.get(USER.id());
+        this.repository.put(USER);
+        this.repository.get(USER.id());
+
+        this.repository.delete(USER.id());
+        this.repository.get(USER.id());
+
+        this.repository.revokeTokens(USER.id());
+        this.repository.get(USER.id());
+
+        assertThat(this.delegate.gets, is(4));
+    }
+
+    /*
+     * Completes every operation immediately, counting reads by ID
+     */
+    private static class CountingUserRepository
+        implements UserRepository {
+
+        private int gets;
+
+        @Override
+        public Future<UserDTO> get(final String id) {
+            this.gets++;
+            return Future.succeededFuture(USER);
+        }
+
+        @Override
+        public Future<UserDTO> put(final UserDTO user) {
+            return Future.succeededFuture(user);
+        }
+
+        @Override
+        public Future<Void> delete(final String id) {
+            return Future.succeededFuture();
+        }
+
+        @Override
+        public Future<UserDTO> getByUsername(final String username) {
+            return Future.succeededFuture(USER);
+        }
+
+        @Override
+        public Future<UserDTO> revokeTokens(final String id) {
+            return Future.succeededFuture(USER);
+        }
+
+        @Override
+        public Future<List<UserDTO>> getAll() {
+            return Future.succeededFuture(List.of(USER));
+        }
+
+        @Override
+        public Future<Page<UserDTO>> getAll(final PageRequest page) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<Void> stream(final Function<ReadStream<UserDTO>, Future<Void>> consumer) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<UserDTO> add(final UserDTO user, final boolean ensureUnique) {
+            return Future.succeededFuture(user);
+        }
+
+        @Override
+        public Future<List<UserDTO>> putAll(final List<UserDTO> users) {
+            return Future.succeededFuture(users);
+        }
+    }
+}
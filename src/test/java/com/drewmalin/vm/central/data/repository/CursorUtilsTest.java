@@ -0,0 +1,23 @@
+package com.drewmalin.vm.central.data.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CursorUtilsTest {
+
+    @Test
+    public void shouldRoundTripKeys() {
+        for (final var key : new int[]{0, 1, 42, Integer.MAX_VALUE}) {
+            assertThat(CursorUtils.decode(CursorUtils.encode(key)), is(key));
+        }
+    }
+
+    @Test
+    public void shouldRejectInvalidCursors() {
+        assertThrows(IllegalArgumentException.class, () -> CursorUtils.decode("not a cursor!"));
+        assertThrows(IllegalArgumentException.class, () -> CursorUtils.decode(IdUtils.nextId()));
+    }
+}
@@ -0,0 +1,42 @@
+package com.drewmalin.vm.central.data.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SqlStatementTest {
+
+    private static final SqlStatement STATEMENT = SqlStatement.parse("test",
+        "SELECT * FROM t WHERE a = #{a} AND b > #{b} OR a = #{a}");
+
+    @Test
+    public void shouldParseParametersInOrder() {
+        assertThat(STATEMENT.parameters(), is(List.of("a", "b")));
+        assertThat(STATEMENT.sql(SqlStatement.Dialect.POSTGRES), is("SELECT * FROM t WHERE a = $1 AND b > $2 OR a = $1"));
+        assertThat(STATEMENT.sql(SqlStatement.Dialect.JDBC), is("SELECT * FROM t WHERE a = ? AND b > ? OR a = ?"));
+    }
+
+    @Test
+    public void shouldBindRepeatedParametersForJdbc() {
+        final var postgres = STATEMENT.bind(SqlStatement.Dialect.POSTGRES, "x", 1);
+        assertThat(postgres.size(), is(2));
+
+        final var jdbc = STATEMENT.bind(SqlStatement.Dialect.JDBC, "x", 1);
+        assertThat(jdbc.size(), is(3));
+        assertThat(jdbc.getValue(2), is("x"));
+    }
+
+    @Test
+    public void shouldRejectWrongNumberOfValues() {
+        assertThrows(IllegalArgumentException.class, () -> STATEMENT.bind(SqlStatement.Dialect.POSTGRES, "x"));
+    }
+
+    @Test
+    public void shouldRedactBoundValues() {
+        assertThat(SqlStatementMetrics.redact(STATEMENT.parameters(), "secret", null), is("[a=String, b=null]"));
+    }
+}
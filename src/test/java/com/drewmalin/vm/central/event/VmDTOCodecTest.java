@@ -0,0 +1,65 @@
+package com.drewmalin.vm.central.event;
+
+import com.drewmalin.vm.central.data.model.UserDTO;
+import com.drewmalin.vm.central.data.model.VmDTO;
+import io.vertx.core.buffer.Buffer;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class VmDTOCodecTest {
+
+    private static final VmDTO VM = VmDTO.builder()
+        .pk(42)
+        .id("VM:1234")
+        .provider(VmDTO.Provider.AWS)
+        .status(VmDTO.Status.INITIALIZING)
+        .owner(UserDTO.builder()
+            .pk(7)
+            .id("USER:5678")
+            .username("\u00fcsername")
+            .hashedPassword(new byte[]{1, 2, 3})
+            .salt(new byte[]{4, 5, 6})
+            .firstName("first")
+            .lastName("last")
+            .roleId("user")
+            .build())
+        .providerInstanceId("i-0123456789abcdef0")
+        .region("us-west-2")
+        .build();
+
+    @Test
+    public void shouldRoundTripFromAnyPosition() {
+        final var codec = new VmDTOCodec();
+
+        // Messages are not necessarily at the beginning of the buffer
+        final var buffer = Buffer.buffer().appendString("prefix");
+        codec.encodeToWire(buffer, VM);
+
+        final var decoded = codec.decodeFromWire("prefix".length(), buffer);
+
+        assertThat(decoded.pk(), is(VM.pk()));
+        assertThat(decoded.id(), is(VM.id()));
+        assertThat(decoded.vmProvider(), is(VM.vmProvider()));
+        assertThat(decoded.vmStatus(), is(VM.vmStatus()));
+        assertThat(decoded.providerInstanceId(), is(VM.providerInstanceId()));
+        assertThat(decoded.region(), is(VM.region()));
+        assertThat(decoded.owner().id(), is(VM.owner().id()));
+        assertThat(decoded.owner().username(), is(VM.owner().username()));
+        assertThat(decoded.owner().hashedPassword(), is(VM.owner().hashedPassword()));
+        assertThat(decoded.owner().salt(), is(VM.owner().salt()));
+    }
+
+    @Test
+    public void shouldRejectUnknownVersions() {
+        final var codec = new VmDTOCodec();
+
+        final var buffer = Buffer.buffer();
+        codec.encodeToWire(buffer, VM);
+        buffer.setByte(Integer.BYTES, (byte) 99);
+
+        assertThrows(IllegalStateException.class, () -> codec.decodeFromWire(0, buffer));
+    }
+}
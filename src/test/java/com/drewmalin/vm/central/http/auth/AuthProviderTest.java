@@ -0,0 +1,165 @@
+package com.drewmalin.vm.central.http.auth;
+
+import com.drewmalin.vm.central.data.model.UserDTO;
+import com.drewmalin.vm.central.data.repository.Page;
+import com.drewmalin.vm.central.data.repository.PageRequest;
+import com.drewmalin.vm.central.data.repository.UserRepository;
+import com.drewmalin.vm.central.task.UnauthorizedException;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.streams.ReadStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AuthProviderTest {
+
+    private static final UserDTO USER = UserDTO.builder()
+        .pk(7)
+        .id("USER:5678")
+        .username("username")
+        .hashedPassword(new byte[16])
+        .salt(new byte[16])
+        .firstName("first")
+        .lastName("last")
+        .roleId("user")
+        .build();
+
+    private Vertx vertx;
+    private InMemoryUserRepository userRepository;
+    private AuthProvider authProvider;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        this.vertx = Vertx.vertx();
+        this.userRepository = new InMemoryUserRepository(USER);
+        this.authProvider = new AuthProvider(this.vertx, SigningAlgorithm.RS256, SigningAlgorithm.RS256.newKeyPair(),
+            this.userRepository, 60, 60);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.vertx.close();
+    }
+
+    @Test
+    public void shouldRefreshTokens() throws Exception {
+        final var tokens = this.authProvider.newTokens(USER);
+
+        final var refreshed = await(this.authProvider.refreshToken(tokens.refreshToken()));
+
+        assertThat(refreshed.expiresInSeconds(), is(60));
+    }
+
+    @Test
+    public void shouldRejectRefreshOnceRevoked() throws Exception {
+        final var tokens = this.authProvider.newTokens(USER);
+
+        await(this.userRepository.revokeTokens(USER.id()));
+
+        final var e = assertThrows(ExecutionException.class,
+            () -> await(this.authProvider.refreshToken(tokens.refreshToken())));
+        assertThat(e.getCause(), instanceOf(UnauthorizedException.class));
+
+        /*
+         * Tokens issued after the revocation carry the new epoch, so can be refreshed
+         */
+        final var user = await(this.userRepository.get(USER.id()));
+        await(this.authProvider.refreshToken(this.authProvider.newTokens(user).refreshToken()));
+    }
+
+    @Test
+    public void shouldRejectAccessTokenAsRefreshToken() {
+        final var tokens = this.authProvider.newTokens(USER);
+
+        final var e = assertThrows(ExecutionException.class,
+            () -> await(this.authProvider.refreshToken(tokens.accessToken())));
+        assertThat(e.getCause(), instanceOf(UnauthorizedException.class));
+    }
+
+    private static <T> T await(final Future<T> future) throws Exception {
+        return future.toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    /*
+     * Holds a single user, whose token epoch moves on with each revocation
+     */
+    private static class InMemoryUserRepository
+        implements UserRepository {
+
+        private UserDTO user;
+
+        private InMemoryUserRepository(final UserDTO user) {
+            this.user = user;
+        }
+
+        @Override
+        public Future<UserDTO> get(final String id) {
+            if (!this.user.id().equals(id)) {
+                return Future.failedFuture(new NoSuchElementException());
+            }
+            return Future.succeededFuture(this.user);
+        }
+
+        @Override
+        public Future<UserDTO> revokeTokens(final String id) {
+            return get(id).map(user -> {
+                this.user = UserDTO.builder(user)
+                    .tokenEpoch(user.tokenEpoch() + 1)
+                    .build();
+                return this.user;
+            });
+        }
+
+        @Override
+        public Future<UserDTO> put(final UserDTO user) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<Void> delete(final String id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<UserDTO> getByUsername(final String username) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<List<UserDTO>> getAll() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<Page<UserDTO>> getAll(final PageRequest page) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<Void> stream(final Function<ReadStream<UserDTO>, Future<Void>> consumer) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<UserDTO> add(final UserDTO user, final boolean ensureUnique) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Future<List<UserDTO>> putAll(final List<UserDTO> users) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
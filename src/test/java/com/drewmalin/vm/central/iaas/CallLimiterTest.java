@@ -0,0 +1,161 @@
+package com.drewmalin.vm.central.iaas;
+
+import com.drewmalin.vm.central.configuration.Config;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CallLimiterTest {
+
+    private static final String REGION = "us-west-2";
+    private static final String ACTION = "ec2:DescribeInstances";
+
+    private AtomicLong clock;
+    private List<Runnable> scheduled;
+    private List<CompletableFuture<String>> made;
+
+    @BeforeEach
+    public void setup() {
+        this.clock = new AtomicLong();
+        this.scheduled = new ArrayList<>();
+        this.made = new ArrayList<>();
+    }
+
+    @Test
+    public void shouldResolveLimitsFieldByField() {
+        final var config = new Config.CloudVmIaas.Limits(false, 0,
+            new Config.CloudVmIaas.Limits.Limit(0, 0, 3),
+            Map.of(ACTION, new Config.CloudVmIaas.Limits.Limit(7, 0, 0)));
+        final var defaults = Map.of(ACTION, new Config.CloudVmIaas.Limits.Limit(5, 11, 0));
+
+        final var limiter = new CallLimiter("test", config, defaults, ignored -> false);
+
+        assertThat(limiter.limit(ACTION), is(new Config.CloudVmIaas.Limits.Limit(7, 11, 3)));
+        assertThat(limiter.limit("ec2:Other"), is(new Config.CloudVmIaas.Limits.Limit(20, 100, 3)));
+    }
+
+    @Test
+    public void shouldBoundConcurrency() {
+        final var limiter = limiter(new Config.CloudVmIaas.Limits.Limit(1_000, 1_000, 2), 10);
+
+        final var results = new ArrayList<CompletableFuture<String>>();
+        for (var i = 0; i < 5; i++) {
+            results.add(limiter.submit(REGION, ACTION, this::call));
+        }
+        assertThat(this.made.size(), is(2));
+
+        this.made.get(0).complete("first");
+        assertThat(results.get(0).join(), is("first"));
+        assertThat(this.made.size(), is(3));
+
+        this.made.get(1).complete("second");
+        this.made.get(2).complete("third");
+        assertThat(this.made.size(), is(5));
+    }
+
+    @Test
+    public void shouldWaitForTokens() {
+        final var limiter = limiter(new Config.CloudVmIaas.Limits.Limit(1, 2, 100), 10);
+
+        for (var i = 0; i < 3; i++) {
+            limiter.submit(REGION, ACTION, this::call);
+        }
+        assertThat(this.made.size(), is(2));
+        assertThat(this.scheduled.size(), is(1));
+
+        this.clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        runScheduled();
+        assertThat(this.made.size(), is(3));
+    }
+
+    @Test
+    public void shouldRejectBeyondQueueMax() {
+        final var limiter = limiter(new Config.CloudVmIaas.Limits.Limit(1_000, 1_000, 1), 1);
+
+        limiter.submit(REGION, ACTION, this::call);
+        limiter.submit(REGION, ACTION, this::call);
+        final var rejected = limiter.submit(REGION, ACTION, this::call);
+
+        final var e = assertThrows(CompletionException.class, rejected::join);
+        assertThat(e.getCause(), is(instanceOf(IaasException.class)));
+        assertThat(((IaasException) e.getCause()).isThrottled(), is(true));
+        assertThat(this.made.size(), is(1));
+    }
+
+    @Test
+    public void shouldBackOffWhenThrottledAndRecover() {
+        final var limiter = limiter(new Config.CloudVmIaas.Limits.Limit(10, 10, 100), 100);
+
+        limiter.submit(REGION, ACTION, this::call);
+        this.made.get(0).completeExceptionally(new IaasException("Slow down", true));
+        assertThat(limiter.rate(REGION, ACTION), is(5.0));
+
+        /*
+         * The bucket is emptied and refills at half the rate: one token every 200ms rather than every 100ms
+         */
+        limiter.submit(REGION, ACTION, this::call);
+        assertThat(this.made.size(), is(1));
+
+        this.clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(150));
+        runScheduled();
+        assertThat(this.made.size(), is(1));
+
+        this.clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        runScheduled();
+        assertThat(this.made.size(), is(2));
+
+        /*
+         * A second throttle within the same second does not halve the rate again
+         */
+        this.made.get(1).completeExceptionally(new IaasException("Slow down", true));
+        assertThat(limiter.rate(REGION, ACTION), is(5.0));
+
+        /*
+         * Nor does any other failure, while successes win the rate back bit by bit
+         */
+        limiter.submit(REGION, ACTION, this::call);
+        this.clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        runScheduled();
+        this.made.get(2).completeExceptionally(new IllegalStateException("Not throttled"));
+        assertThat(limiter.rate(REGION, ACTION), is(5.0));
+
+        for (var i = 0; i < 20; i++) {
+            limiter.submit(REGION, ACTION, this::call);
+            this.clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            runScheduled();
+            this.made.get(this.made.size() - 1).complete("ok");
+
+            assertThat(limiter.rate(REGION, ACTION), is(Math.min(10.0, 5.0 + 0.5 * (i + 1))));
+        }
+    }
+
+    private CallLimiter limiter(final Config.CloudVmIaas.Limits.Limit limit, final int queueMax) {
+        final var config = new Config.CloudVmIaas.Limits(false, queueMax, limit, Map.of());
+        return new CallLimiter("test", config, Map.of(), ignored -> false, this.clock::get,
+            (delayNanos, task) -> this.scheduled.add(task));
+    }
+
+    private CompletableFuture<String> call() {
+        final var result = new CompletableFuture<String>();
+        this.made.add(result);
+        return result;
+    }
+
+    private void runScheduled() {
+        final var tasks = List.copyOf(this.scheduled);
+        this.scheduled.clear();
+        tasks.forEach(Runnable::run);
+    }
+}
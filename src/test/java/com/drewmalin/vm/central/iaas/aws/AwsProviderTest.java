@@ -0,0 +1,25 @@
+package com.drewmalin.vm.central.iaas.aws;
+
+import com.drewmalin.vm.central.configuration.Config;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AwsProviderTest {
+
+    @Test
+    public void shouldRequireProvisioningConfig() {
+        final var aws = new Aws(null);
+
+        final var missing = assertThrows(IllegalArgumentException.class, () -> new AwsProvider(aws, null));
+        assertThat(missing.getMessage(), is("'vm.iaas.aws.provisioning' is required to provision VMs on AWS"));
+
+        final var incomplete = assertThrows(IllegalArgumentException.class, () -> new AwsProvider(aws,
+            new Config.CloudVmIaas.Aws.Provisioning("us-west-2", " ", "t3.nano")));
+        assertThat(incomplete.getMessage(), is("'vm.iaas.aws.provisioning.imageId' is required"));
+
+        new AwsProvider(aws, new Config.CloudVmIaas.Aws.Provisioning("us-west-2", "ami-ff0fea8310f3", "t3.nano"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.drewmalin.vm.central.iaas.aws;
+
+import com.drewmalin.vm.central.data.model.VmDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class Ec2StateChangeEventTest {
+
+    @Test
+    public void shouldParseEvents() {
+        final var event = Ec2StateChangeEvent.parse("""
+            {
+              "version": "0",
+              "detail-type": "EC2 Instance State-change Notification",
+              "source": "aws.ec2",
+              "time": "2023-11-11T21:29:54Z",
+              "region": "us-east-1",
+              "detail": {
+                "instance-id": "i-0123456789abcdef0",
+                "state": "running"
+              }
+            }
+            """, "us-west-2");
+
+        assertThat(event.instanceId(), is("i-0123456789abcdef0"));
+        assertThat(event.region(), is("us-east-1"));
+        assertThat(event.status(), is(VmDTO.Status.UP));
+        assertThat(event.time(), is(Instant.parse("2023-11-11T21:29:54Z")));
+    }
+
+    @Test
+    public void shouldParseEventDetails() {
+        final var event = Ec2StateChangeEvent.parse("""
+            {"instance-id": "i-0123456789abcdef0", "state": "stopped"}
+            """, "us-west-2");
+
+        assertThat(event.instanceId(), is("i-0123456789abcdef0"));
+        assertThat(event.region(), is("us-west-2"));
+        assertThat(event.status(), is(VmDTO.Status.DOWN));
+        assertThat(event.time(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldIgnoreOtherMessages() {
+        assertThat(Ec2StateChangeEvent.parse("hi", "us-west-2"), is(nullValue()));
+        assertThat(Ec2StateChangeEvent.parse("[]", "us-west-2"), is(nullValue()));
+        assertThat(Ec2StateChangeEvent.parse("{\"detail\": {}}", "us-west-2"), is(nullValue()));
+        assertThat(Ec2StateChangeEvent.parse("""
+            {"instance-id": "i-0123456789abcdef0", "state": "hibernating"}
+            """, "us-west-2"), is(nullValue()));
+    }
+
+    @Test
+    public void shouldOrderByTime() {
+        final var earlier = new Ec2StateChangeEvent("i-1", "us-west-2", VmDTO.Status.INITIALIZING,
+            Instant.parse("2023-11-11T21:29:54Z"));
+        final var later = new Ec2StateChangeEvent("i-1", "us-west-2", VmDTO.Status.UP,
+            Instant.parse("2023-11-11T21:30:54Z"));
+        final var unknown = new Ec2StateChangeEvent("i-1", "us-west-2", VmDTO.Status.DOWN, null);
+
+        assertThat(later.isAfter(earlier), is(true));
+        assertThat(earlier.isAfter(later), is(false));
+        assertThat(earlier.isAfter(unknown), is(true));
+        assertThat(unknown.isAfter(earlier), is(false));
+        assertThat(unknown.isAfter(unknown), is(false));
+    }
+}
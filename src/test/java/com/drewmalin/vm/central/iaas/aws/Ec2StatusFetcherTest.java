@@ -0,0 +1,79 @@
+package com.drewmalin.vm.central.iaas.aws;
+
+import com.drewmalin.vm.central.data.model.UserDTO;
+import com.drewmalin.vm.central.data.model.VmDTO;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.ec2.model.InstanceStateName;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class Ec2StatusFetcherTest {
+
+    private static final UserDTO OWNER = UserDTO.builder()
+        .pk(1)
+        .id("USER:1")
+        .username("username")
+        .hashedPassword(new byte[16])
+        .salt(new byte[16])
+        .firstName("first")
+        .lastName("last")
+        .roleId("user")
+        .build();
+
+    @Test
+    public void shouldPartitionIntoBatches() {
+        final var ids = IntStream.range(0, 450).boxed().toList();
+
+        final var batches = Ec2StatusFetcher.partition(ids, Ec2StatusFetcher.MAX_INSTANCE_IDS_PER_CALL);
+
+        assertThat(batches.size(), is(3));
+        assertThat(batches.get(0).size(), is(200));
+        assertThat(batches.get(1).size(), is(200));
+        assertThat(batches.get(2).size(), is(50));
+        assertThat(batches.get(2).get(49), is(449));
+        assertThat(Ec2StatusFetcher.partition(List.of(), 200).size(), is(0));
+    }
+
+    @Test
+    public void shouldMapInstanceStates() {
+        assertThat(Ec2StatusFetcher.toStatus(InstanceStateName.PENDING), is(VmDTO.Status.INITIALIZING));
+        assertThat(Ec2StatusFetcher.toStatus(InstanceStateName.RUNNING), is(VmDTO.Status.UP));
+        assertThat(Ec2StatusFetcher.toStatus(InstanceStateName.STOPPING), is(VmDTO.Status.DOWN));
+        assertThat(Ec2StatusFetcher.toStatus(InstanceStateName.STOPPED), is(VmDTO.Status.DOWN));
+        assertThat(Ec2StatusFetcher.toStatus(InstanceStateName.SHUTTING_DOWN), is(VmDTO.Status.DOWN));
+        assertThat(Ec2StatusFetcher.toStatus(InstanceStateName.TERMINATED), is(VmDTO.Status.DOWN));
+        assertThat(Ec2StatusFetcher.toStatus(InstanceStateName.UNKNOWN_TO_SDK_VERSION), is(nullValue()));
+        assertThat(Ec2StatusFetcher.toStatus(null), is(nullValue()));
+    }
+
+    @Test
+    public void shouldSkipUnprovisionedVms() {
+        /*
+         * No VM is describable, so AWS (here unconfigured) is never reached
+         */
+        final var fetcher = new Ec2StatusFetcher(new Aws(null), 0);
+
+        final var statuses = fetcher.fetch(List.of(
+            VmDTO.builder()
+                .id("VM:1")
+                .provider(VmDTO.Provider.AWS)
+                .status(VmDTO.Status.INITIALIZING)
+                .owner(OWNER)
+                .build(),
+            VmDTO.builder()
+                .id("VM:2")
+                .provider(VmDTO.Provider.AWS)
+                .status(VmDTO.Status.UP)
+                .providerInstanceId("i-0123456789abcdef0")
+                .owner(OWNER)
+                .build()));
+
+        assertThat(statuses.result(), is(Map.of()));
+    }
+}
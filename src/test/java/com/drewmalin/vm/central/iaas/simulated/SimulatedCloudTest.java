@@ -0,0 +1,145 @@
+package com.drewmalin.vm.central.iaas.simulated;
+
+import com.drewmalin.vm.central.configuration.Config;
+import com.drewmalin.vm.central.data.model.UserDTO;
+import com.drewmalin.vm.central.data.model.VmDTO;
+import com.drewmalin.vm.central.iaas.IaasException;
+import io.vertx.core.Vertx;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class SimulatedCloudTest {
+
+    private static final Config.CloudVmIaas.Simulated.Action INSTANT = new Config.CloudVmIaas.Simulated.Action(
+        new Config.CloudVmIaas.Simulated.Latency("fixed", 0, 0, 0), 0, 0, 0);
+
+    private static final VmDTO VM = VmDTO.builder()
+        .pk(42)
+        .id("VM:1234")
+        .provider(VmDTO.Provider.AWS)
+        .status(VmDTO.Status.INITIALIZING)
+        .owner(UserDTO.builder()
+            .pk(1)
+            .id("USER:1")
+            .username("username")
+            .hashedPassword(new byte[16])
+            .salt(new byte[16])
+            .firstName("first")
+            .lastName("last")
+            .roleId("user")
+            .build())
+        .build();
+
+    private Vertx vertx;
+    private AtomicLong clock;
+
+    @BeforeEach
+    public void setup() {
+        this.vertx = Vertx.vertx();
+        this.clock = new AtomicLong();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.vertx.close();
+    }
+
+    @Test
+    public void shouldProvisionReproducibly() {
+        final var config = config(42, INSTANT, INSTANT, null, null);
+
+        final var first = new SimulatedCloud(this.vertx, config, this.clock::get).provision(VM).result();
+        final var second = new SimulatedCloud(this.vertx, config, this.clock::get).provision(VM).result();
+        final var otherSeed = new SimulatedCloud(this.vertx, config(7, INSTANT, INSTANT, null, null), this.clock::get)
+            .provision(VM)
+            .result();
+
+        assertThat(first.providerInstanceId().startsWith("i-"), is(true));
+        assertThat(first.providerInstanceId(), is(second.providerInstanceId()));
+        assertThat(first.region(), is(second.region()));
+        assertThat(first.vmStatus(), is(VmDTO.Status.UP));
+        assertThat(otherSeed.providerInstanceId(), is(not(first.providerInstanceId())));
+    }
+
+    @Test
+    public void shouldBootAndBecomeVisibleOverTime() {
+        final var cloud = new SimulatedCloud(this.vertx, config(42, INSTANT, INSTANT,
+            new Config.CloudVmIaas.Simulated.Latency("fixed", 1_000, 0, 0),
+            new Config.CloudVmIaas.Simulated.Latency("fixed", 500, 0, 0)), this.clock::get);
+
+        final var vm = cloud.provision(VM).result();
+        assertThat(vm.vmStatus(), is(VmDTO.Status.INITIALIZING));
+
+        // Not yet visible
+        assertThat(cloud.fetch(List.of(vm)).result(), is(Map.of()));
+
+        this.clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(cloud.fetch(List.of(vm)).result().get(vm.id()), is(VmDTO.Status.INITIALIZING));
+
+        this.clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertThat(cloud.fetch(List.of(vm)).result().get(vm.id()), is(VmDTO.Status.UP));
+    }
+
+    @Test
+    public void shouldFail() {
+        final var failing = new Config.CloudVmIaas.Simulated.Action(INSTANT.latency(), 1, 0, 0);
+        final var cloud = new SimulatedCloud(this.vertx, config(42, failing, failing, null, null), this.clock::get);
+
+        final var result = cloud.provision(VM);
+
+        assertThat(result.failed(), is(true));
+        assertThat(((IaasException) result.cause()).isThrottled(), is(false));
+    }
+
+    @Test
+    public void shouldThrottle() {
+        final var limited = new Config.CloudVmIaas.Simulated.Action(INSTANT.latency(), 0, 1, 2);
+        final var cloud = new SimulatedCloud(this.vertx, config(42, limited, INSTANT, null, null), this.clock::get);
+
+        assertThat(cloud.provision(VM).succeeded(), is(true));
+        assertThat(cloud.provision(VM).succeeded(), is(true));
+
+        final var throttled = cloud.provision(VM);
+        assertThat(throttled.failed(), is(true));
+        assertThat(((IaasException) throttled.cause()).isThrottled(), is(true));
+
+        // One token accrues per second
+        this.clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(cloud.provision(VM).succeeded(), is(true));
+    }
+
+    @Test
+    public void shouldSampleLatencyDistributions() {
+        final var random = new SplittableRandom(42);
+
+        for (final var distribution : List.of("fixed", "uniform", "exponential", "lognormal")) {
+            final var latency = LatencyDistribution.of(
+                new Config.CloudVmIaas.Simulated.Latency(distribution, 100, 250, 0), 0);
+
+            for (var i = 0; i < 1_000; i++) {
+                final var sample = latency.sample(random);
+                assertThat(sample >= 0 && sample <= 250, is(true));
+            }
+        }
+    }
+
+    private static Config.CloudVmIaas.Simulated config(final long seed,
+                                                      final Config.CloudVmIaas.Simulated.Action run,
+                                                      final Config.CloudVmIaas.Simulated.Action describe,
+                                                      final Config.CloudVmIaas.Simulated.Latency boot,
+                                                      final Config.CloudVmIaas.Simulated.Latency visibility) {
+        return new Config.CloudVmIaas.Simulated(false, seed, List.of("us-west-2", "us-east-1"),
+            run, describe, boot, visibility, null);
+    }
+}
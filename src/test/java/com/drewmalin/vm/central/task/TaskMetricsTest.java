@@ -0,0 +1,28 @@
+package com.drewmalin.vm.central.task;
+
+import io.vertx.ext.web.handler.HttpException;
+import org.junit.jupiter.api.Test;
+
+import java.util.NoSuchElementException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class TaskMetricsTest {
+
+    @Test
+    public void shouldClassifyOutcomes() {
+        assertThat(TaskMetrics.Outcome.of(null), is(TaskMetrics.Outcome.SUCCESS));
+        assertThat(TaskMetrics.Outcome.of(new IllegalArgumentException()), is(TaskMetrics.Outcome.BAD_REQUEST));
+        assertThat(TaskMetrics.Outcome.of(new UnauthorizedException("no")), is(TaskMetrics.Outcome.UNAUTHORIZED));
+        assertThat(TaskMetrics.Outcome.of(new NoSuchElementException()), is(TaskMetrics.Outcome.NOT_FOUND));
+        assertThat(TaskMetrics.Outcome.of(new RuntimeException()), is(TaskMetrics.Outcome.ERROR));
+    }
+
+    @Test
+    public void shouldClassifyHttpExceptionsByStatus() {
+        assertThat(TaskMetrics.Outcome.of(new HttpException(403)), is(TaskMetrics.Outcome.UNAUTHORIZED));
+        assertThat(TaskMetrics.Outcome.of(new HttpException(404)), is(TaskMetrics.Outcome.NOT_FOUND));
+        assertThat(TaskMetrics.Outcome.of(new HttpException(503)), is(TaskMetrics.Outcome.ERROR));
+    }
+}